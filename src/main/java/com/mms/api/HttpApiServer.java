@@ -0,0 +1,372 @@
+package com.mms.api;
+
+import com.mms.controllers.MMSController;
+import com.mms.exceptions.*;
+import com.mms.models.*;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HttpApiServer exposes the MMSController operations as a JSON API on the
+ * loopback interface, using the JDK's built-in HTTP server with one virtual
+ * thread per request.
+ *
+ * <pre>
+ * POST /api/patients                    {name, phone, email, password}
+ * GET  /api/patients/{id}
+ * POST /api/patients/{id}/upgrade
+ * POST /api/treatments                  {patientId, treatmentTypeId}
+ * GET  /api/treatments/{id}
+ * POST /api/treatments/{id}/clinician   {clinicianId}
+ * POST /api/treatments/{id}/status      {status}
+ * POST /api/bills                       {treatmentId}
+ * GET  /api/bills/{id}
+ * POST /api/bills/{id}/payment
+ * POST /api/notifications               {patientId, message, promotional}
+ * POST /api/batch                       [{op, ...fields}, ...]
+ * </pre>
+ *
+ * A batch runs its operations in order and answers with one
+ * {status, result} or {status, error} entry per operation; a failed
+ * operation does not stop the rest. Batch operation names are register,
+ * upgrade, book, assign, status, bill, pay and notify, taking the same
+ * fields as the single endpoints plus the id the path would carry
+ * (patientId, treatmentId or billId).
+ */
+public class HttpApiServer implements Closeable {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int MAX_BATCH_OPERATIONS = 1000;
+
+    static {
+        // The JDK server leaves Nagle's algorithm on, which holds every small
+        // response back for a delayed ACK (~40 ms); must be set before first use
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final MMSController controller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, Operation> operations = new HashMap<>();
+
+    /**
+     * One API operation over its JSON fields.
+     */
+    private interface Operation {
+        Object apply(Map<String, Object> fields) throws Exception;
+    }
+
+    /**
+     * Binds the port; use 0 for any free port.
+     */
+    public HttpApiServer(MMSController controller, int port) throws IOException {
+        this.controller = controller;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+        registerOperations();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void registerOperations() {
+        operations.put("register", fields -> patientJson(controller.registerPatientAndReturn(
+                requireString(fields, "name"), optionalString(fields, "phone"),
+                requireString(fields, "email"), requireString(fields, "password"))));
+        operations.put("getPatient", fields -> patientJson(controller.getPatient(requireString(fields, "patientId"))));
+        operations.put("upgrade", fields -> {
+            String patientId = requireString(fields, "patientId");
+            controller.upgradePatient(patientId);
+            return patientJson(controller.getPatient(patientId));
+        });
+        operations.put("book", fields -> treatmentJson(controller.bookTreatmentAndReturn(
+                requireString(fields, "patientId"), requireString(fields, "treatmentTypeId"))));
+        operations.put("getTreatment",
+                fields -> treatmentJson(controller.getTreatment(requireString(fields, "treatmentId"))));
+        operations.put("assign", fields -> {
+            String treatmentId = requireString(fields, "treatmentId");
+            controller.assignClinician(treatmentId, requireString(fields, "clinicianId"));
+            return treatmentJson(controller.getTreatment(treatmentId));
+        });
+        operations.put("status", fields -> {
+            String treatmentId = requireString(fields, "treatmentId");
+            controller.updateTreatmentStatus(treatmentId, requireStatus(fields));
+            return treatmentJson(controller.getTreatment(treatmentId));
+        });
+        operations.put("bill", fields -> billJson(controller.generateBill(requireString(fields, "treatmentId"))));
+        operations.put("getBill", fields -> billJson(controller.getBill(requireString(fields, "billId"))));
+        operations.put("pay", fields -> {
+            String billId = requireString(fields, "billId");
+            controller.recordPayment(billId);
+            return billJson(controller.getBill(billId));
+        });
+        operations.put("notify", fields -> notificationJson(controller.sendNotificationAndReturn(
+                requireString(fields, "patientId"), requireString(fields, "message"),
+                Boolean.TRUE.equals(fields.get("promotional")))));
+    }
+
+    // ===== ROUTING =====
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Response response;
+            try {
+                response = route(exchange);
+            } catch (Exception e) {
+                response = error(e);
+            }
+            send(exchange, response);
+        }
+    }
+
+    private record Response(int status, Object body) {
+    }
+
+    private Response route(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        boolean post = method.equals("POST");
+        boolean get = method.equals("GET");
+        String resource = path[0];
+
+        if (post && path.length == 1 && resource.equals("batch")) {
+            return new Response(200, batch(readBody(exchange)));
+        }
+        if (post && path.length == 1) {
+            String op = switch (resource) {
+                case "patients" -> "register";
+                case "treatments" -> "book";
+                case "bills" -> "bill";
+                case "notifications" -> "notify";
+                default -> null;
+            };
+            if (op != null) {
+                return new Response(201, invoke(op, asObject(readBody(exchange))));
+            }
+        }
+        if (path.length == 2 && get) {
+            String op = switch (resource) {
+                case "patients" -> "getPatient";
+                case "treatments" -> "getTreatment";
+                case "bills" -> "getBill";
+                default -> null;
+            };
+            if (op != null) {
+                return new Response(200, invoke(op, withId(new HashMap<>(), resource, path[1])));
+            }
+        }
+        if (path.length == 3 && post) {
+            String op = switch (resource + "/" + path[2]) {
+                case "patients/upgrade" -> "upgrade";
+                case "treatments/clinician" -> "assign";
+                case "treatments/status" -> "status";
+                case "bills/payment" -> "pay";
+                default -> null;
+            };
+            if (op != null) {
+                Object body = readBody(exchange);
+                Map<String, Object> fields = body == null ? new HashMap<>() : new HashMap<>(asObject(body));
+                return new Response(200, invoke(op, withId(fields, resource, path[1])));
+            }
+        }
+        return new Response(404, Map.of("error", "No such endpoint: " + method + " " + exchange.getRequestURI()));
+    }
+
+    private Object invoke(String op, Map<String, Object> fields) throws Exception {
+        return operations.get(op).apply(fields);
+    }
+
+    private static Map<String, Object> withId(Map<String, Object> fields, String resource, String id) {
+        String key = switch (resource) {
+            case "patients" -> "patientId";
+            case "treatments" -> "treatmentId";
+            default -> "billId";
+        };
+        fields.put(key, id);
+        return fields;
+    }
+
+    private List<Object> batch(Object body) throws InvalidInputException {
+        if (!(body instanceof List<?> requests)) {
+            throw new InvalidInputException("Batch body must be a JSON array");
+        }
+        if (requests.size() > MAX_BATCH_OPERATIONS) {
+            throw new InvalidInputException("Batch exceeds " + MAX_BATCH_OPERATIONS + " operations");
+        }
+        List<Object> results = new ArrayList<>(requests.size());
+        for (Object request : requests) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            try {
+                Map<String, Object> fields = asObject(request);
+                Object op = fields.get("op");
+                if (!(op instanceof String name) || !operations.containsKey(name)) {
+                    throw new InvalidInputException("Unknown operation: " + op);
+                }
+                Object value = invoke(name, fields);
+                result.put("status", 200);
+                result.put("result", value);
+            } catch (Exception e) {
+                Response response = error(e);
+                result.put("status", response.status());
+                result.put("error", ((Map<?, ?>) response.body()).get("error"));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    // ===== REQUESTS AND RESPONSES =====
+
+    private static Object readBody(HttpExchange exchange) throws IOException, InvalidInputException {
+        byte[] bytes;
+        try (InputStream in = exchange.getRequestBody()) {
+            bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new InvalidInputException("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (text.isBlank()) {
+            return null;
+        }
+        try {
+            return Json.parse(text);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Malformed JSON: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object body) throws InvalidInputException {
+        if (!(body instanceof Map<?, ?>)) {
+            throw new InvalidInputException("Request body must be a JSON object");
+        }
+        return (Map<String, Object>) body;
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = Json.write(response.body()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status(), bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Response error(Exception e) {
+        int status;
+        String message = e.getMessage();
+        if (e instanceof InvalidInputException || e instanceof IllegalArgumentException) {
+            status = 400;
+        } else if (e instanceof UserNotFoundException || e instanceof TreatmentNotFoundException) {
+            status = 404;
+        } else if (e instanceof StorageException) {
+            status = 500;
+            message = "Storage error: " + e.getMessage();
+        } else {
+            status = 500;
+            message = "Internal error: " + e;
+        }
+        return new Response(status, Map.of("error", String.valueOf(message)));
+    }
+
+    private static String requireString(Map<String, Object> fields, String name) throws InvalidInputException {
+        Object value = fields.get(name);
+        if (!(value instanceof String string) || string.isEmpty()) {
+            throw new InvalidInputException("Missing field: " + name);
+        }
+        return string;
+    }
+
+    private static String optionalString(Map<String, Object> fields, String name) {
+        Object value = fields.get(name);
+        return value instanceof String string ? string : "";
+    }
+
+    private static TreatmentStatus requireStatus(Map<String, Object> fields) throws InvalidInputException {
+        String status = requireString(fields, "status");
+        try {
+            return TreatmentStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Unknown status: " + status);
+        }
+    }
+
+    // ===== ENTITY VIEWS =====
+
+    private static Map<String, Object> patientJson(Patient patient) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", patient.getId());
+        json.put("name", patient.getName());
+        json.put("phone", patient.getPhone());
+        json.put("email", patient.getEmail());
+        json.put("registered", patient.isRegistered());
+        json.put("flagged", patient.isFlagged());
+        json.put("optedInForPromotions", patient.isOptedInForPromotions());
+        return json;
+    }
+
+    private static Map<String, Object> treatmentJson(Treatment treatment) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", treatment.getTreatmentId());
+        json.put("patientId", treatment.getPatientId());
+        json.put("clinicianId", treatment.getClinicianId());
+        json.put("treatmentTypeId", treatment.getTreatmentTypeId());
+        json.put("status", treatment.getStatus());
+        json.put("createdDate", timestamp(treatment.getCreatedDate()));
+        json.put("notes", treatment.getNotes());
+        return json;
+    }
+
+    private static Map<String, Object> billJson(Bill bill) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", bill.getBillId());
+        json.put("patientId", bill.getPatientId());
+        json.put("treatmentId", bill.getTreatmentId());
+        json.put("totalAmount", bill.getTotalAmount());
+        json.put("paid", bill.isPaid());
+        json.put("createdDate", timestamp(bill.getCreatedDate()));
+        json.put("paidDate", timestamp(bill.getPaidDate()));
+        return json;
+    }
+
+    private static Map<String, Object> notificationJson(Notification notification) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", notification.getNotificationId());
+        json.put("patientId", notification.getPatientId());
+        json.put("message", notification.getMessage());
+        json.put("promotional", notification.isPromotional());
+        json.put("timestamp", timestamp(notification.getTimestamp()));
+        return json;
+    }
+
+    private static String timestamp(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+}
@@ -1,10 +1,19 @@
 package com.mms.cli;
 
+import com.mms.controllers.BillingRunReport;
+import com.mms.controllers.Broadcast;
+import com.mms.controllers.BroadcastAudience;
+import com.mms.controllers.ImportReport;
 import com.mms.controllers.MMSController;
 import com.mms.exceptions.*;
+import com.mms.metrics.MetricsRegistry;
 import com.mms.models.*;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  * AdminCLI handles the admin menu and admin operations.
@@ -13,18 +22,35 @@ public class AdminCLI {
     private Admin admin;
     private MMSController controller;
     private Scanner scanner;
+    private PrintStream out;
     private boolean isLoggedIn;
 
+    // Report tables, reused by every report in this session
+    private final ReportTable<Patient> patientTable = ReportTables.patients("ALL PATIENTS");
+    private final ReportTable<Clinician> clinicianTable = ReportTables.clinicians("AVAILABLE CLINICIANS");
+    private final ReportTable<TreatmentType> treatmentTypeTable = ReportTables.treatmentTypes("TREATMENT TYPES");
+    private final ReportTable<Bill> billTable = ReportTables.bills("ALL BILLS");
+    private final ReportTable<Treatment> treatmentTable = ReportTables.treatments("PATIENT TREATMENTS");
+
     public AdminCLI(Admin admin, Scanner scanner) throws StorageException {
+        this(admin, MMSController.getInstance(), scanner, System.out);
+    }
+
+    /**
+     * Creates a session that reads from the given scanner and writes to the
+     * given stream, e.g. one network connection.
+     */
+    public AdminCLI(Admin admin, MMSController controller, Scanner scanner, PrintStream out) {
         this.admin = admin;
-        this.controller = MMSController.getInstance();
+        this.controller = controller;
         this.scanner = scanner;
+        this.out = out;
         this.isLoggedIn = true;
     }
 
     public void start() {
         while (isLoggedIn) {
-            admin.showMenu();
+            admin.printMenu(out);
             String choice = scanner.nextLine().trim();
             processChoice(choice);
         }
@@ -64,122 +90,168 @@ public class AdminCLI {
                     viewReports();
                     break;
                 case "11":
+                    importPatients();
+                    break;
+                case "12":
+                    runBilling();
+                    break;
+                case "13":
                     logout();
                     break;
                 default:
-                    System.out.println("Invalid option. Please try again.");
+                    out.println("Invalid option. Please try again.");
             }
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            out.println("Error: " + e.getMessage());
         }
     }
 
-    private void registerNewPatient() throws InvalidInputException {
-        System.out.print("Enter patient name: ");
+    private void registerNewPatient() throws InvalidInputException, StorageException {
+        out.print("Enter patient name: ");
         String name = scanner.nextLine().trim();
-        System.out.print("Enter phone: ");
+        out.print("Enter phone: ");
         String phone = scanner.nextLine().trim();
-        System.out.print("Enter email: ");
+        out.print("Enter email: ");
         String email = scanner.nextLine().trim();
-        System.out.print("Enter password: ");
+        out.print("Enter password: ");
         String password = scanner.nextLine().trim();
         
         Patient newPatient = controller.registerPatientAndReturn(name, phone, email, password);
-        System.out.println("\n✓ Patient registered successfully!");
-        System.out.println("  Patient ID: " + newPatient.getId());
-        System.out.println("  Name: " + newPatient.getName());
-        System.out.println("  Email: " + newPatient.getEmail());
+        out.println("\n✓ Patient registered successfully!");
+        out.println("  Patient ID: " + newPatient.getId());
+        out.println("  Name: " + newPatient.getName());
+        out.println("  Email: " + newPatient.getEmail());
     }
 
     private void upgradePatient() throws UserNotFoundException, StorageException {
-        System.out.print("Enter patient ID to upgrade: ");
+        out.print("Enter patient ID to upgrade: ");
         String patientId = scanner.nextLine().trim();
         controller.upgradePatient(patientId);
-        System.out.println("✓ Patient upgraded to registered");
+        out.println("✓ Patient upgraded to registered");
     }
 
-    private void assignPatientToClinician() throws UserNotFoundException, TreatmentNotFoundException, StorageException {
-        System.out.print("\nEnter treatment ID: ");
+    private void assignPatientToClinician()
+            throws UserNotFoundException, TreatmentNotFoundException, InvalidInputException, StorageException {
+        out.print("\nEnter treatment ID: ");
         String treatmentId = scanner.nextLine().trim();
         
         // Show available clinicians
         List<Clinician> clinicians = controller.getAllClinicians();
         if (clinicians.isEmpty()) {
-            System.out.println("No clinicians available.");
+            out.println("No clinicians available.");
             return;
         }
         
-        System.out.println("\n📋 Available Clinicians:");
-        for (Clinician c : clinicians) {
-            System.out.printf("  - ID: %-20s Name: %-25s Specialization: %s\n", 
-                c.getId(), c.getName(), c.getSpecialization());
-        }
+        clinicianTable.page(scanner, out, clinicians);
         
-        System.out.print("\nEnter clinician ID: ");
+        out.print("\nEnter clinician ID: ");
         String clinicianId = scanner.nextLine().trim();
         controller.assignClinician(treatmentId, clinicianId);
-        System.out.println("✓ Clinician assigned successfully");
+        out.println("✓ Clinician assigned successfully");
     }
 
     private void addTreatmentType() throws InvalidInputException, StorageException {
-        System.out.print("Enter treatment name: ");
+        out.print("Enter treatment name: ");
         String name = scanner.nextLine().trim();
-        System.out.print("Enter price: ");
+        out.print("Enter price: ");
         try {
             double price = Double.parseDouble(scanner.nextLine().trim());
             controller.addTreatmentType(name, price);
-            System.out.println("✓ Treatment type added successfully");
+            out.println("✓ Treatment type added successfully");
         } catch (NumberFormatException e) {
             throw new InvalidInputException("Invalid price format");
         }
     }
 
     private void removeTreatmentType() throws TreatmentNotFoundException, StorageException {
-        System.out.print("Enter treatment type ID to remove: ");
+        out.print("Enter treatment type ID to remove: ");
         String typeId = scanner.nextLine().trim();
         controller.removeTreatmentType(typeId);
-        System.out.println("✓ Treatment type removed successfully");
+        out.println("✓ Treatment type removed successfully");
     }
 
     private void generateBill() throws TreatmentNotFoundException, StorageException {
-        System.out.print("Enter treatment ID: ");
+        out.print("Enter treatment ID: ");
         String treatmentId = scanner.nextLine().trim();
         Bill bill = controller.generateBill(treatmentId);
-        System.out.println("✓ Bill generated: " + bill);
+        out.println("✓ Bill generated: " + bill);
+    }
+
+    private void runBilling() throws StorageException {
+        BillingRunReport report = controller.runBilling();
+        out.println("\n✓ Billing run complete");
+        out.println("  Treatments scanned: " + report.getTreatmentsScanned());
+        out.println("  Bills created: " + report.getBillsCreated());
+        out.printf("  Total billed: $%.2f%n", report.getTotalAmount());
+        if (report.getUnpriced() > 0) {
+            out.println("  Skipped (treatment type removed): " + report.getUnpriced());
+        }
+        out.println("  Duration: " + report.getElapsedMillis() + " ms");
     }
 
     private void recordPayment() throws TreatmentNotFoundException, StorageException {
-        System.out.print("Enter bill ID: ");
+        out.print("Enter bill ID: ");
         String billId = scanner.nextLine().trim();
         controller.recordPayment(billId);
-        System.out.println("✓ Payment recorded successfully");
+        out.println("✓ Payment recorded successfully");
     }
 
-    private void flagNonPayingPatient() throws UserNotFoundException {
-        System.out.print("Enter patient ID to flag: ");
+    private void flagNonPayingPatient() throws UserNotFoundException, StorageException {
+        out.print("Enter patient ID to flag: ");
         String patientId = scanner.nextLine().trim();
         controller.flagPatient(patientId);
-        System.out.println("✓ Patient flagged successfully");
+        out.println("✓ Patient flagged successfully");
     }
 
-    private void sendNotifications() throws UserNotFoundException, StorageException {
-        System.out.print("Enter patient ID: ");
-        String patientId = scanner.nextLine().trim();
-        System.out.print("Enter message: ");
+    private void sendNotifications() throws UserNotFoundException, InvalidInputException, StorageException {
+        out.print("Send to (1) one patient or (2) a broadcast audience: ");
+        boolean broadcast = scanner.nextLine().trim().equals("2");
+        String patientId = null;
+        Set<BroadcastAudience> audience = EnumSet.noneOf(BroadcastAudience.class);
+        if (broadcast) {
+            BroadcastAudience[] filters = BroadcastAudience.values();
+            for (int i = 0; i < filters.length; i++) {
+                out.println((i + 1) + ". " + filters[i].getDisplayName());
+            }
+            out.print("Audience filters, all must match (e.g. 1,3; blank for all patients): ");
+            for (String choice : scanner.nextLine().split(",")) {
+                if (choice.isBlank()) {
+                    continue;
+                }
+                try {
+                    audience.add(filters[Integer.parseInt(choice.trim()) - 1]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    throw new InvalidInputException("Invalid audience filter: " + choice.trim());
+                }
+            }
+        } else {
+            out.print("Enter patient ID: ");
+            patientId = scanner.nextLine().trim();
+        }
+        out.print("Enter message: ");
         String message = scanner.nextLine().trim();
-        System.out.print("Is promotional (y/n): ");
+        out.print("Is promotional (y/n): ");
         boolean isPromotional = scanner.nextLine().trim().equalsIgnoreCase("y");
-        controller.sendNotification(patientId, message, isPromotional);
-        System.out.println("✓ Notification sent successfully");
+        if (!broadcast) {
+            Notification sent = controller.sendNotificationAndReturn(patientId, message, isPromotional);
+            controller.getPatient(patientId).receiveNotification(sent, out);
+            out.println("✓ Notification sent successfully");
+            return;
+        }
+        Broadcast started = controller.broadcastNotification(message, isPromotional, audience);
+        out.println("✓ Broadcast " + started.getId() + " started; follow it under View reports");
     }
 
-    private void viewReports() {
-        System.out.println("\n====== REPORTS ======");
-        System.out.println("1. View all patients");
-        System.out.println("2. View all treatment types");
-        System.out.println("3. View all bills");
-        System.out.println("4. View all treatments");
-        System.out.print("Select: ");
+    private void viewReports() throws InvalidInputException, StorageException {
+        out.println("\n====== REPORTS ======");
+        out.println("1. View all patients");
+        out.println("2. View all treatment types");
+        out.println("3. View all bills");
+        out.println("4. View all treatments");
+        out.println("5. View broadcast progress");
+        out.println("6. View system metrics");
+        out.println("7. View storage I/O");
+        out.print("Select: ");
         String choice = scanner.nextLine().trim();
         
         switch (choice) {
@@ -195,90 +267,106 @@ public class AdminCLI {
             case "4":
                 viewTreatments();
                 break;
+            case "5":
+                viewBroadcasts();
+                break;
+            case "6":
+                viewMetrics();
+                break;
+            case "7":
+                viewStorageMetrics();
+                break;
             default:
-                System.out.println("Invalid option");
+                out.println("Invalid option");
         }
     }
 
-    private void viewPatients() {
+    private void viewPatients() throws InvalidInputException {
         List<Patient> patients = controller.getAllPatients();
         if (patients.isEmpty()) {
-            System.out.println("\nNo patients found.");
+            out.println("\nNo patients found.");
             return;
         }
-        System.out.println("\n╔════════════════════════════════════════════════════════════════════╗");
-        System.out.println("║                         ALL PATIENTS                             ║");
-        System.out.println("╠════════════════════════════════════════════════════════════════════╣");
-        for (Patient p : patients) {
-            System.out.printf("║ ID: %-20s Name: %-30s ║\n", p.getId(), p.getName());
-            System.out.printf("║ Email: %-20s Phone: %-30s ║\n", p.getEmail(), p.getPhone());
-            System.out.printf("║ Registered: %-10s Flagged: %-10s Promotions: %-10s ║\n", 
-                p.isRegistered(), p.isFlagged(), p.isOptedInForPromotions());
-            System.out.println("╠════════════════════════════════════════════════════════════════════╣");
-        }
-        System.out.println("╚════════════════════════════════════════════════════════════════════╝");
+        patientTable.page(scanner, out, patients);
     }
 
-    private void viewTreatmentTypes() {
+    private void viewTreatmentTypes() throws InvalidInputException {
         List<TreatmentType> types = controller.getAllTreatmentTypes();
         if (types.isEmpty()) {
-            System.out.println("\nNo treatment types found.");
+            out.println("\nNo treatment types found.");
             return;
         }
-        System.out.println("\n╔═══════════════════════════════════════════════════════╗");
-        System.out.println("║                 TREATMENT TYPES                     ║");
-        System.out.println("╠═══════════════════════════════════════════════════════╣");
-        for (TreatmentType t : types) {
-            System.out.printf("║ ID: %-20s Name: %-25s ║\n", t.getId(), t.getName());
-            System.out.printf("║ Price: $%.2f                                           ║\n", t.getPrice());
-            System.out.println("╠═══════════════════════════════════════════════════════╣");
-        }
-        System.out.println("╚═══════════════════════════════════════════════════════╝");
+        treatmentTypeTable.page(scanner, out, types);
     }
 
-    private void viewBills() {
+    private void viewBills() throws InvalidInputException, StorageException {
         List<Bill> bills = controller.getAllBills();
         if (bills.isEmpty()) {
-            System.out.println("\nNo bills found.");
+            out.println("\nNo bills found.");
             return;
         }
-        System.out.println("\n╔═══════════════════════════════════════════════════════════════════╗");
-        System.out.println("║                         ALL BILLS                               ║");
-        System.out.println("╠═══════════════════════════════════════════════════════════════════╣");
-        for (Bill b : bills) {
-            System.out.printf("║ Bill ID: %-25s Amount: $%.2f ║\n", b.getBillId(), b.getTotalAmount());
-            System.out.printf("║ Patient ID: %-35s ║\n", b.getPatientId());
-            System.out.printf("║ Status: %s                                              ║\n", 
-                b.isPaid() ? "PAID" : "PENDING");
-            System.out.println("╠═══════════════════════════════════════════════════════════════════╣");
-        }
-        System.out.println("╚═══════════════════════════════════════════════════════════════════╝");
+        billTable.page(scanner, out, bills);
     }
 
-    private void viewTreatments() {
-        System.out.println("\nView treatments for patient?");
-        System.out.print("Enter patient ID: ");
+    private void viewTreatments() throws InvalidInputException {
+        out.println("\nView treatments for patient?");
+        out.print("Enter patient ID: ");
         String patientId = scanner.nextLine().trim();
         List<Treatment> treatments = controller.getPatientTreatments(patientId);
         if (treatments.isEmpty()) {
-            System.out.println("No treatments found for this patient.");
+            out.println("No treatments found for this patient.");
             return;
         }
-        System.out.println("\n╔═══════════════════════════════════════════════════════════════════╗");
-        System.out.println("║                    PATIENT TREATMENTS                           ║");
-        System.out.println("╠═══════════════════════════════════════════════════════════════════╣");
-        for (Treatment t : treatments) {
-            System.out.printf("║ Treatment ID: %-29s ║\n", t.getTreatmentId());
-            System.out.printf("║ Status: %-45s ║\n", t.getStatus().getDisplayName());
-            System.out.printf("║ Clinician: %-44s ║\n", 
-                t.getClinicianId() != null ? t.getClinicianId() : "Not assigned");
-            System.out.println("╠═══════════════════════════════════════════════════════════════════╣");
+        treatmentTable.page(scanner, out, treatments);
+    }
+
+    private void importPatients() throws InvalidInputException, StorageException {
+        out.print("Enter path of CSV or JSON-lines file: ");
+        String path = scanner.nextLine().trim();
+        ImportReport report = controller.importPatients(new File(path));
+        out.println("\n✓ Imported " + report.getImported() + " of " + report.getRowsRead()
+                + " patients in " + report.getElapsedMillis() + " ms");
+        List<String> errors = report.getErrors();
+        int shown = Math.min(errors.size(), 20);
+        for (int i = 0; i < shown; i++) {
+            out.println("  ✗ " + errors.get(i));
+        }
+        if (errors.size() > shown) {
+            out.println("  ... and " + (errors.size() - shown) + " more rejected rows");
         }
-        System.out.println("╚═══════════════════════════════════════════════════════════════════╝");
+    }
+
+    private void viewBroadcasts() {
+        List<Broadcast> broadcasts = controller.getBroadcasts();
+        if (broadcasts.isEmpty()) {
+            out.println("\nNo broadcasts started.");
+            return;
+        }
+        out.println("\n====== BROADCASTS ======");
+        for (Broadcast b : broadcasts) {
+            out.printf("%s  %s  queued %d, delivered %d, stored %d, failed %d  %.0f/s over %d ms%n",
+                b.getId(), b.isDone() ? "DONE   " : "RUNNING", b.getQueued(), b.getDelivered(),
+                b.getStored(), b.getFailed(), b.getThroughput(), b.getElapsedMillis());
+            if (b.getLastError() != null) {
+                out.println("  Last error: " + b.getLastError());
+            }
+        }
+    }
+
+    private void viewMetrics() {
+        MetricsRegistry metrics = controller.getMetrics();
+        out.println("\n====== SYSTEM METRICS ======");
+        out.printf("Uptime: %d s%n", metrics.getUptimeMillis() / 1000);
+        out.print(metrics.report());
+    }
+
+    private void viewStorageMetrics() {
+        out.println("\n====== STORAGE I/O ======");
+        out.print(controller.getStorageMetrics().report());
     }
 
     private void logout() {
-        System.out.println("✓ Logged out successfully");
+        out.println("✓ Logged out successfully");
         isLoggedIn = false;
     }
 }
@@ -3,6 +3,7 @@ package com.mms.cli;
 import com.mms.controllers.MMSController;
 import com.mms.exceptions.*;
 import com.mms.models.*;
+import java.io.PrintStream;
 import java.util.List;
 import java.util.Scanner;
 
@@ -13,18 +14,34 @@ public class ClinicianCLI {
     private Clinician clinician;
     private MMSController controller;
     private Scanner scanner;
+    private PrintStream out;
     private boolean isLoggedIn;
+    private final ReportTable<Treatment> assignedTable = new ReportTable<Treatment>("ASSIGNED PATIENTS")
+            .text("Patient", 25, this::patientName)
+            .text("Patient ID", Treatment::getPatientId)
+            .text("Treatment ID", Treatment::getTreatmentId)
+            .text("Type", Treatment::getTreatmentTypeId)
+            .text("Status", t -> t.getStatus().getDisplayName());
 
-    public ClinicianCLI(Clinician clinician, Scanner scanner) {
+    public ClinicianCLI(Clinician clinician, Scanner scanner) throws StorageException {
+        this(clinician, MMSController.getInstance(), scanner, System.out);
+    }
+
+    /**
+     * Creates a session that reads from the given scanner and writes to the
+     * given stream, e.g. one network connection.
+     */
+    public ClinicianCLI(Clinician clinician, MMSController controller, Scanner scanner, PrintStream out) {
         this.clinician = clinician;
-        this.controller = MMSController.getInstance();
+        this.controller = controller;
         this.scanner = scanner;
+        this.out = out;
         this.isLoggedIn = true;
     }
 
     public void start() {
         while (isLoggedIn) {
-            clinician.showMenu();
+            clinician.printMenu(out);
             String choice = scanner.nextLine().trim();
             processChoice(choice);
         }
@@ -46,53 +63,52 @@ public class ClinicianCLI {
                     logout();
                     break;
                 default:
-                    System.out.println("Invalid option. Please try again.");
+                    out.println("Invalid option. Please try again.");
             }
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            out.println("Error: " + e.getMessage());
         }
     }
 
-    private void viewAssignedPatients() {
+    private void viewAssignedPatients() throws InvalidInputException {
         List<Treatment> assignedTreatments = controller.getClinicianTreatments(clinician.getId());
         if (assignedTreatments.isEmpty()) {
-            System.out.println("No patients assigned yet.");
+            out.println("No patients assigned yet.");
             return;
         }
-        
-        System.out.println("\n====== ASSIGNED PATIENTS ======");
-        for (Treatment treatment : assignedTreatments) {
-            try {
-                Patient patient = controller.getPatient(treatment.getPatientId());
-                System.out.println("Patient: " + patient.getName() + " - Treatment: " + treatment);
-            } catch (UserNotFoundException e) {
-                System.out.println("Patient not found: " + e.getMessage());
-            }
+        assignedTable.page(scanner, out, assignedTreatments);
+    }
+
+    // The patient column has a fixed width, so each name is looked up once per row shown
+    private String patientName(Treatment treatment) {
+        try {
+            return controller.getPatient(treatment.getPatientId()).getName();
+        } catch (UserNotFoundException e) {
+            return "(not found)";
         }
-        System.out.println("================================");
     }
 
     private void recordTreatment() throws TreatmentNotFoundException {
-        System.out.print("Enter treatment ID: ");
+        out.print("Enter treatment ID: ");
         String treatmentId = scanner.nextLine().trim();
-        System.out.print("Enter treatment notes: ");
+        out.print("Enter treatment notes: ");
         String notes = scanner.nextLine().trim();
         
         Treatment treatment = controller.getTreatment(treatmentId);
         treatment.setNotes(notes);
-        System.out.println("✓ Treatment notes recorded");
+        out.println("✓ Treatment notes recorded");
     }
 
-    private void updateTreatmentStatus() throws TreatmentNotFoundException, InvalidInputException {
-        System.out.print("Enter treatment ID: ");
+    private void updateTreatmentStatus() throws TreatmentNotFoundException, InvalidInputException, StorageException {
+        out.print("Enter treatment ID: ");
         String treatmentId = scanner.nextLine().trim();
-        System.out.println("Select new status:");
-        System.out.println("1. NEW_TREATMENT");
-        System.out.println("2. TREATMENT_ASSESSED");
-        System.out.println("3. BILL_GENERATED");
-        System.out.println("4. COMPLETED");
-        System.out.println("5. PAID");
-        System.out.print("Select: ");
+        out.println("Select new status:");
+        out.println("1. NEW_TREATMENT");
+        out.println("2. TREATMENT_ASSESSED");
+        out.println("3. BILL_GENERATED");
+        out.println("4. COMPLETED");
+        out.println("5. PAID");
+        out.print("Select: ");
         String statusChoice = scanner.nextLine().trim();
         
         TreatmentStatus status = switch (statusChoice) {
@@ -105,11 +121,11 @@ public class ClinicianCLI {
         };
         
         controller.updateTreatmentStatus(treatmentId, status);
-        System.out.println("✓ Treatment status updated to " + status.getDisplayName());
+        out.println("✓ Treatment status updated to " + status.getDisplayName());
     }
 
     private void logout() {
-        System.out.println("✓ Logged out successfully");
+        out.println("✓ Logged out successfully");
         isLoggedIn = false;
     }
 }
@@ -0,0 +1,119 @@
+package com.mms.cli;
+
+import com.mms.controllers.MMSController;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MMSServer serves the text menus over TCP on the loopback interface.
+ * Each connection gets its own {@link MenuSession} on a virtual thread, so
+ * hundreds of desks cost no more than their sockets; all sessions share
+ * one {@link MMSController}.
+ *
+ * Connect with any line-based client, e.g. {@code nc localhost 7070}.
+ */
+public class MMSServer implements Closeable {
+    public static final int DEFAULT_PORT = 7070;
+
+    private final MMSController controller;
+    private final ServerSocket serverSocket;
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private Thread acceptor;
+
+    /**
+     * Binds the port; use 0 for any free port.
+     */
+    public MMSServer(MMSController controller, int port) throws IOException {
+        this.controller = controller;
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Starts accepting connections on a background thread. The thread is
+     * not a daemon, so the JVM keeps running until {@link #close()}.
+     */
+    public synchronized void start() {
+        if (acceptor != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        acceptor = Thread.ofPlatform().name("mms-server").start(this::acceptLoop);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().name("mms-session-" + socket.getPort()).start(() -> serve(socket));
+            } catch (SocketException e) {
+                // closed
+            } catch (IOException e) {
+                System.err.println("✗ Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        activeSessions.incrementAndGet();
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false,
+                    StandardCharsets.UTF_8);
+            Scanner scanner = new Scanner(new FlushingInputStream(socket.getInputStream(), out),
+                    StandardCharsets.UTF_8);
+            new MenuSession(controller, scanner, out).run();
+            out.flush();
+        } catch (IOException | NoSuchElementException e) {
+            // client disconnected
+        } finally {
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting connections. Sessions already running finish on their own.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Flushes the session's output whenever it waits for input, so prompts
+     * written without a newline reach the client as on a terminal.
+     */
+    private static final class FlushingInputStream extends FilterInputStream {
+        private final PrintStream out;
+
+        private FlushingInputStream(InputStream in, PrintStream out) {
+            super(in);
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            out.flush();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            out.flush();
+            return super.read(buffer, offset, length);
+        }
+    }
+}
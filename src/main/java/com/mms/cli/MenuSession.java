@@ -0,0 +1,148 @@
+package com.mms.cli;
+
+import com.mms.controllers.MMSController;
+import com.mms.exceptions.UserNotFoundException;
+import com.mms.models.*;
+import java.io.PrintStream;
+import java.util.Scanner;
+
+/**
+ * MenuSession runs the login menu and the role menus for one user, reading
+ * from its own scanner and writing to its own stream. The console and every
+ * server connection each get one session over the shared controller.
+ */
+public class MenuSession {
+    private final MMSController controller;
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public MenuSession(MMSController controller, Scanner scanner, PrintStream out) {
+        this.controller = controller;
+        this.scanner = scanner;
+        this.out = out;
+    }
+
+    /**
+     * Runs until the user exits. Throws NoSuchElementException if the
+     * input ends first.
+     */
+    public void run() {
+        showWelcome();
+        mainMenu();
+    }
+
+    private void showWelcome() {
+        out.println("\n╔════════════════════════════════════════════╗");
+        out.println("║  Myriad Medical Services (MMS)             ║");
+        out.println("║  Medical Management System                 ║");
+        out.println("║  Version 1.0                               ║");
+        out.println("╚════════════════════════════════════════════╝\n");
+    }
+
+    private void mainMenu() {
+        boolean running = true;
+        while (running) {
+            out.println("\n╔════════════════════════════════════════════╗");
+            out.println("║           MAIN MENU - LOGIN                ║");
+            out.println("╠════════════════════════════════════════════╣");
+            out.println("║  1. Login as Admin                         ║");
+            out.println("║  2. Login as Clinician                     ║");
+            out.println("║  3. Login as Patient                       ║");
+            out.println("║  4. Exit                                   ║");
+            out.println("╚════════════════════════════════════════════╝");
+            out.print("Select option: ");
+            
+            String choice = scanner.nextLine().trim();
+            
+            switch (choice) {
+                case "1":
+                    loginAsAdmin();
+                    break;
+                case "2":
+                    loginAsClinician();
+                    break;
+                case "3":
+                    loginAsPatient();
+                    break;
+                case "4":
+                    running = false;
+                    out.println("\n✓ Thank you for using MMS. Goodbye!");
+                    break;
+                default:
+                    out.println("✗ Invalid option. Please try again.");
+            }
+        }
+    }
+
+    private void loginAsAdmin() {
+        try {
+            out.println("\n====== ADMIN LOGIN ======");
+            out.print("Email: ");
+            String email = scanner.nextLine().trim();
+            out.print("Password: ");
+            String password = scanner.nextLine().trim();
+            
+            User user = controller.login(email, password);
+            
+            if (!(user instanceof Admin)) {
+                out.println("✗ Invalid credentials for Admin account");
+                return;
+            }
+            
+            Admin admin = (Admin) user;
+            out.println("✓ Login successful! Welcome " + admin.getName());
+            AdminCLI adminCLI = new AdminCLI(admin, controller, scanner, out);
+            adminCLI.start();
+        } catch (UserNotFoundException e) {
+            out.println("✗ Login failed: " + e.getMessage());
+        }
+    }
+
+    private void loginAsClinician() {
+        try {
+            out.println("\n====== CLINICIAN LOGIN ======");
+            out.print("Email: ");
+            String email = scanner.nextLine().trim();
+            out.print("Password: ");
+            String password = scanner.nextLine().trim();
+            
+            User user = controller.login(email, password);
+            
+            if (!(user instanceof Clinician)) {
+                out.println("✗ Invalid credentials for Clinician account");
+                return;
+            }
+            
+            Clinician clinician = (Clinician) user;
+            out.println("✓ Login successful! Welcome Dr. " + clinician.getName());
+            ClinicianCLI clinicianCLI = new ClinicianCLI(clinician, controller, scanner, out);
+            clinicianCLI.start();
+        } catch (UserNotFoundException e) {
+            out.println("✗ Login failed: " + e.getMessage());
+        }
+    }
+
+    private void loginAsPatient() {
+        try {
+            out.println("\n====== PATIENT LOGIN ======");
+            out.print("Email: ");
+            String email = scanner.nextLine().trim();
+            out.print("Password: ");
+            String password = scanner.nextLine().trim();
+            
+            User user = controller.login(email, password);
+            
+            if (!(user instanceof Patient)) {
+                out.println("✗ Invalid credentials for Patient account");
+                return;
+            }
+            
+            Patient patient = (Patient) user;
+            out.println("✓ Login successful! Welcome " + patient.getName());
+            PatientCLI patientCLI = new PatientCLI(patient, controller, scanner, out);
+            patientCLI.start();
+        } catch (UserNotFoundException e) {
+            out.println("✗ Login failed: " + e.getMessage());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.mms.cli;
 import com.mms.controllers.MMSController;
 import com.mms.exceptions.*;
 import com.mms.models.*;
+import java.io.PrintStream;
 import java.util.List;
 import java.util.Scanner;
 
@@ -13,18 +14,31 @@ public class PatientCLI {
     private Patient patient;
     private MMSController controller;
     private Scanner scanner;
+    private PrintStream out;
     private boolean isLoggedIn;
+    private final ReportTable<TreatmentType> treatmentTypeTable = ReportTables.treatmentTypes("AVAILABLE TREATMENTS");
+    private final ReportTable<Treatment> treatmentTable = ReportTables.treatments("YOUR TREATMENTS");
+    private final ReportTable<Bill> billTable = ReportTables.bills("YOUR BILLS");
 
-    public PatientCLI(Patient patient, Scanner scanner) {
+    public PatientCLI(Patient patient, Scanner scanner) throws StorageException {
+        this(patient, MMSController.getInstance(), scanner, System.out);
+    }
+
+    /**
+     * Creates a session that reads from the given scanner and writes to the
+     * given stream, e.g. one network connection.
+     */
+    public PatientCLI(Patient patient, MMSController controller, Scanner scanner, PrintStream out) {
         this.patient = patient;
-        this.controller = MMSController.getInstance();
+        this.controller = controller;
         this.scanner = scanner;
+        this.out = out;
         this.isLoggedIn = true;
     }
 
     public void start() {
         while (isLoggedIn) {
-            patient.showMenu();
+            patient.printMenu(out);
             String choice = scanner.nextLine().trim();
             processChoice(choice);
         }
@@ -49,72 +63,60 @@ public class PatientCLI {
                     logout();
                     break;
                 default:
-                    System.out.println("Invalid option. Please try again.");
+                    out.println("Invalid option. Please try again.");
             }
         } catch (Exception e) {
-            System.out.println("Error: " + e.getMessage());
+            out.println("Error: " + e.getMessage());
         }
     }
 
-    private void bookTreatment() throws UserNotFoundException, TreatmentNotFoundException, InvalidInputException {
+    private void bookTreatment() throws UserNotFoundException, TreatmentNotFoundException, InvalidInputException, StorageException {
         if (!patient.isRegistered()) {
-            System.out.println("You must be registered to book a treatment. Please contact admin.");
+            out.println("You must be registered to book a treatment. Please contact admin.");
             return;
         }
         
-        System.out.println("\n====== AVAILABLE TREATMENTS ======");
+        // Listed in full, so no paging prompt comes between the list and the id prompt
         List<TreatmentType> types = controller.getAllTreatmentTypes();
-        for (TreatmentType type : types) {
-            System.out.println(type.getId() + ": " + type.getName() + " - $" + type.getPrice());
-        }
-        System.out.println("==================================");
-        
-        System.out.print("Enter treatment type ID to book: ");
+        treatmentTypeTable.print(out, types, 0, types.size());
+        out.print("Enter treatment type ID to book: ");
         String treatmentTypeId = scanner.nextLine().trim();
         
         controller.bookTreatment(patient.getId(), treatmentTypeId);
-        System.out.println("✓ Treatment booked successfully");
+        out.println("✓ Treatment booked successfully");
     }
 
-    private void viewTreatmentStatus() {
+    private void viewTreatmentStatus() throws InvalidInputException {
         List<Treatment> treatments = controller.getPatientTreatments(patient.getId());
         if (treatments.isEmpty()) {
-            System.out.println("No treatments booked yet.");
+            out.println("No treatments booked yet.");
             return;
         }
-        
-        System.out.println("\n====== YOUR TREATMENTS ======");
-        for (Treatment treatment : treatments) {
-            System.out.println(treatment);
-        }
-        System.out.println("=============================");
+        treatmentTable.page(scanner, out, treatments);
     }
 
-    private void viewBills() {
+    private void viewBills() throws InvalidInputException, StorageException {
         List<Bill> bills = controller.getPatientBills(patient.getId());
         if (bills.isEmpty()) {
-            System.out.println("No bills yet.");
+            out.println("No bills yet.");
             return;
         }
-        
-        System.out.println("\n====== YOUR BILLS ======");
+        billTable.page(scanner, out, bills);
         double totalAmount = 0;
         for (Bill bill : bills) {
-            System.out.println(bill);
             totalAmount += bill.getTotalAmount();
         }
-        System.out.println("Total: $" + totalAmount);
-        System.out.println("========================");
+        out.printf("Total: $%.2f%n", totalAmount);
     }
 
     private void togglePromotions() {
         patient.togglePromotions();
         String status = patient.isOptedInForPromotions() ? "enabled" : "disabled";
-        System.out.println("✓ Promotional notifications " + status);
+        out.println("✓ Promotional notifications " + status);
     }
 
     private void logout() {
-        System.out.println("✓ Logged out successfully");
+        out.println("✓ Logged out successfully");
         isLoggedIn = false;
     }
 }
@@ -0,0 +1,271 @@
+package com.mms.cli;
+
+import com.mms.exceptions.InvalidInputException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * ReportTable renders lists of entities as boxed text tables for the CLI
+ * menus, a page at a time.
+ *
+ * Column widths are either fixed when the column is declared or fitted to
+ * the widest cell of the page once before it is drawn. Rows are appended
+ * into one buffer that the table reuses across pages and reports, and the
+ * buffer is written to the session stream in 64 KB chunks, so a report
+ * takes one stream lock and flush per chunk instead of several printf
+ * calls per row. A table is used by one session at a time.
+ */
+public final class ReportTable<T> {
+    /** Rows shown per page when no limit is given. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int MAX_FITTED_WIDTH = 40;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    /**
+     * Appends the value of one cell.
+     */
+    private interface CellWriter<T> {
+        void append(StringBuilder cell, T row);
+    }
+
+    private record Column<T>(String header, int width, boolean rightAligned, CellWriter<T> writer) {
+    }
+
+    private final String title;
+    private final List<Column<T>> columns = new ArrayList<>();
+    private final StringBuilder buffer = new StringBuilder(CHUNK_SIZE + 1024);
+    private final StringBuilder cell = new StringBuilder();
+    private int[] widths = new int[0];
+
+    public ReportTable(String title) {
+        this.title = title;
+    }
+
+    /** Adds a left-aligned text column fitted to the page. */
+    public ReportTable<T> text(String header, Function<T, String> value) {
+        return text(header, 0, value);
+    }
+
+    /**
+     * Adds a left-aligned text column of the given width; longer values are
+     * cut short with an ellipsis. A width of 0 fits the column to the page.
+     */
+    public ReportTable<T> text(String header, int width, Function<T, String> value) {
+        columns.add(new Column<>(header, width, false, (cell, row) -> cell.append(value.apply(row))));
+        return this;
+    }
+
+    /** Adds a yes/no column. */
+    public ReportTable<T> flag(String header, Predicate<T> value) {
+        columns.add(new Column<>(header, Math.max(header.length(), 3), false,
+                (cell, row) -> cell.append(value.test(row) ? "yes" : "no")));
+        return this;
+    }
+
+    /** Adds a right-aligned dollar amount column with two decimals. */
+    public ReportTable<T> amount(String header, ToDoubleFunction<T> value) {
+        columns.add(new Column<>(header, 0, true, (cell, row) -> appendAmount(cell, value.applyAsDouble(row))));
+        return this;
+    }
+
+    /**
+     * Shows the rows a page at a time. Lists that fit on one page are
+     * printed at once; for longer ones the user is first asked for an
+     * optional {@code --offset N} and {@code --limit N} (the page size, 0
+     * for everything in one go), then for each further page. An offset
+     * past the last row is rejected.
+     */
+    public void page(Scanner scanner, PrintStream out, List<T> rows) throws InvalidInputException {
+        if (rows.size() <= DEFAULT_PAGE_SIZE) {
+            print(out, rows, 0, rows.size());
+            return;
+        }
+        out.printf("%d rows. Show [--offset N] [--limit N] (limit 0 for all; blank for pages of %d): ",
+                rows.size(), DEFAULT_PAGE_SIZE);
+        int offset = 0;
+        int limit = DEFAULT_PAGE_SIZE;
+        String[] options = scanner.nextLine().trim().split("\\s+");
+        for (int i = 0; i < options.length; i++) {
+            if (options[i].isEmpty()) {
+                continue;
+            }
+            if (i + 1 == options.length || !(options[i].equals("--offset") || options[i].equals("--limit"))) {
+                throw new InvalidInputException("Expected --offset N or --limit N, got: " + options[i]);
+            }
+            int value = parseCount(options[i], options[++i]);
+            if (options[i - 1].equals("--offset")) {
+                offset = value;
+            } else {
+                limit = value == 0 ? rows.size() : value;
+            }
+        }
+        if (offset >= rows.size()) {
+            throw new InvalidInputException("Offset " + offset + " is past the last row (" + rows.size() + " rows)");
+        }
+        while (true) {
+            int end = (int) Math.min(rows.size(), (long) offset + limit);
+            print(out, rows, offset, end);
+            if (end >= rows.size()) {
+                return;
+            }
+            out.print("Enter for the next page, q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            offset = end;
+        }
+    }
+
+    private static int parseCount(String option, String value) throws InvalidInputException {
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new InvalidInputException("Invalid value for " + option + ": " + value);
+    }
+
+    /**
+     * Draws rows {@code from} (inclusive) to {@code to} (exclusive) as one
+     * table, followed by a line giving their position in the list.
+     */
+    public void print(PrintStream out, List<T> rows, int from, int to) {
+        int start = Math.min(from, rows.size());
+        int end = Math.max(start, Math.min(to, rows.size()));
+        fitColumns(rows, start, end);
+        int used = 0;
+        for (int width : widths) {
+            used += width + 2;
+        }
+        int inner = Math.max(used, title.length() + 2);
+
+        buffer.setLength(0);
+        buffer.append(LINE_SEPARATOR);
+        appendRule(inner, '╔', '═', '╗');
+        buffer.append('║');
+        int left = (inner - title.length()) / 2;
+        appendPadding(left);
+        buffer.append(title);
+        appendPadding(inner - left - title.length());
+        buffer.append('║').append(LINE_SEPARATOR);
+        appendRule(inner, '╠', '═', '╣');
+        buffer.append('║');
+        for (int c = 0; c < columns.size(); c++) {
+            buffer.append(' ');
+            appendCell(columns.get(c).header(), widths[c], false);
+            buffer.append(' ');
+        }
+        appendPadding(inner - used);
+        buffer.append('║').append(LINE_SEPARATOR);
+        appendRule(inner, '╟', '─', '╢');
+        for (int r = start; r < end; r++) {
+            T row = rows.get(r);
+            buffer.append('║');
+            for (int c = 0; c < columns.size(); c++) {
+                Column<T> column = columns.get(c);
+                cell.setLength(0);
+                column.writer().append(cell, row);
+                buffer.append(' ');
+                appendCell(cell, widths[c], column.rightAligned());
+                buffer.append(' ');
+            }
+            appendPadding(inner - used);
+            buffer.append('║').append(LINE_SEPARATOR);
+            if (buffer.length() >= CHUNK_SIZE) {
+                flush(out);
+            }
+        }
+        appendRule(inner, '╚', '═', '╝');
+        if (start == 0 && end == rows.size()) {
+            buffer.append(rows.size()).append(rows.size() == 1 ? " row" : " rows");
+        } else {
+            buffer.append("Rows ").append(start + 1).append('-').append(end).append(" of ").append(rows.size());
+        }
+        buffer.append(LINE_SEPARATOR);
+        flush(out);
+    }
+
+    /**
+     * Works out the width of every column for the given rows: the declared
+     * width, or the widest of the header and the cells, capped.
+     */
+    private void fitColumns(List<T> rows, int start, int end) {
+        if (widths.length != columns.size()) {
+            widths = new int[columns.size()];
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            Column<T> column = columns.get(c);
+            if (column.width() > 0) {
+                widths[c] = column.width();
+                continue;
+            }
+            int width = column.header().length();
+            for (int r = start; r < end && width < MAX_FITTED_WIDTH; r++) {
+                cell.setLength(0);
+                column.writer().append(cell, rows.get(r));
+                width = Math.max(width, cell.length());
+            }
+            widths[c] = Math.min(width, MAX_FITTED_WIDTH);
+        }
+    }
+
+    private void appendCell(CharSequence value, int width, boolean rightAligned) {
+        if (value.length() > width) {
+            buffer.append(value, 0, width - 1).append('…');
+        } else if (rightAligned) {
+            appendPadding(width - value.length());
+            buffer.append(value);
+        } else {
+            buffer.append(value);
+            appendPadding(width - value.length());
+        }
+    }
+
+    private void appendPadding(int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(' ');
+        }
+    }
+
+    private void appendRule(int inner, char left, char fill, char right) {
+        buffer.append(left);
+        for (int i = 0; i < inner; i++) {
+            buffer.append(fill);
+        }
+        buffer.append(right).append(LINE_SEPARATOR);
+    }
+
+    private void flush(PrintStream out) {
+        byte[] chunk = buffer.toString().getBytes(out.charset());
+        out.write(chunk, 0, chunk.length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Appends a dollar amount with two decimals, without String.format for
+     * the usual whole-cent amounts.
+     */
+    private static void appendAmount(StringBuilder cell, double amount) {
+        long cents = Math.round(amount * 100);
+        cell.append('$');
+        if (amount >= 0 && amount < 1e13 && cents / 100.0 == amount) {
+            long fraction = cents % 100;
+            cell.append(cents / 100).append('.')
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10));
+            return;
+        }
+        cell.append(String.format(Locale.ROOT, "%.2f", amount));
+    }
+}
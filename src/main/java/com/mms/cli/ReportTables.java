@@ -0,0 +1,54 @@
+package com.mms.cli;
+
+import com.mms.models.*;
+
+/**
+ * The report tables shared by the admin, clinician and patient menus. Each
+ * call returns a new table, which a session keeps and reuses.
+ */
+final class ReportTables {
+    private ReportTables() {
+    }
+
+    static ReportTable<Patient> patients(String title) {
+        return new ReportTable<Patient>(title)
+                .text("ID", Patient::getId)
+                .text("Name", Patient::getName)
+                .text("Email", Patient::getEmail)
+                .text("Phone", Patient::getPhone)
+                .flag("Registered", Patient::isRegistered)
+                .flag("Flagged", Patient::isFlagged)
+                .flag("Promotions", Patient::isOptedInForPromotions);
+    }
+
+    static ReportTable<Clinician> clinicians(String title) {
+        return new ReportTable<Clinician>(title)
+                .text("ID", Clinician::getId)
+                .text("Name", Clinician::getName)
+                .text("Specialization", Clinician::getSpecialization);
+    }
+
+    static ReportTable<TreatmentType> treatmentTypes(String title) {
+        return new ReportTable<TreatmentType>(title)
+                .text("ID", TreatmentType::getId)
+                .text("Name", TreatmentType::getName)
+                .amount("Price", TreatmentType::getPrice);
+    }
+
+    static ReportTable<Treatment> treatments(String title) {
+        return new ReportTable<Treatment>(title)
+                .text("Treatment ID", Treatment::getTreatmentId)
+                .text("Type", Treatment::getTreatmentTypeId)
+                .text("Status", t -> t.getStatus().getDisplayName())
+                .text("Clinician", t -> t.getClinicianId() != null ? t.getClinicianId() : "Not assigned");
+    }
+
+    static ReportTable<Bill> bills(String title) {
+        return new ReportTable<Bill>(title)
+                .text("Bill ID", Bill::getBillId)
+                .text("Patient ID", Bill::getPatientId)
+                .text("Treatment ID", Bill::getTreatmentId)
+                .amount("Amount", Bill::getTotalAmount)
+                .text("Status", b -> b.isPaid() ? "PAID" : "PENDING");
+    }
+}
@@ -0,0 +1,54 @@
+package com.mms.controllers;
+
+/**
+ * Outcome of a billing run: how many treatments were examined, how many
+ * bills were created and for what total, and how many billable treatments
+ * were skipped because their treatment type no longer exists.
+ */
+public class BillingRunReport {
+    private final int treatmentsScanned;
+    private final int billsCreated;
+    private final int unpriced;
+    private final double totalAmount;
+    private final long elapsedMillis;
+
+    public BillingRunReport(int treatmentsScanned, int billsCreated, int unpriced,
+                            double totalAmount, long elapsedMillis) {
+        this.treatmentsScanned = treatmentsScanned;
+        this.billsCreated = billsCreated;
+        this.unpriced = unpriced;
+        this.totalAmount = totalAmount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getTreatmentsScanned() {
+        return treatmentsScanned;
+    }
+
+    public int getBillsCreated() {
+        return billsCreated;
+    }
+
+    public int getUnpriced() {
+        return unpriced;
+    }
+
+    public double getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BillingRunReport{" +
+                "treatmentsScanned=" + treatmentsScanned +
+                ", billsCreated=" + billsCreated +
+                ", unpriced=" + unpriced +
+                ", totalAmount=" + totalAmount +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
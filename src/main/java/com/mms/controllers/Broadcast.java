@@ -0,0 +1,141 @@
+package com.mms.controllers;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one notification broadcast. Counters are updated by the
+ * delivery workers while the broadcast runs and can be read at any time:
+ * queued is how many patients were selected so far, delivered how many
+ * notifications were created, and stored or failed how many of those were
+ * written to storage or lost to a storage error.
+ */
+public class Broadcast {
+    private final String id;
+    private final String message;
+    private final boolean promotional;
+    private final Set<BroadcastAudience> audience;
+    private final long startNanos;
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean selectionFinished;
+    private volatile long finishNanos;
+    private volatile String lastError;
+
+    Broadcast(String id, String message, boolean promotional, Set<BroadcastAudience> audience) {
+        this.id = id;
+        this.message = message;
+        this.promotional = promotional;
+        this.audience = Set.copyOf(audience);
+        this.startNanos = System.nanoTime();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isPromotional() {
+        return promotional;
+    }
+
+    public Set<BroadcastAudience> getAudience() {
+        return audience;
+    }
+
+    public long getQueued() {
+        return queued.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getStored() {
+        return stored.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /** Message of the last storage error, or null if there was none. */
+    public String getLastError() {
+        return lastError;
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /** Time from start until done, or until now while still running. */
+    public long getElapsedMillis() {
+        long end = isDone() ? finishNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+
+    /** Stored notifications per second so far. */
+    public double getThroughput() {
+        return stored.get() * 1000.0 / Math.max(1, getElapsedMillis());
+    }
+
+    /**
+     * Waits until every selected patient has been handled.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+
+    void recordQueued() {
+        queued.incrementAndGet();
+    }
+
+    void recordDelivered() {
+        delivered.incrementAndGet();
+    }
+
+    void recordStored(long count) {
+        stored.addAndGet(count);
+        checkDone();
+    }
+
+    void recordFailed(long count, String error) {
+        lastError = error;
+        failed.addAndGet(count);
+        checkDone();
+    }
+
+    void finishSelection() {
+        selectionFinished = true;
+        checkDone();
+    }
+
+    private synchronized void checkDone() {
+        if (selectionFinished && done.getCount() > 0 && stored.get() + failed.get() == queued.get()) {
+            finishNanos = System.nanoTime();
+            done.countDown();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Broadcast{" +
+                "id='" + id + '\'' +
+                ", queued=" + queued +
+                ", delivered=" + delivered +
+                ", stored=" + stored +
+                ", failed=" + failed +
+                ", done=" + isDone() +
+                '}';
+    }
+}
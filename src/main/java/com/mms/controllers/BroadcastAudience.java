@@ -0,0 +1,22 @@
+package com.mms.controllers;
+
+/**
+ * Filters selecting the patients a broadcast goes to. A broadcast with
+ * several filters reaches only patients matching all of them.
+ */
+public enum BroadcastAudience {
+    OPTED_IN("Opted in to promotions"),
+    FLAGGED("Flagged"),
+    REGISTERED("Registered"),
+    OUTSTANDING_BILL("Has an outstanding bill");
+
+    private final String displayName;
+
+    BroadcastAudience(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,105 @@
+package com.mms.controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An insertion-ordered entity list guarded by a read/write lock.
+ * Readers copy under the shared lock and never block each other; adds and
+ * removes take the exclusive lock only for the list update itself.
+ */
+class EntityList<T> {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<T> items = new ArrayList<>();
+
+    void add(T item) {
+        lock.writeLock().lock();
+        try {
+            items.add(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void addAll(List<T> added) {
+        lock.writeLock().lock();
+        try {
+            items.addAll(added);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(T item) {
+        lock.writeLock().lock();
+        try {
+            return items.remove(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every given item, by identity, in one pass.
+     */
+    void removeAll(List<T> removed) {
+        Set<T> gone = Collections.newSetFromMap(new IdentityHashMap<>());
+        gone.addAll(removed);
+        lock.writeLock().lock();
+        try {
+            items.removeIf(gone::contains);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the contents, e.g. with freshly loaded data.
+     */
+    void replace(List<T> loaded) {
+        lock.writeLock().lock();
+        try {
+            items = new ArrayList<>(loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<T> snapshot() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(items);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies up to limit entries starting at offset; an offset past the end
+     * gives an empty page.
+     */
+    List<T> page(int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = Math.min(offset, items.size());
+            int to = (int) Math.min((long) from + limit, items.size());
+            return new ArrayList<>(items.subList(from, to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return items.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
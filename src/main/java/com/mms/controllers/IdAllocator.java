@@ -0,0 +1,75 @@
+package com.mms.controllers;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IdAllocator issues entity ids of the form prefix + number, unique per
+ * prefix.
+ *
+ * Each prefix has its own atomic counter, so issuing an id is a single
+ * lock-free increment and threads creating different entity types never
+ * touch the same counter. A counter starts at the current time in
+ * milliseconds, which keeps ids roughly in creation order across restarts
+ * and keeps the numbers of deleted entities from being reused, and is
+ * raised past the highest number already in storage by {@link #recover}.
+ * The owner must recover a prefix before issuing ids for it.
+ */
+public final class IdAllocator {
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public String next(String prefix) {
+        return prefix + counter(prefix).incrementAndGet();
+    }
+
+    /**
+     * Raises the counter for the prefix to at least the number of every id
+     * that carries the prefix followed only by digits. Other ids are ignored.
+     */
+    public void recover(String prefix, Collection<String> ids) {
+        long highest = -1;
+        for (String id : ids) {
+            highest = Math.max(highest, numberOf(prefix, id));
+        }
+        if (highest >= 0) {
+            counter(prefix).accumulateAndGet(highest, Math::max);
+        }
+    }
+
+    /** Returns the number of the last id issued or recovered for the prefix. */
+    public long getHighWaterMark(String prefix) {
+        return counter(prefix).get();
+    }
+
+    private AtomicLong counter(String prefix) {
+        AtomicLong counter = counters.get(prefix);
+        if (counter != null) {
+            return counter;
+        }
+        return counters.computeIfAbsent(prefix, p -> new AtomicLong(System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the numeric part of the id, or -1 if the id does not consist
+     * of the prefix and up to 18 digits.
+     */
+    static long numberOf(String prefix, String id) {
+        if (id == null || !id.startsWith(prefix)) {
+            return -1;
+        }
+        int digits = id.length() - prefix.length();
+        if (digits == 0 || digits > 18) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = prefix.length(); i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mms.controllers;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk patient import: how many rows were stored and why the
+ * others were rejected, one message per rejected row in file order.
+ */
+public class ImportReport {
+    private final int rowsRead;
+    private final int imported;
+    private final List<String> errors;
+    private final long elapsedMillis;
+
+    public ImportReport(int rowsRead, int imported, List<String> errors, long elapsedMillis) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.errors = List.copyOf(errors);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return errors.size();
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "rowsRead=" + rowsRead +
+                ", imported=" + imported +
+                ", rejected=" + errors.size() +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
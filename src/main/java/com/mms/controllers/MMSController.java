@@ -2,34 +2,166 @@ package com.mms.controllers;
 
 import com.mms.models.*;
 import com.mms.exceptions.*;
-import com.mms.storage.StorageManager;
+import com.mms.metrics.MetricsConfig;
+import com.mms.metrics.MetricsRegistry;
+import com.mms.metrics.OperationMetrics;
+import com.mms.metrics.StorageMetrics;
+import com.mms.storage.StorageBackend;
+import com.mms.storage.StorageBackends;
+import com.mms.storage.StorageConfig;
+import java.io.File;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * MMSController manages core business logic for the MMS system.
  * Singleton pattern for system-wide access.
+ *
+ * Safe for concurrent sessions. Lookups go through concurrent indexes and
+ * take no locks. Changes to a patient, its treatments, bills and
+ * notifications run under one of a fixed set of striped locks chosen by
+ * patient id, so work for different patients proceeds in parallel while
+ * changes to the same patient reach storage in the order they were made.
  */
-public class MMSController {
+public class MMSController implements AutoCloseable {
+    private static final int LOCK_STRIPES = 64;
+
+    /** Finished broadcasts kept for getBroadcasts(); older ones are dropped. */
+    public static final int MAX_FINISHED_BROADCASTS = 100;
     private static MMSController instance;
-    private StorageManager storageManager;
+    private final StorageBackend storage;
     
-    private List<Patient> patients;
-    private List<Clinician> clinicians;
-    private List<Admin> admins;
-    private List<Treatment> treatments;
-    private List<TreatmentType> treatmentTypes;
-    private List<Bill> bills;
-    private List<Notification> notifications;
+    private final EntityList<Patient> patients;
+    private final EntityList<Clinician> clinicians;
+    private final EntityList<Admin> admins;
+    private final EntityList<Treatment> treatments;
+    private final EntityList<TreatmentType> treatmentTypes;
+    private final EntityList<Bill> bills;
+    private final EntityList<Notification> notifications;
+
+    // Primary-key indexes, kept in sync with the lists above
+    private final Map<String, Patient> patientIndex;
+    private final Map<String, Clinician> clinicianIndex;
+    private final Map<String, Treatment> treatmentIndex;
+    private final Map<String, TreatmentType> treatmentTypeIndex;
+    private final Map<String, Bill> billIndex;
+
+    // Secondary indexes for per-patient and per-clinician queries; the
+    // per-key lists are copy-on-write so lookups can copy them unlocked
+    private final Map<String, List<Treatment>> treatmentsByPatient;
+    private final Map<String, List<Treatment>> treatmentsByClinician;
+    private final Map<String, List<Bill>> billsByPatient;
+    private final Map<String, List<Notification>> notificationsByPatient;
+
+    // Credential index across all roles, keyed by normalized email
+    private final Map<String, User> usersByEmail;
+
+    private final Lock[] patientLocks;
+
+    // Broadcast delivery queue, and the running and latest finished broadcasts
+    private final NotificationDispatcher dispatcher;
+    private final List<Broadcast> broadcasts = new CopyOnWriteArrayList<>();
+
+    // Issues new entity ids; recovered from the loaded data before use
+    private final IdAllocator ids = new IdAllocator();
+
+    // Latency and error counts per public operation, see getMetrics()
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private final OperationMetrics addTreatmentTypeMetrics = metrics.operation("addTreatmentType");
+    private final OperationMetrics assignClinicianMetrics = metrics.operation("assignClinician");
+    private final OperationMetrics bookTreatmentMetrics = metrics.operation("bookTreatment");
+    private final OperationMetrics broadcastNotificationMetrics = metrics.operation("broadcastNotification");
+    private final OperationMetrics flagPatientMetrics = metrics.operation("flagPatient");
+    private final OperationMetrics generateBillMetrics = metrics.operation("generateBill");
+    private final OperationMetrics getAllBillsMetrics = metrics.operation("getAllBills");
+    private final OperationMetrics getAllCliniciansMetrics = metrics.operation("getAllClinicians");
+    private final OperationMetrics getAllNotificationsMetrics = metrics.operation("getAllNotifications");
+    private final OperationMetrics getAllPatientsMetrics = metrics.operation("getAllPatients");
+    private final OperationMetrics getAllTreatmentTypesMetrics = metrics.operation("getAllTreatmentTypes");
+    private final OperationMetrics getBillMetrics = metrics.operation("getBill");
+    private final OperationMetrics getClinicianMetrics = metrics.operation("getClinician");
+    private final OperationMetrics getClinicianTreatmentsMetrics = metrics.operation("getClinicianTreatments");
+    private final OperationMetrics getPatientMetrics = metrics.operation("getPatient");
+    private final OperationMetrics getPatientBillsMetrics = metrics.operation("getPatientBills");
+    private final OperationMetrics getPatientNotificationsMetrics = metrics.operation("getPatientNotifications");
+    private final OperationMetrics getPatientTreatmentsMetrics = metrics.operation("getPatientTreatments");
+    private final OperationMetrics getTreatmentMetrics = metrics.operation("getTreatment");
+    private final OperationMetrics getTreatmentTypeMetrics = metrics.operation("getTreatmentType");
+    private final OperationMetrics importPatientsMetrics = metrics.operation("importPatients");
+    private final OperationMetrics loginMetrics = metrics.operation("login");
+    private final OperationMetrics recordPaymentMetrics = metrics.operation("recordPayment");
+    private final OperationMetrics registerPatientMetrics = metrics.operation("registerPatient");
+    private final OperationMetrics removeTreatmentTypeMetrics = metrics.operation("removeTreatmentType");
+    private final OperationMetrics runBillingMetrics = metrics.operation("runBilling");
+    private final OperationMetrics sendNotificationMetrics = metrics.operation("sendNotification");
+    private final OperationMetrics streamBillsMetrics = metrics.operation("streamBills");
+    private final OperationMetrics streamTreatmentsMetrics = metrics.operation("streamTreatments");
+    private final OperationMetrics updateTreatmentStatusMetrics = metrics.operation("updateTreatmentStatus");
+    private final OperationMetrics upgradePatientMetrics = metrics.operation("upgradePatient");
+
+    // In lazy mode bills and notifications stay on disk until first used
+    private final boolean lazyLoad;
+    private final Object lazyLoadLock = new Object();
+    private volatile boolean billsLoaded;
+    private volatile boolean notificationsLoaded;
 
     private MMSController() throws StorageException {
-        this.storageManager = StorageManager.getInstance();
-        this.patients = new ArrayList<>();
-        this.clinicians = new ArrayList<>();
-        this.admins = new ArrayList<>();
-        this.treatments = new ArrayList<>();
-        this.treatmentTypes = new ArrayList<>();
-        this.bills = new ArrayList<>();
-        this.notifications = new ArrayList<>();
+        this(StorageBackends.fromConfig());
+        File dumpFile = MetricsConfig.getDumpFile();
+        if (dumpFile != null) {
+            metrics.startDump(dumpFile, MetricsConfig.getDumpSeconds());
+        }
+    }
+
+    /**
+     * Creates a controller over the given storage backend instead of the
+     * configured one, for tests and benchmarks.
+     */
+    public MMSController(StorageBackend storage) throws StorageException {
+        this.storage = storage;
+        this.lazyLoad = StorageConfig.isLazyLoadEnabled();
+        this.patients = new EntityList<>();
+        this.clinicians = new EntityList<>();
+        this.admins = new EntityList<>();
+        this.treatments = new EntityList<>();
+        this.treatmentTypes = new EntityList<>();
+        this.bills = new EntityList<>();
+        this.notifications = new EntityList<>();
+        this.patientIndex = new ConcurrentHashMap<>();
+        this.clinicianIndex = new ConcurrentHashMap<>();
+        this.treatmentIndex = new ConcurrentHashMap<>();
+        this.treatmentTypeIndex = new ConcurrentHashMap<>();
+        this.billIndex = new ConcurrentHashMap<>();
+        this.treatmentsByPatient = new ConcurrentHashMap<>();
+        this.treatmentsByClinician = new ConcurrentHashMap<>();
+        this.billsByPatient = new ConcurrentHashMap<>();
+        this.notificationsByPatient = new ConcurrentHashMap<>();
+        this.usersByEmail = new ConcurrentHashMap<>();
+        this.patientLocks = new Lock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            patientLocks[i] = new ReentrantLock();
+        }
+        this.dispatcher = new NotificationDispatcher(new NotificationDispatcher.Handler() {
+            @Override
+            public Notification create(Broadcast broadcast, Patient patient) {
+                return new Notification(nextId("NOT"), patient.getId(), broadcast.getMessage(),
+                                        broadcast.isPromotional());
+            }
+
+            @Override
+            public void store(List<Notification> batch) throws StorageException {
+                storeNotifications(batch);
+            }
+        }, Math.max(2, Runtime.getRuntime().availableProcessors()));
         loadDataFromStorage();
         if (patients.isEmpty() || admins.isEmpty()) {
             initializeSampleData();
@@ -44,24 +176,296 @@ public class MMSController {
         return instance;
     }
 
+    /**
+     * Loads every entity file concurrently, one virtual thread per file, so
+     * startup takes as long as the largest file rather than the sum of all.
+     * Indexes are built once every load has finished. In lazy mode bills and
+     * notifications are skipped here and loaded on first access instead.
+     */
     private void loadDataFromStorage() throws StorageException {
-        this.patients = storageManager.loadPatients();
-        this.clinicians = storageManager.loadClinicians();
-        this.admins = storageManager.loadAdmins();
-        this.treatments = storageManager.loadTreatments();
-        this.treatmentTypes = storageManager.loadTreatmentTypes();
-        this.bills = storageManager.loadBills();
-        this.notifications = storageManager.loadNotifications();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<Patient>> patientsLoad = executor.submit(storage.patients()::loadAll);
+            Future<List<Clinician>> cliniciansLoad = executor.submit(storage.clinicians()::loadAll);
+            Future<List<Admin>> adminsLoad = executor.submit(storage.admins()::loadAll);
+            Future<List<Treatment>> treatmentsLoad = executor.submit(storage.treatments()::loadAll);
+            Future<List<TreatmentType>> treatmentTypesLoad = executor.submit(storage.treatmentTypes()::loadAll);
+            Future<List<Bill>> billsLoad = lazyLoad ? null : executor.submit(storage.bills()::loadAll);
+            Future<List<Notification>> notificationsLoad = lazyLoad
+                    ? null
+                    : executor.submit(storage.notifications()::loadAll);
+            patients.replace(awaitLoad(patientsLoad));
+            clinicians.replace(awaitLoad(cliniciansLoad));
+            admins.replace(awaitLoad(adminsLoad));
+            treatments.replace(awaitLoad(treatmentsLoad));
+            treatmentTypes.replace(awaitLoad(treatmentTypesLoad));
+            if (!lazyLoad) {
+                bills.replace(awaitLoad(billsLoad));
+                notifications.replace(awaitLoad(notificationsLoad));
+                this.billsLoaded = true;
+                this.notificationsLoaded = true;
+            }
+        }
+        rebuildIndexes();
+    }
+
+    private void ensureBillsLoaded() throws StorageException {
+        if (billsLoaded) {
+            return;
+        }
+        synchronized (lazyLoadLock) {
+            if (!billsLoaded) {
+                bills.replace(storage.bills().loadAll());
+                indexBills();
+                billsLoaded = true;
+            }
+        }
+    }
+
+    private void ensureNotificationsLoaded() throws StorageException {
+        if (notificationsLoaded) {
+            return;
+        }
+        synchronized (lazyLoadLock) {
+            if (!notificationsLoaded) {
+                notifications.replace(storage.notifications().loadAll());
+                indexNotifications();
+                notificationsLoaded = true;
+            }
+        }
+    }
+
+    private static <T> T awaitLoad(Future<T> load) throws StorageException {
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted while loading data", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof StorageException storageException) {
+                throw storageException;
+            }
+            throw new StorageException("Failed to load data: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Rebuilds all primary-key and secondary indexes from the entity lists
+     * in a single pass over each list.
+     */
+    private void rebuildIndexes() {
+        // Admins, then clinicians, then patients, so the first account wins
+        // if legacy data holds the same email under several roles
+        List<Admin> adminList = admins.snapshot();
+        List<Clinician> clinicianList = clinicians.snapshot();
+        List<Patient> patientList = patients.snapshot();
+        List<Treatment> treatmentList = treatments.snapshot();
+        usersByEmail.clear();
+        for (Admin admin : adminList) {
+            usersByEmail.putIfAbsent(normalizeEmail(admin.getEmail()), admin);
+        }
+        for (Clinician clinician : clinicianList) {
+            usersByEmail.putIfAbsent(normalizeEmail(clinician.getEmail()), clinician);
+        }
+        for (Patient patient : patientList) {
+            usersByEmail.putIfAbsent(normalizeEmail(patient.getEmail()), patient);
+        }
+        patientIndex.clear();
+        for (Patient patient : patientList) {
+            patientIndex.put(patient.getId(), patient);
+        }
+        clinicianIndex.clear();
+        for (Clinician clinician : clinicianList) {
+            clinicianIndex.put(clinician.getId(), clinician);
+        }
+        treatmentIndex.clear();
+        for (Treatment treatment : treatmentList) {
+            treatmentIndex.put(treatment.getTreatmentId(), treatment);
+        }
+        fillIndex(treatmentsByPatient, treatmentList, Treatment::getPatientId);
+        fillIndex(treatmentsByClinician, treatmentList, Treatment::getClinicianId);
+        treatmentTypeIndex.clear();
+        for (TreatmentType type : treatmentTypes.snapshot()) {
+            treatmentTypeIndex.put(type.getId(), type);
+        }
+        ids.recover("PAT", patientIndex.keySet());
+        ids.recover("TRE", treatmentIndex.keySet());
+        ids.recover("TRT", treatmentTypeIndex.keySet());
+        indexBills();
+        indexNotifications();
+    }
+
+    private void indexBills() {
+        List<Bill> billList = bills.snapshot();
+        billIndex.clear();
+        for (Bill bill : billList) {
+            billIndex.put(bill.getBillId(), bill);
+        }
+        fillIndex(billsByPatient, billList, Bill::getPatientId);
+        // Every path that creates a bill loads bills first, so this runs before any BILL id is issued
+        ids.recover("BILL", billIndex.keySet());
+    }
+
+    private void indexNotifications() {
+        List<Notification> notificationList = notifications.snapshot();
+        fillIndex(notificationsByPatient, notificationList, Notification::getPatientId);
+        ids.recover("NOT", notificationList.stream().map(Notification::getNotificationId).toList());
+    }
+
+    private static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> void addToIndex(Map<String, List<T>> index, String key, T value) {
+        index.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(value);
+    }
+
+    /**
+     * Adds many values to a secondary index with one copy per key.
+     */
+    private static <T> void addAllToIndex(Map<String, List<T>> index, List<T> values, Function<T, String> keyOf) {
+        Map<String, List<T>> grouped = new HashMap<>();
+        for (T value : values) {
+            grouped.computeIfAbsent(keyOf.apply(value), k -> new ArrayList<>()).add(value);
+        }
+        for (Map.Entry<String, List<T>> entry : grouped.entrySet()) {
+            index.computeIfAbsent(entry.getKey(), k -> new CopyOnWriteArrayList<>()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Replaces a secondary index with the given values grouped by key.
+     * Values with a null key are left out.
+     */
+    private static <T> void fillIndex(Map<String, List<T>> index, List<T> values, Function<T, String> keyOf) {
+        // Group into plain lists first; one copy-on-write append per value would be quadratic
+        Map<String, List<T>> grouped = new HashMap<>();
+        for (T value : values) {
+            String key = keyOf.apply(value);
+            if (key != null) {
+                grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            }
+        }
+        index.clear();
+        for (Map.Entry<String, List<T>> entry : grouped.entrySet()) {
+            index.put(entry.getKey(), new CopyOnWriteArrayList<>(entry.getValue()));
+        }
+    }
+
+    /**
+     * The body of a public operation, given its JFR event to fill in. A type
+     * variable takes only one inferred exception, so there is one per
+     * exception a body may throw; unused ones are inferred as the same
+     * exception or RuntimeException.
+     */
+    @FunctionalInterface
+    private interface Operation<T, A extends Exception, B extends Exception, C extends Exception,
+                                D extends Exception> {
+        T run(OperationEvent event) throws A, B, C, D;
+    }
+
+    /**
+     * Runs one public operation, recording its latency and any failure in
+     * the given metrics and in a JFR event.
+     */
+    private static <T, A extends Exception, B extends Exception, C extends Exception, D extends Exception> T
+            instrumented(String operation, String entityType, OperationMetrics metrics, Operation<T, A, B, C, D> body)
+            throws A, B, C, D {
+        OperationEvent event = new OperationEvent(operation, entityType);
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            return body.run(event);
+        } catch (Throwable e) {
+            metrics.recordError();
+            event.failed = true;
+            throw e;
+        } finally {
+            metrics.record(start);
+            event.complete();
+        }
+    }
+
+    /**
+     * As {@link #instrumented}, for bodies that may also fail in storage.
+     * StorageException is declared here, so only the body's other exceptions
+     * are inferred; bodies throwing two or three others name them at the
+     * call and pad with RuntimeException.
+     */
+    private static <T, A extends Exception, B extends Exception, C extends Exception> T instrumentedStorage(
+            String operation, String entityType, OperationMetrics metrics,
+            Operation<T, A, B, C, StorageException> body) throws A, B, C, StorageException {
+        return instrumented(operation, entityType, metrics, body);
+    }
+
+    /** Opens the stream of a streaming operation. */
+    @FunctionalInterface
+    private interface StreamOpener<T> {
+        Stream<T> open() throws StorageException;
+    }
+
+    /**
+     * Opens a stream for a public operation and records the operation when
+     * the stream is closed, with the time from opening and the rows read.
+     * Failing to open it is recorded at once.
+     */
+    private static <T> Stream<T> instrumentedStream(String operation, String entityType, OperationMetrics metrics,
+                                                    StreamOpener<T> opener) throws StorageException {
+        OperationEvent event = new OperationEvent(operation, entityType);
+        event.begin();
+        long start = System.nanoTime();
+        Stream<T> stream;
+        try {
+            stream = opener.open();
+        } catch (Throwable e) {
+            metrics.recordError();
+            metrics.record(start);
+            event.failed = true;
+            event.complete();
+            throw e;
+        }
+        long[] rows = new long[1];
+        return stream.peek(entity -> rows[0]++).onClose(() -> {
+            metrics.record(start);
+            event.rows = rows[0];
+            event.complete();
+        });
+    }
+
+    private static <T> List<T> lookupIndex(Map<String, List<T>> index, String key) {
+        List<T> values = index.get(key);
+        return values == null ? List.of() : List.copyOf(values);
+    }
+
+    private static <T> List<T> page(EntityList<T> list, int offset, int limit) throws InvalidInputException {
+        if (offset < 0 || limit < 0) {
+            throw new InvalidInputException("Offset and limit must not be negative");
+        }
+        return list.page(offset, limit);
+    }
+
+    /**
+     * Returns the lock stripe guarding changes to one patient's data.
+     */
+    private Lock lockFor(String patientId) {
+        int hash = patientId.hashCode();
+        return patientLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private String nextId(String prefix) {
+        return ids.next(prefix);
     }
 
     private void saveAllData() throws StorageException {
-        storageManager.savePatients(patients);
-        storageManager.saveClinicians(clinicians);
-        storageManager.saveAdmins(admins);
-        storageManager.saveTreatments(treatments);
-        storageManager.saveTreatmentTypes(treatmentTypes);
-        storageManager.saveBills(bills);
-        storageManager.saveNotifications(notifications);
+        ensureBillsLoaded();
+        ensureNotificationsLoaded();
+        storage.patients().saveAll(patients.snapshot());
+        storage.clinicians().saveAll(clinicians.snapshot());
+        storage.admins().saveAll(admins.snapshot());
+        storage.treatments().saveAll(treatments.snapshot());
+        storage.treatmentTypes().saveAll(treatmentTypes.snapshot());
+        storage.bills().saveAll(bills.snapshot());
+        storage.notifications().saveAll(notifications.snapshot());
     }
 
     private void initializeSampleData() {
@@ -73,251 +477,745 @@ public class MMSController {
         treatmentTypes.add(new TreatmentType("TRT001", "Consultation", 100.0));
         treatmentTypes.add(new TreatmentType("TRT002", "Surgery", 5000.0));
         treatmentTypes.add(new TreatmentType("TRT003", "Therapy", 200.0));
+        rebuildIndexes();
     }
 
     // ===== PATIENT MANAGEMENT =====
     public void registerPatient(String name, String phone, String email, String password) 
             throws InvalidInputException, StorageException {
-        if (name == null || name.isEmpty() || email == null || email.isEmpty()) {
-            throw new InvalidInputException("Name and email cannot be empty");
-        }
-        Patient patient = new Patient("PAT" + System.currentTimeMillis(), name, phone, email, password);
-        patients.add(patient);
-        storageManager.savePatients(patients);
+        registerPatientAndReturn(name, phone, email, password);
     }
 
     public Patient registerPatientAndReturn(String name, String phone, String email, String password) 
             throws InvalidInputException, StorageException {
-        if (name == null || name.isEmpty() || email == null || email.isEmpty()) {
-            throw new InvalidInputException("Name and email cannot be empty");
-        }
-        Patient patient = new Patient("PAT" + System.currentTimeMillis(), name, phone, email, password);
-        patients.add(patient);
-        storageManager.savePatients(patients);
-        return patient;
+        return instrumentedStorage("registerPatient", "Patient", registerPatientMetrics, event -> {
+            if (name == null || name.isEmpty() || email == null || email.isEmpty()) {
+                throw new InvalidInputException("Name and email cannot be empty");
+            }
+            Patient patient = new Patient(nextId("PAT"), name, phone, email, password);
+            event.entityId = patient.getId();
+            String key = normalizeEmail(email);
+            Lock lock = lockFor(patient.getId());
+            lock.lock();
+            try {
+                // Indexed before the email is claimed, so a login never finds an
+                // unindexed patient; the new id is unknown to other sessions
+                patientIndex.put(patient.getId(), patient);
+                // Claiming the email atomically keeps concurrent registrations unique
+                if (usersByEmail.putIfAbsent(key, patient) != null) {
+                    patientIndex.remove(patient.getId());
+                    throw new InvalidInputException("Email already registered: " + email);
+                }
+                patients.add(patient);
+                try {
+                    storage.patients().save(patient, patients::snapshot);
+                } catch (Throwable e) {
+                    // Not stored, so release the email and forget the patient
+                    patients.remove(patient);
+                    usersByEmail.remove(key, patient);
+                    patientIndex.remove(patient.getId());
+                    throw e;
+                }
+            } finally {
+                lock.unlock();
+            }
+            return patient;
+        });
+    }
+
+    /**
+     * Registers every valid patient in a CSV or JSON-lines file and stores
+     * them with one batch write. Rows are decoded and validated in
+     * parallel; rows that are invalid or whose email is already taken,
+     * including earlier in the same file, are skipped and listed in the
+     * report.
+     */
+    public ImportReport importPatients(File file) throws InvalidInputException, StorageException {
+        return instrumentedStorage("importPatients", "Patient", importPatientsMetrics, event -> {
+            long start = System.nanoTime();
+            List<PatientImportReader.Row> rows = PatientImportReader.read(file);
+            List<String> errors = new ArrayList<>();
+            List<Patient> imported = new ArrayList<>(rows.size());
+            // Every stripe is held until the batch is stored, so no session can
+            // change an imported patient that may still be rolled back
+            for (Lock lock : patientLocks) {
+                lock.lock();
+            }
+            try {
+                for (PatientImportReader.Row row : rows) {
+                    if (row.error() != null) {
+                        errors.add("Row " + row.number() + ": " + row.error());
+                        continue;
+                    }
+                    // Emails are only claimed under a stripe lock, and every stripe is
+                    // held, so a free email stays free and no id is spent on a duplicate
+                    String key = normalizeEmail(row.email());
+                    if (usersByEmail.containsKey(key)) {
+                        errors.add("Row " + row.number() + ": Email already registered: " + row.email());
+                        continue;
+                    }
+                    Patient patient = new Patient(nextId("PAT"), row.name(), row.phone(), row.email(),
+                                                  row.password());
+                    if (row.registered()) {
+                        patient.upgrade();
+                    }
+                    // Indexed before the email is claimed, as in registerPatientAndReturn
+                    patientIndex.put(patient.getId(), patient);
+                    usersByEmail.put(key, patient);
+                    imported.add(patient);
+                }
+                if (!imported.isEmpty()) {
+                    patients.addAll(imported);
+                    try {
+                        storage.patients().saveBatch(imported, patients::snapshot);
+                    } catch (Throwable e) {
+                        // Not stored, so release the emails and forget the patients
+                        patients.removeAll(imported);
+                        for (Patient patient : imported) {
+                            usersByEmail.remove(normalizeEmail(patient.getEmail()), patient);
+                            patientIndex.remove(patient.getId());
+                        }
+                        throw e;
+                    }
+                }
+            } finally {
+                for (int i = patientLocks.length - 1; i >= 0; i--) {
+                    patientLocks[i].unlock();
+                }
+            }
+            event.rows = imported.size();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            return new ImportReport(rows.size(), imported.size(), errors, elapsedMillis);
+        });
     }
 
     public Patient getPatient(String patientId) throws UserNotFoundException {
-        return patients.stream()
-                .filter(p -> p.getId().equals(patientId))
-                .findFirst()
-                .orElseThrow(() -> new UserNotFoundException("Patient not found: " + patientId));
+        return instrumented("getPatient", "Patient", getPatientMetrics, event -> {
+            event.entityId = patientId;
+            return findPatient(patientId);
+        });
+    }
+
+    private Patient findPatient(String patientId) throws UserNotFoundException {
+        Patient patient = patientIndex.get(patientId);
+        if (patient == null) {
+            throw new UserNotFoundException("Patient not found: " + patientId);
+        }
+        return patient;
     }
 
     public void upgradePatient(String patientId) throws UserNotFoundException, StorageException {
-        Patient patient = getPatient(patientId);
-        patient.upgrade();
-        storageManager.savePatients(patients);
+        instrumentedStorage("upgradePatient", "Patient", upgradePatientMetrics, event -> {
+            event.entityId = patientId;
+            Patient patient = findPatient(patientId);
+            Lock lock = lockFor(patientId);
+            lock.lock();
+            try {
+                patient.upgrade();
+                storage.patients().save(patient, patients::snapshot);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        });
     }
 
     public void flagPatient(String patientId) throws UserNotFoundException, StorageException {
-        Patient patient = getPatient(patientId);
-        patient.markFlagged();
-        storageManager.savePatients(patients);
+        instrumentedStorage("flagPatient", "Patient", flagPatientMetrics, event -> {
+            event.entityId = patientId;
+            Patient patient = findPatient(patientId);
+            Lock lock = lockFor(patientId);
+            lock.lock();
+            try {
+                patient.markFlagged();
+                storage.patients().save(patient, patients::snapshot);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        });
     }
 
     public List<Patient> getAllPatients() {
-        return new ArrayList<>(patients);
+        return instrumented("getAllPatients", "Patient", getAllPatientsMetrics,
+                event -> event.counted(patients.snapshot()));
+    }
+
+    public List<Patient> getAllPatients(int offset, int limit) throws InvalidInputException {
+        return instrumented("getAllPatients", "Patient", getAllPatientsMetrics,
+                event -> event.counted(page(patients, offset, limit)));
     }
 
     // ===== TREATMENT MANAGEMENT =====
     public void bookTreatment(String patientId, String treatmentTypeId) 
             throws UserNotFoundException, TreatmentNotFoundException, InvalidInputException, StorageException {
-        Patient patient = getPatient(patientId);
-        if (!patient.isRegistered()) {
-            throw new InvalidInputException("Patient must be registered to book treatment");
-        }
+        bookTreatmentAndReturn(patientId, treatmentTypeId);
+    }
+
+    public Treatment bookTreatmentAndReturn(String patientId, String treatmentTypeId) 
+            throws UserNotFoundException, TreatmentNotFoundException, InvalidInputException, StorageException {
+        return MMSController.<Treatment, UserNotFoundException, TreatmentNotFoundException, InvalidInputException>
+                instrumentedStorage("bookTreatment", "Treatment", bookTreatmentMetrics, event -> {
+            Patient patient = findPatient(patientId);
         
-        // Verify treatment type exists
-        treatmentTypes.stream()
-                .filter(t -> t.getId().equals(treatmentTypeId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Treatment type not found"));
+            // Verify treatment type exists
+            findTreatmentType(treatmentTypeId);
         
-        Treatment treatment = new Treatment("TRE" + System.currentTimeMillis(), patientId, treatmentTypeId);
-        treatments.add(treatment);
-        storageManager.saveTreatments(treatments);
+            Lock lock = lockFor(patientId);
+            lock.lock();
+            try {
+                if (!patient.isRegistered()) {
+                    throw new InvalidInputException("Patient must be registered to book treatment");
+                }
+                Treatment treatment = new Treatment(nextId("TRE"), patientId, treatmentTypeId);
+                event.entityId = treatment.getTreatmentId();
+                treatments.add(treatment);
+                treatmentIndex.put(treatment.getTreatmentId(), treatment);
+                addToIndex(treatmentsByPatient, patientId, treatment);
+                storage.treatments().save(treatment, treatments::snapshot);
+                return treatment;
+            } finally {
+                lock.unlock();
+            }
+        });
     }
 
     public void assignClinician(String treatmentId, String clinicianId) 
             throws TreatmentNotFoundException, UserNotFoundException, StorageException {
-        Treatment treatment = treatments.stream()
-                .filter(t -> t.getTreatmentId().equals(treatmentId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Treatment not found"));
+        MMSController.<Void, TreatmentNotFoundException, UserNotFoundException, RuntimeException>
+                instrumentedStorage("assignClinician", "Treatment", assignClinicianMetrics, event -> {
+            event.entityId = treatmentId;
+            Treatment treatment = findTreatment(treatmentId);
         
-        // Verify clinician exists
-        clinicians.stream()
-                .filter(c -> c.getId().equals(clinicianId))
-                .findFirst()
-                .orElseThrow(() -> new UserNotFoundException("Clinician not found"));
+            // Verify clinician exists
+            findClinician(clinicianId);
         
-        treatment.setClinicianId(clinicianId);
-        storageManager.saveTreatments(treatments);
+            Lock lock = lockFor(treatment.getPatientId());
+            lock.lock();
+            try {
+                String previousClinicianId = treatment.getClinicianId();
+                if (clinicianId.equals(previousClinicianId)) {
+                    return null;
+                }
+                if (previousClinicianId != null) {
+                    List<Treatment> previous = treatmentsByClinician.get(previousClinicianId);
+                    if (previous != null) {
+                        previous.remove(treatment);
+                    }
+                }
+                treatment.setClinicianId(clinicianId);
+                addToIndex(treatmentsByClinician, clinicianId, treatment);
+                storage.treatments().save(treatment, treatments::snapshot);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        });
     }
 
     public void updateTreatmentStatus(String treatmentId, TreatmentStatus status) 
             throws TreatmentNotFoundException, StorageException {
-        Treatment treatment = treatments.stream()
-                .filter(t -> t.getTreatmentId().equals(treatmentId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Treatment not found"));
+        instrumentedStorage("updateTreatmentStatus", "Treatment", updateTreatmentStatusMetrics, event -> {
+            event.entityId = treatmentId;
+            Treatment treatment = findTreatment(treatmentId);
         
-        treatment.setStatus(status);
-        storageManager.saveTreatments(treatments);
+            Lock lock = lockFor(treatment.getPatientId());
+            lock.lock();
+            try {
+                treatment.setStatus(status);
+                storage.treatments().save(treatment, treatments::snapshot);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        });
     }
 
     public Treatment getTreatment(String treatmentId) throws TreatmentNotFoundException {
-        return treatments.stream()
-                .filter(t -> t.getTreatmentId().equals(treatmentId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Treatment not found"));
+        return instrumented("getTreatment", "Treatment", getTreatmentMetrics, event -> {
+            event.entityId = treatmentId;
+            return findTreatment(treatmentId);
+        });
+    }
+
+    private Treatment findTreatment(String treatmentId) throws TreatmentNotFoundException {
+        Treatment treatment = treatmentIndex.get(treatmentId);
+        if (treatment == null) {
+            throw new TreatmentNotFoundException("Treatment not found");
+        }
+        return treatment;
     }
 
     public List<Treatment> getPatientTreatments(String patientId) {
-        return treatments.stream()
-                .filter(t -> t.getPatientId().equals(patientId))
-                .toList();
+        return instrumented("getPatientTreatments", "Treatment", getPatientTreatmentsMetrics, event -> {
+            event.entityId = patientId;
+            return event.counted(lookupIndex(treatmentsByPatient, patientId));
+        });
     }
 
     public List<Treatment> getClinicianTreatments(String clinicianId) {
-        return treatments.stream()
-                .filter(t -> t.getClinicianId() != null && t.getClinicianId().equals(clinicianId))
-                .toList();
+        return instrumented("getClinicianTreatments", "Treatment", getClinicianTreatmentsMetrics, event -> {
+            event.entityId = clinicianId;
+            return event.counted(lookupIndex(treatmentsByClinician, clinicianId));
+        });
     }
 
     // ===== TREATMENT TYPE MANAGEMENT =====
     public void addTreatmentType(String name, double price) throws InvalidInputException, StorageException {
-        if (name == null || name.isEmpty() || price <= 0) {
-            throw new InvalidInputException("Invalid treatment type data");
-        }
-        TreatmentType type = new TreatmentType("TRT" + System.currentTimeMillis(), name, price);
-        treatmentTypes.add(type);
-        storageManager.saveTreatmentTypes(treatmentTypes);
+        instrumentedStorage("addTreatmentType", "TreatmentType", addTreatmentTypeMetrics, event -> {
+            if (name == null || name.isEmpty() || price <= 0) {
+                throw new InvalidInputException("Invalid treatment type data");
+            }
+            TreatmentType type = new TreatmentType(nextId("TRT"), name, price);
+            event.entityId = type.getId();
+            treatmentTypes.add(type);
+            treatmentTypeIndex.put(type.getId(), type);
+            storage.treatmentTypes().save(type, treatmentTypes::snapshot);
+            return null;
+        });
     }
 
     public void removeTreatmentType(String treatmentTypeId) throws TreatmentNotFoundException, StorageException {
-        boolean removed = treatmentTypes.removeIf(t -> t.getId().equals(treatmentTypeId));
-        if (!removed) {
-            throw new TreatmentNotFoundException("Treatment type not found");
-        }
-        storageManager.saveTreatmentTypes(treatmentTypes);
+        instrumentedStorage("removeTreatmentType", "TreatmentType", removeTreatmentTypeMetrics, event -> {
+            event.entityId = treatmentTypeId;
+            TreatmentType removed = treatmentTypeIndex.remove(treatmentTypeId);
+            if (removed == null) {
+                throw new TreatmentNotFoundException("Treatment type not found");
+            }
+            treatmentTypes.remove(removed);
+            storage.treatmentTypes().delete(treatmentTypeId, treatmentTypes::snapshot);
+            return null;
+        });
     }
 
     public TreatmentType getTreatmentType(String typeId) throws TreatmentNotFoundException {
-        return treatmentTypes.stream()
-                .filter(t -> t.getId().equals(typeId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Treatment type not found"));
+        return instrumented("getTreatmentType", "TreatmentType", getTreatmentTypeMetrics, event -> {
+            event.entityId = typeId;
+            return findTreatmentType(typeId);
+        });
+    }
+
+    private TreatmentType findTreatmentType(String typeId) throws TreatmentNotFoundException {
+        TreatmentType type = treatmentTypeIndex.get(typeId);
+        if (type == null) {
+            throw new TreatmentNotFoundException("Treatment type not found");
+        }
+        return type;
     }
 
     public List<TreatmentType> getAllTreatmentTypes() {
-        return new ArrayList<>(treatmentTypes);
+        return instrumented("getAllTreatmentTypes", "TreatmentType", getAllTreatmentTypesMetrics,
+                event -> event.counted(treatmentTypes.snapshot()));
+    }
+
+    public List<TreatmentType> getAllTreatmentTypes(int offset, int limit) throws InvalidInputException {
+        return instrumented("getAllTreatmentTypes", "TreatmentType", getAllTreatmentTypesMetrics,
+                event -> event.counted(page(treatmentTypes, offset, limit)));
+    }
+
+    /**
+     * Streams every persisted treatment straight from storage with constant
+     * memory, for reports over more data than fits in the heap. The stream
+     * must be closed.
+     */
+    public Stream<Treatment> streamTreatments() throws StorageException {
+        return instrumentedStream("streamTreatments", "Treatment", streamTreatmentsMetrics, storage.treatments()::stream);
     }
 
     // ===== BILLING MANAGEMENT =====
     public Bill generateBill(String treatmentId) 
             throws TreatmentNotFoundException, StorageException {
-        Treatment treatment = getTreatment(treatmentId);
-        TreatmentType type = getTreatmentType(treatment.getTreatmentTypeId());
+        return instrumentedStorage("generateBill", "Bill", generateBillMetrics, event -> {
+            Treatment treatment = findTreatment(treatmentId);
+            TreatmentType type = findTreatmentType(treatment.getTreatmentTypeId());
         
-        Bill bill = new Bill("BILL" + System.currentTimeMillis(), treatment.getPatientId(), 
-                            treatmentId, type.getPrice());
-        bills.add(bill);
-        treatment.setStatus(TreatmentStatus.BILL_GENERATED);
-        storageManager.saveBills(bills);
-        storageManager.saveTreatments(treatments);
-        
-        return bill;
+            ensureBillsLoaded();
+            Lock lock = lockFor(treatment.getPatientId());
+            lock.lock();
+            try {
+                Bill bill = new Bill(nextId("BILL"), treatment.getPatientId(), 
+                                    treatmentId, type.getPrice());
+                event.entityId = bill.getBillId();
+                bills.add(bill);
+                billIndex.put(bill.getBillId(), bill);
+                addToIndex(billsByPatient, bill.getPatientId(), bill);
+                treatment.setStatus(TreatmentStatus.BILL_GENERATED);
+                storage.bills().save(bill, bills::snapshot);
+                storage.treatments().save(treatment, treatments::snapshot);
+            
+                return bill;
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * End-of-day billing run: bills every TREATMENT_ASSESSED or COMPLETED
+     * treatment that has no bill yet, priced from a snapshot of the
+     * treatment types taken when the run starts. Bills are created in
+     * parallel and stored with one atomic batch write, after which the
+     * assessed treatments move to BILL_GENERATED in a second batch.
+     *
+     * Treatments are matched to bills by id rather than by status, so a run
+     * interrupted between the two writes never bills a treatment twice and
+     * the next run finishes the status change. A write that fails is undone
+     * in memory too. Every lock stripe is held for the run, so single bills
+     * generated meanwhile wait for it.
+     */
+    public BillingRunReport runBilling() throws StorageException {
+        return instrumented("runBilling", "Bill", runBillingMetrics, event -> {
+            long start = System.nanoTime();
+            ensureBillsLoaded();
+            Map<String, Double> prices = new HashMap<>();
+            for (TreatmentType type : treatmentTypes.snapshot()) {
+                prices.put(type.getId(), type.getPrice());
+            }
+            for (Lock lock : patientLocks) {
+                lock.lock();
+            }
+            try {
+                List<Treatment> scanned = treatments.snapshot();
+                Set<String> billed = new HashSet<>();
+                for (Bill bill : bills.snapshot()) {
+                    billed.add(bill.getTreatmentId());
+                }
+                List<Treatment> billable = scanned.parallelStream()
+                        .filter(t -> (t.getStatus() == TreatmentStatus.TREATMENT_ASSESSED
+                                || t.getStatus() == TreatmentStatus.COMPLETED)
+                                && !billed.contains(t.getTreatmentId()))
+                        .toList();
+                List<Bill> created = billable.parallelStream()
+                        .filter(t -> prices.containsKey(t.getTreatmentTypeId()))
+                        .map(t -> new Bill(nextId("BILL"), t.getPatientId(), t.getTreatmentId(),
+                                           prices.get(t.getTreatmentTypeId())))
+                        .toList();
+
+                if (!created.isEmpty()) {
+                    bills.addAll(created);
+                    try {
+                        storage.bills().saveBatch(created, bills::snapshot);
+                    } catch (Throwable e) {
+                        // Not stored, so the treatments stay unbilled for the next run
+                        bills.removeAll(created);
+                        throw e;
+                    }
+                    // Indexed only once stored, so lookups never find an unsaved bill
+                    for (Bill bill : created) {
+                        billIndex.put(bill.getBillId(), bill);
+                        billed.add(bill.getTreatmentId());
+                    }
+                    addAllToIndex(billsByPatient, created, Bill::getPatientId);
+                }
+                List<Treatment> advanced = scanned.parallelStream()
+                        .filter(t -> t.getStatus() == TreatmentStatus.TREATMENT_ASSESSED
+                                && billed.contains(t.getTreatmentId()))
+                        .toList();
+                if (!advanced.isEmpty()) {
+                    advanced.forEach(t -> t.setStatus(TreatmentStatus.BILL_GENERATED));
+                    try {
+                        storage.treatments().saveBatch(advanced, treatments::snapshot);
+                    } catch (Throwable e) {
+                        // The bills are stored, so the next run finishes the status change
+                        advanced.forEach(t -> t.setStatus(TreatmentStatus.TREATMENT_ASSESSED));
+                        throw e;
+                    }
+                }
+
+                event.rows = created.size();
+                double total = created.parallelStream().mapToDouble(Bill::getTotalAmount).sum();
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                return new BillingRunReport(scanned.size(), created.size(), billable.size() - created.size(),
+                                            total, elapsedMillis);
+            } finally {
+                for (int i = patientLocks.length - 1; i >= 0; i--) {
+                    patientLocks[i].unlock();
+                }
+            }
+        });
     }
 
     public void recordPayment(String billId) throws TreatmentNotFoundException, StorageException {
-        Bill bill = bills.stream()
-                .filter(b -> b.getBillId().equals(billId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Bill not found"));
-        
-        bill.markPaid();
+        instrumentedStorage("recordPayment", "Bill", recordPaymentMetrics, event -> {
+            event.entityId = billId;
+            Bill bill = findBill(billId);
+            Treatment treatment = findTreatment(bill.getTreatmentId());
         
-        // Update treatment status to PAID
-        Treatment treatment = getTreatment(bill.getTreatmentId());
-        treatment.setStatus(TreatmentStatus.PAID);
-        storageManager.saveBills(bills);
-        storageManager.saveTreatments(treatments);
+            Lock lock = lockFor(bill.getPatientId());
+            lock.lock();
+            try {
+                bill.markPaid();
+            
+                // Update treatment status to PAID
+                treatment.setStatus(TreatmentStatus.PAID);
+                storage.bills().save(bill, bills::snapshot);
+                storage.treatments().save(treatment, treatments::snapshot);
+            } finally {
+                lock.unlock();
+            }
+            return null;
+        });
     }
 
-    public Bill getBill(String billId) throws TreatmentNotFoundException {
-        return bills.stream()
-                .filter(b -> b.getBillId().equals(billId))
-                .findFirst()
-                .orElseThrow(() -> new TreatmentNotFoundException("Bill not found"));
+    public Bill getBill(String billId) throws TreatmentNotFoundException, StorageException {
+        return instrumentedStorage("getBill", "Bill", getBillMetrics, event -> {
+            event.entityId = billId;
+            return findBill(billId);
+        });
     }
 
-    public List<Bill> getPatientBills(String patientId) {
-        return bills.stream()
-                .filter(b -> b.getPatientId().equals(patientId))
-                .toList();
+    private Bill findBill(String billId) throws TreatmentNotFoundException, StorageException {
+        ensureBillsLoaded();
+        Bill bill = billIndex.get(billId);
+        if (bill == null) {
+            throw new TreatmentNotFoundException("Bill not found");
+        }
+        return bill;
     }
 
-    public List<Bill> getAllBills() {
-        return new ArrayList<>(bills);
+    public List<Bill> getPatientBills(String patientId) throws StorageException {
+        return instrumented("getPatientBills", "Bill", getPatientBillsMetrics, event -> {
+            event.entityId = patientId;
+            ensureBillsLoaded();
+            return event.counted(lookupIndex(billsByPatient, patientId));
+        });
+    }
+
+    public List<Bill> getAllBills() throws StorageException {
+        return instrumented("getAllBills", "Bill", getAllBillsMetrics, event -> {
+            ensureBillsLoaded();
+            return event.counted(bills.snapshot());
+        });
+    }
+
+    public List<Bill> getAllBills(int offset, int limit) throws InvalidInputException, StorageException {
+        return instrumentedStorage("getAllBills", "Bill", getAllBillsMetrics, event -> {
+            ensureBillsLoaded();
+            return event.counted(page(bills, offset, limit));
+        });
+    }
+
+    /**
+     * Streams every persisted bill straight from storage with constant
+     * memory. Does not load bills into the controller in lazy mode. The
+     * stream must be closed.
+     */
+    public Stream<Bill> streamBills() throws StorageException {
+        return instrumentedStream("streamBills", "Bill", streamBillsMetrics, storage.bills()::stream);
     }
 
     // ===== NOTIFICATION MANAGEMENT =====
     public void sendNotification(String patientId, String message, boolean isPromotional) 
             throws UserNotFoundException, StorageException {
-        Patient patient = getPatient(patientId);
-        Notification notification = new Notification("NOT" + System.currentTimeMillis(), 
-                                                     patientId, message, isPromotional);
-        notifications.add(notification);
-        patient.receiveNotification(notification);
-        storageManager.saveNotifications(notifications);
+        sendNotificationAndReturn(patientId, message, isPromotional);
     }
 
-    public List<Notification> getPatientNotifications(String patientId) {
-        return notifications.stream()
-                .filter(n -> n.getPatientId().equals(patientId))
-                .toList();
+    public Notification sendNotificationAndReturn(String patientId, String message, boolean isPromotional) 
+            throws UserNotFoundException, StorageException {
+        return instrumentedStorage("sendNotification", "Notification", sendNotificationMetrics, event -> {
+            findPatient(patientId);
+            ensureNotificationsLoaded();
+            Lock lock = lockFor(patientId);
+            lock.lock();
+            try {
+                Notification notification = new Notification(nextId("NOT"), 
+                                                             patientId, message, isPromotional);
+                event.entityId = notification.getNotificationId();
+                notifications.add(notification);
+                addToIndex(notificationsByPatient, patientId, notification);
+                storage.notifications().save(notification, notifications::snapshot);
+                return notification;
+            } finally {
+                lock.unlock();
+            }
+        });
     }
 
-    public List<Notification> getAllNotifications() {
-        return new ArrayList<>(notifications);
+    /**
+     * Starts a broadcast to every patient matching all the given audience
+     * filters, or to every patient if there are none. Promotional messages
+     * only go to patients who opted in. Returns at once: a virtual thread
+     * selects the patients and queues them for the delivery workers, which
+     * store the notifications in batches, and the returned Broadcast
+     * reports progress.
+     */
+    public Broadcast broadcastNotification(String message, boolean isPromotional, Set<BroadcastAudience> audience)
+            throws InvalidInputException, StorageException {
+        return instrumentedStorage("broadcastNotification", "Notification", broadcastNotificationMetrics, event -> {
+            if (message == null || message.isBlank()) {
+                throw new InvalidInputException("Message cannot be empty");
+            }
+            ensureNotificationsLoaded();
+            Set<BroadcastAudience> filters = EnumSet.noneOf(BroadcastAudience.class);
+            filters.addAll(audience);
+            if (isPromotional) {
+                filters.add(BroadcastAudience.OPTED_IN);
+            }
+            if (filters.contains(BroadcastAudience.OUTSTANDING_BILL)) {
+                ensureBillsLoaded();
+            }
+            Broadcast broadcast = new Broadcast(nextId("BRC"), message, isPromotional, filters);
+            event.entityId = broadcast.getId();
+            addBroadcast(broadcast);
+            Thread.ofVirtual().name("mms-broadcast-" + broadcast.getId()).start(() -> {
+                try {
+                    for (Patient patient : patients.snapshot()) {
+                        if (matchesAudience(patient, filters)) {
+                            dispatcher.submit(broadcast, patient);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    broadcast.finishSelection();
+                }
+            });
+            return broadcast;
+        });
     }
 
-    // ===== USER AUTHENTICATION =====
-    public User login(String email, String password) throws UserNotFoundException {
-        // Check admins
-        for (Admin admin : admins) {
-            if (admin.getEmail().equals(email) && admin.getPassword().equals(password)) {
-                return admin;
+    /**
+     * Returns the broadcasts still running and the latest
+     * MAX_FINISHED_BROADCASTS finished ones, oldest first.
+     */
+    public List<Broadcast> getBroadcasts() {
+        return List.copyOf(broadcasts);
+    }
+
+    private void addBroadcast(Broadcast broadcast) {
+        synchronized (broadcasts) {
+            broadcasts.add(broadcast);
+            long finished = broadcasts.stream().filter(Broadcast::isDone).count();
+            for (Broadcast old : broadcasts) {
+                if (finished <= MAX_FINISHED_BROADCASTS) {
+                    break;
+                }
+                if (old.isDone()) {
+                    broadcasts.remove(old);
+                    finished--;
+                }
             }
         }
-        
-        // Check clinicians
-        for (Clinician clinician : clinicians) {
-            if (clinician.getEmail().equals(email) && clinician.getPassword().equals(password)) {
-                return clinician;
+    }
+
+    private boolean matchesAudience(Patient patient, Set<BroadcastAudience> filters) {
+        for (BroadcastAudience filter : filters) {
+            boolean matches = switch (filter) {
+                case OPTED_IN -> patient.isOptedInForPromotions();
+                case FLAGGED -> patient.isFlagged();
+                case REGISTERED -> patient.isRegistered();
+                case OUTSTANDING_BILL -> billsByPatient.getOrDefault(patient.getId(), List.of()).stream()
+                        .anyMatch(bill -> !bill.isPaid());
+            };
+            if (!matches) {
+                return false;
             }
         }
-        
-        // Check patients
-        for (Patient patient : patients) {
-            if (patient.getEmail().equals(email) && patient.getPassword().equals(password)) {
-                return patient;
-            }
+        return true;
+    }
+
+    private void storeNotifications(List<Notification> batch) throws StorageException {
+        notifications.addAll(batch);
+        try {
+            storage.notifications().saveBatch(batch, notifications::snapshot);
+        } catch (Throwable e) {
+            // Counted as failed deliveries, so no patient may see them
+            notifications.removeAll(batch);
+            throw e;
         }
-        
-        throw new UserNotFoundException("Invalid email or password");
+        addAllToIndex(notificationsByPatient, batch, Notification::getPatientId);
+    }
+
+    public List<Notification> getPatientNotifications(String patientId) throws StorageException {
+        return instrumented("getPatientNotifications", "Notification", getPatientNotificationsMetrics, event -> {
+            event.entityId = patientId;
+            ensureNotificationsLoaded();
+            return event.counted(lookupIndex(notificationsByPatient, patientId));
+        });
+    }
+
+    public List<Notification> getAllNotifications() throws StorageException {
+        return instrumented("getAllNotifications", "Notification", getAllNotificationsMetrics, event -> {
+            ensureNotificationsLoaded();
+            return event.counted(notifications.snapshot());
+        });
+    }
+
+    public List<Notification> getAllNotifications(int offset, int limit)
+            throws InvalidInputException, StorageException {
+        return instrumentedStorage("getAllNotifications", "Notification", getAllNotificationsMetrics, event -> {
+            ensureNotificationsLoaded();
+            return event.counted(page(notifications, offset, limit));
+        });
+    }
+
+    // ===== USER AUTHENTICATION =====
+    public User login(String email, String password) throws UserNotFoundException {
+        return instrumented("login", "User", loginMetrics, event -> {
+            User user = usersByEmail.get(normalizeEmail(email));
+            if (user == null || !user.getPassword().equals(password)) {
+                throw new UserNotFoundException("Invalid email or password");
+            }
+            event.entityId = user.getId();
+            return user;
+        });
     }
 
     public List<Clinician> getAllClinicians() {
-        return new ArrayList<>(clinicians);
+        return instrumented("getAllClinicians", "Clinician", getAllCliniciansMetrics,
+                event -> event.counted(clinicians.snapshot()));
+    }
+
+    public List<Clinician> getAllClinicians(int offset, int limit) throws InvalidInputException {
+        return instrumented("getAllClinicians", "Clinician", getAllCliniciansMetrics,
+                event -> event.counted(page(clinicians, offset, limit)));
     }
 
     public Clinician getClinician(String clinicianId) throws UserNotFoundException {
-        return clinicians.stream()
-                .filter(c -> c.getId().equals(clinicianId))
-                .findFirst()
-                .orElseThrow(() -> new UserNotFoundException("Clinician not found"));
+        return instrumented("getClinician", "Clinician", getClinicianMetrics, event -> {
+            event.entityId = clinicianId;
+            return findClinician(clinicianId);
+        });
+    }
+
+    private Clinician findClinician(String clinicianId) throws UserNotFoundException {
+        Clinician clinician = clinicianIndex.get(clinicianId);
+        if (clinician == null) {
+            throw new UserNotFoundException("Clinician not found");
+        }
+        return clinician;
+    }
+
+    /**
+     * Returns the call counts, error counts and latency histograms of every
+     * public operation since this controller was created. Methods that only
+     * delegate, such as registerPatient to registerPatientAndReturn, are
+     * recorded once under the shorter name.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the storage backend's I/O counters per entity file.
+     */
+    public StorageMetrics getStorageMetrics() {
+        return storage.getMetrics();
+    }
+
+    /**
+     * Stops the broadcast delivery workers once the notifications they have
+     * created are stored. Broadcasts started afterwards fail every delivery.
+     * A running metrics dump is stopped after writing a last report.
+     */
+    @Override
+    public void close() {
+        try {
+            dispatcher.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            metrics.stopDump();
+        }
     }
 }
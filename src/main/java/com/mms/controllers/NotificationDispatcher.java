@@ -0,0 +1,159 @@
+package com.mms.controllers;
+
+import com.mms.exceptions.StorageException;
+import com.mms.models.Notification;
+import com.mms.models.Patient;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers broadcast notifications through a bounded queue drained by a
+ * fixed set of worker threads. Producers block while the queue is full,
+ * which keeps a large broadcast from outrunning storage.
+ *
+ * Each worker turns queued deliveries into notifications and hands them to
+ * storage in batches of up to STORE_BATCH, or sooner once the queue has
+ * been idle for a moment, so a broadcast costs a few large writes rather
+ * than one per patient. Workers are daemon threads started on first use
+ * and stopped by {@link #close()}.
+ */
+class NotificationDispatcher {
+    static final int QUEUE_CAPACITY = 8192;
+    static final int STORE_BATCH = 50_000;
+    private static final int DRAIN_CHUNK = 1024;
+    private static final long IDLE_FLUSH_MILLIS = 20;
+    private static final String CLOSED = "Notification dispatcher is closed";
+
+    /** Creates and stores the notifications for the dispatcher. */
+    interface Handler {
+        Notification create(Broadcast broadcast, Patient patient);
+
+        void store(List<Notification> batch) throws StorageException;
+    }
+
+    private record Delivery(Broadcast broadcast, Patient patient) {
+    }
+
+    private final Handler handler;
+    private final int workers;
+    private final BlockingQueue<Delivery> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean closed;
+
+    NotificationDispatcher(Handler handler, int workers) {
+        this.handler = handler;
+        this.workers = workers;
+    }
+
+    /**
+     * Queues one delivery, waiting while the queue is full. Once the
+     * dispatcher is closed the delivery is counted as failed instead.
+     */
+    void submit(Broadcast broadcast, Patient patient) throws InterruptedException {
+        start();
+        broadcast.recordQueued();
+        Delivery delivery = new Delivery(broadcast, patient);
+        while (!queue.offer(delivery, IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                broadcast.recordFailed(1, CLOSED);
+                return;
+            }
+        }
+        // A close that drained the queue before this delivery arrived left it behind
+        if (closed && queue.remove(delivery)) {
+            broadcast.recordFailed(1, CLOSED);
+        }
+    }
+
+    /**
+     * Stops the workers. Notifications already created are stored first;
+     * deliveries still queued, and any submitted later, count as failed.
+     */
+    void close() throws InterruptedException {
+        List<Thread> stopping;
+        synchronized (this) {
+            closed = true;
+            stopping = new ArrayList<>(threads);
+        }
+        for (Thread worker : stopping) {
+            worker.join();
+        }
+        Delivery delivery;
+        while ((delivery = queue.poll()) != null) {
+            delivery.broadcast().recordFailed(1, CLOSED);
+        }
+    }
+
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    private synchronized void start() {
+        if (closed || !threads.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::drain, "mms-notify-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            threads.add(worker);
+        }
+    }
+
+    private void drain() {
+        List<Delivery> drained = new ArrayList<>(DRAIN_CHUNK);
+        List<Notification> pending = new ArrayList<>();
+        Map<Broadcast, Long> pendingCounts = new IdentityHashMap<>();
+        try {
+            // Workers are stopped through the flag rather than interrupted, which
+            // would close the file channel of a store in progress
+            while (!closed) {
+                Delivery first = queue.poll(IDLE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    flush(pending, pendingCounts);
+                    continue;
+                }
+                drained.add(first);
+                queue.drainTo(drained, DRAIN_CHUNK - 1);
+                for (Delivery delivery : drained) {
+                    pending.add(handler.create(delivery.broadcast(), delivery.patient()));
+                    delivery.broadcast().recordDelivered();
+                    pendingCounts.merge(delivery.broadcast(), 1L, Long::sum);
+                }
+                drained.clear();
+                if (pending.size() >= STORE_BATCH) {
+                    flush(pending, pendingCounts);
+                }
+            }
+            flush(pending, pendingCounts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush(List<Notification> pending, Map<Broadcast, Long> pendingCounts) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        String error = null;
+        try {
+            handler.store(new ArrayList<>(pending));
+        } catch (StorageException | RuntimeException e) {
+            error = e.getMessage();
+        }
+        for (Map.Entry<Broadcast, Long> entry : pendingCounts.entrySet()) {
+            if (error == null) {
+                entry.getKey().recordStored(entry.getValue());
+            } else {
+                entry.getKey().recordFailed(entry.getValue(), error);
+            }
+        }
+        pending.clear();
+        pendingCounts.clear();
+    }
+}
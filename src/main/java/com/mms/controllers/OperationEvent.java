@@ -0,0 +1,71 @@
+package com.mms.controllers;
+
+import java.util.Collection;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one public MMSController operation, disabled unless a
+ * recording enables {@code com.mms.Operation}.
+ *
+ * MMSController.instrumented creates the event, calls {@code begin()}
+ * before the operation body and {@link #complete()} in its finally block;
+ * streaming operations complete it when the stream is closed. While the
+ * event is disabled the JIT removes the allocation and field writes, so only
+ * the enabled check remains.
+ */
+@Name("com.mms.Operation")
+@Label("MMS Operation")
+@Category({"MMS", "Controller"})
+@Description("A public MMSController operation")
+@StackTrace(false)
+final class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Entity Type")
+    String entityType;
+
+    @Label("Entity Id")
+    @Description("Id of the entity acted on, created or looked up by")
+    String entityId;
+
+    @Label("Rows")
+    @Description("Entities returned, stored or streamed before close; 1 for single-entity operations")
+    long rows = 1;
+
+    @Label("Failed")
+    boolean failed;
+
+    OperationEvent(String operation, String entityType) {
+        this.operation = operation;
+        this.entityType = entityType;
+    }
+
+    /** Records the size of a returned list and passes it through. */
+    <C extends Collection<?>> C counted(C result) {
+        rows = result.size();
+        return result;
+    }
+
+    /**
+     * Ends the event and commits it if the recording settings select it.
+     * Kept to a single call so the JIT inlines it even in the rarely run
+     * copy of the finally block on the exception path; otherwise the event
+     * escapes there and is allocated on every call.
+     */
+    void complete() {
+        commitIfSelected();
+    }
+
+    private void commitIfSelected() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.mms.controllers;
+
+import com.mms.api.Json;
+import com.mms.exceptions.InvalidInputException;
+import com.mms.storage.CsvParser;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Reads and validates patient rows for a bulk import.
+ *
+ * Files ending in .jsonl, .ndjson or .json hold one JSON object per line;
+ * anything else is CSV with a header row naming the columns. Both formats
+ * use the fields name, phone, email, password and optionally registered.
+ * Reading is sequential, while JSON decoding and validation of the rows
+ * run in parallel. Rows are numbered from 1 with the CSV header as row 1.
+ */
+final class PatientImportReader {
+    private static final String[] COLUMNS = { "name", "phone", "email", "password", "registered" };
+
+    /** One input row; error is null when the row is valid. */
+    record Row(long number, String name, String phone, String email, String password,
+               boolean registered, String error) {
+    }
+
+    private PatientImportReader() {
+    }
+
+    static List<Row> read(File file) throws InvalidInputException {
+        String fileName = file.getName().toLowerCase(Locale.ROOT);
+        try {
+            if (fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson") || fileName.endsWith(".json")) {
+                return readJsonLines(file);
+            }
+            return readCsv(file);
+        } catch (IOException e) {
+            throw new InvalidInputException("Cannot read import file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<Row> readCsv(File file) throws IOException, InvalidInputException {
+        List<Row> rows = new ArrayList<>();
+        try (CsvParser parser = new CsvParser(Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))) {
+            if (!parser.next()) {
+                return rows;
+            }
+            int[] columns = mapColumns(parser);
+            while (parser.next()) {
+                // Same rule as the JSON field: blank means false, anything else is an error
+                String registered = field(parser, columns[4]);
+                boolean isRegistered = registered.equalsIgnoreCase("true");
+                if (!isRegistered && !registered.isEmpty() && !registered.equalsIgnoreCase("false")) {
+                    rows.add(invalid(parser.getRecordNumber(), "registered must be true or false"));
+                    continue;
+                }
+                rows.add(new Row(parser.getRecordNumber(),
+                        field(parser, columns[0]), field(parser, columns[1]),
+                        field(parser, columns[2]), field(parser, columns[3]),
+                        isRegistered, null));
+            }
+        }
+        return rows.parallelStream().map(PatientImportReader::validate).toList();
+    }
+
+    /**
+     * Finds each known column in the header; name and email are required.
+     */
+    private static int[] mapColumns(CsvParser header) throws InvalidInputException {
+        int[] columns = { -1, -1, -1, -1, -1 };
+        for (int field = 0; field < header.getFieldCount(); field++) {
+            String name = header.getString(field).trim().toLowerCase(Locale.ROOT);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (COLUMNS[i].equals(name)) {
+                    columns[i] = field;
+                }
+            }
+        }
+        if (columns[0] < 0 || columns[2] < 0) {
+            throw new InvalidInputException("CSV header must name at least the name and email columns");
+        }
+        return columns;
+    }
+
+    private static String field(CsvParser parser, int column) {
+        return column >= 0 && column < parser.getFieldCount() ? parser.getString(column).trim() : "";
+    }
+
+    private static List<Row> readJsonLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return IntStream.range(0, lines.size()).parallel()
+                .filter(i -> !lines.get(i).isBlank())
+                .mapToObj(i -> validate(decodeJson(i + 1, lines.get(i))))
+                .toList();
+    }
+
+    private static Row decodeJson(long number, String line) {
+        Object value;
+        try {
+            value = Json.parse(line);
+        } catch (IllegalArgumentException e) {
+            return invalid(number, "Malformed JSON: " + e.getMessage());
+        }
+        if (!(value instanceof Map<?, ?> object)) {
+            return invalid(number, "Expected a JSON object");
+        }
+        Object registered = object.get("registered");
+        if (registered != null && !(registered instanceof Boolean)) {
+            return invalid(number, "registered must be true or false");
+        }
+        try {
+            return new Row(number, text(object, "name"), text(object, "phone"), text(object, "email"),
+                    text(object, "password"), Boolean.TRUE.equals(registered), null);
+        } catch (IllegalArgumentException e) {
+            return invalid(number, e.getMessage());
+        }
+    }
+
+    private static String text(Map<?, ?> object, String name) {
+        Object value = object.get(name);
+        if (value == null) {
+            return "";
+        }
+        if (!(value instanceof String string)) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return string.trim();
+    }
+
+    /**
+     * Applies the same rules as a single registration.
+     */
+    private static Row validate(Row row) {
+        if (row.error() != null) {
+            return row;
+        }
+        if (row.name().isEmpty() || row.email().isEmpty()) {
+            return invalid(row.number(), "Name and email cannot be empty");
+        }
+        return row;
+    }
+
+    private static Row invalid(long number, String error) {
+        return new Row(number, "", "", "", "", false, error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mms.exceptions;
+
+/**
+ * Wraps a StorageException where a checked exception cannot be thrown,
+ * such as inside a Stream pipeline.
+ */
+public class UncheckedStorageException extends RuntimeException {
+    public UncheckedStorageException(StorageException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized StorageException getCause() {
+        return (StorageException) super.getCause();
+    }
+}
@@ -0,0 +1,121 @@
+package com.mms.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * I/O counters for one entity file of a storage backend.
+ *
+ * A save is one persistence call from the controller (save, saveBatch,
+ * delete or saveAll) and changes {@code rowsChanged} rows. It is carried
+ * out as a full snapshot rewrite or, in journaled mode, a journal append;
+ * compactions are rewrites without a save. Comparing the rows written with
+ * the rows changed shows the write amplification of the file.
+ */
+public final class FileIoMetrics {
+    private final String name;
+    private final LatencyHistogram saveLatency = new LatencyHistogram();
+    private final LongAdder rowsChanged = new LongAdder();
+    private final LongAdder rewrites = new LongAdder();
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder readNanos = new LongAdder();
+
+    FileIoMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Records one save call that changed the given number of rows. */
+    public void recordSave(int rows, long nanos) {
+        rowsChanged.add(rows);
+        saveLatency.record(nanos);
+    }
+
+    /** Records a full snapshot rewrite. */
+    public void recordRewrite(long rows, long bytes, long nanos) {
+        rewrites.increment();
+        recordWrite(rows, bytes, nanos);
+    }
+
+    /** Records one journal append. */
+    public void recordAppend(long rows, long bytes, long nanos) {
+        appends.increment();
+        recordWrite(rows, bytes, nanos);
+    }
+
+    private void recordWrite(long rows, long bytes, long nanos) {
+        rowsWritten.add(rows);
+        bytesWritten.add(bytes);
+        writeNanos.add(nanos);
+    }
+
+    /** Records one full load or stream of the file. */
+    public void recordLoad(long rows, long bytes, long nanos) {
+        loads.increment();
+        rowsRead.add(rows);
+        bytesRead.add(bytes);
+        readNanos.add(nanos);
+    }
+
+    public long getSaves() {
+        return saveLatency.getCount();
+    }
+
+    public LatencyHistogram getSaveLatency() {
+        return saveLatency;
+    }
+
+    public long getRowsChanged() {
+        return rowsChanged.sum();
+    }
+
+    public long getRewrites() {
+        return rewrites.sum();
+    }
+
+    public long getAppends() {
+        return appends.sum();
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long getReadNanos() {
+        return readNanos.sum();
+    }
+
+    /** Rows written per row changed, or 0 before the first save. */
+    public double getWriteAmplification() {
+        long changed = getRowsChanged();
+        return changed == 0 ? 0 : (double) getRowsWritten() / changed;
+    }
+}
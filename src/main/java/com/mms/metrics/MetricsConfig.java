@@ -0,0 +1,42 @@
+package com.mms.metrics;
+
+import java.io.File;
+
+/**
+ * MetricsConfig reads metrics options from system properties, in the same
+ * way as the storage options.
+ */
+public final class MetricsConfig {
+    /** File the controller metrics are appended to periodically; unset disables the dump. */
+    public static final String DUMP_FILE = "mms.metrics.dumpFile";
+    /** Seconds between metrics dumps. */
+    public static final String DUMP_SECONDS = "mms.metrics.dumpSeconds";
+
+    private static final long DEFAULT_DUMP_SECONDS = 60;
+
+    private MetricsConfig() {
+    }
+
+    /** Returns the dump file, or null if periodic dumps are disabled. */
+    public static File getDumpFile() {
+        String value = System.getProperty(DUMP_FILE);
+        return value == null || value.isBlank() ? null : new File(value.trim());
+    }
+
+    public static long getDumpSeconds() {
+        String value = System.getProperty(DUMP_SECONDS);
+        if (value == null || value.isBlank()) {
+            return DEFAULT_DUMP_SECONDS;
+        }
+        try {
+            long seconds = Long.parseLong(value.trim());
+            if (seconds > 0) {
+                return seconds;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the default
+        }
+        System.err.println("Ignoring invalid value for " + DUMP_SECONDS + ": " + value);
+        return DEFAULT_DUMP_SECONDS;
+    }
+}
@@ -0,0 +1,123 @@
+package com.mms.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsRegistry holds the {@link OperationMetrics} of one component by
+ * operation name and renders them as a table with percentiles and
+ * throughput since the registry was created.
+ *
+ * Owners look up their operations once and keep the references, so the
+ * registry map is never touched on the recording path.
+ */
+public final class MetricsRegistry {
+    private static final DateTimeFormatter DUMP_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ConcurrentSkipListMap<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private final long startNanos = System.nanoTime();
+    private ScheduledExecutorService dumper;
+    private File dumpFile;
+
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    /** Returns every registered operation, sorted by name. */
+    public List<OperationMetrics> getOperations() {
+        return List.copyOf(operations.values());
+    }
+
+    public long getUptimeMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Renders one row per operation that has been called: calls, errors,
+     * p50, p99 and max latency in microseconds, and calls per second since
+     * the registry was created.
+     */
+    public String report() {
+        double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-24s %10s %8s %10s %10s %12s %10s%n",
+                "operation", "calls", "errors", "p50 us", "p99 us", "max us", "calls/s"));
+        for (OperationMetrics operation : operations.values()) {
+            long calls = operation.getCalls();
+            if (calls == 0) {
+                continue;
+            }
+            LatencyHistogram latency = operation.getLatency();
+            table.append(String.format(Locale.ROOT, "%-24s %10d %8d %10.1f %10.1f %12.1f %10.1f%n",
+                    operation.getName(), calls, operation.getErrors(),
+                    latency.getPercentile(50) / 1e3, latency.getPercentile(99) / 1e3,
+                    latency.getMax() / 1e3, calls / seconds));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Appends a timestamped {@link #report()} to the file every period on a
+     * daemon thread, until {@link #stopDump()}. Write errors are reported on
+     * stderr and the next dump is still attempted.
+     */
+    public synchronized void startDump(File file, long periodSeconds) {
+        cancelDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "mms-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumpFile = file;
+        dumper.scheduleAtFixedRate(() -> dump(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic dumps and appends a last report covering the time
+     * since the previous one. Does nothing if no dump is running.
+     */
+    public synchronized void stopDump() {
+        File file = dumpFile;
+        if (cancelDump()) {
+            dump(file);
+        }
+    }
+
+    private boolean cancelDump() {
+        if (dumper == null) {
+            return false;
+        }
+        // Not interrupted, so a dump being written finishes before the last one
+        dumper.shutdown();
+        try {
+            dumper.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dumper = null;
+        dumpFile = null;
+        return true;
+    }
+
+    /** Appends one timestamped report to the file. */
+    public void dump(File file) {
+        String entry = "=== " + LocalDateTime.now().format(DUMP_TIME) + " ===" + System.lineSeparator() + report();
+        try {
+            Files.writeString(file.toPath(), entry, StandardCharsets.UTF_8,
+                              StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Failed to write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mms.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call count, error count and latency histogram for one named operation.
+ *
+ * Callers take {@code System.nanoTime()} on entry, call
+ * {@link #recordError()} if the operation throws, and {@link #record(long)}
+ * with the entry time in a finally block, so every call is timed and
+ * failed calls are also counted as errors.
+ */
+public final class OperationMetrics {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Records one call that started at the given System.nanoTime(). */
+    public void record(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+}
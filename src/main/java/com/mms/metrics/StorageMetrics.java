@@ -0,0 +1,80 @@
+package com.mms.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StorageMetrics holds the {@link FileIoMetrics} of a storage backend by
+ * entity file and warns on stderr when a single save takes longer than the
+ * configured budget.
+ */
+public final class StorageMetrics {
+    private final ConcurrentSkipListMap<String, FileIoMetrics> files = new ConcurrentSkipListMap<>();
+    private final long slowSaveNanos;
+    private final LongAdder slowSaves = new LongAdder();
+
+    /**
+     * @param slowSaveMillis saves taking longer than this are logged; 0 or
+     *                       less disables the warning
+     */
+    public StorageMetrics(long slowSaveMillis) {
+        this.slowSaveNanos = slowSaveMillis > 0 ? slowSaveMillis * 1_000_000 : Long.MAX_VALUE;
+    }
+
+    public FileIoMetrics file(String name) {
+        return files.computeIfAbsent(name, FileIoMetrics::new);
+    }
+
+    /** Returns the metrics of every file, sorted by name. */
+    public List<FileIoMetrics> getFiles() {
+        return List.copyOf(files.values());
+    }
+
+    public long getSlowSaves() {
+        return slowSaves.sum();
+    }
+
+    /**
+     * Records one save call on the file and logs it if it took longer than
+     * the budget.
+     */
+    public void recordSave(FileIoMetrics file, String operation, int rows, long nanos) {
+        file.recordSave(rows, nanos);
+        if (nanos > slowSaveNanos) {
+            slowSaves.increment();
+            System.err.printf(Locale.ROOT, "⚠ Slow %s on %s (%d rows changed): %d ms, budget %d ms%n",
+                    operation, file.getName(), rows, nanos / 1_000_000, slowSaveNanos / 1_000_000);
+        }
+    }
+
+    /**
+     * Renders one row per file that has been read or written: saves, full
+     * rewrites, journal appends, rows and megabytes written and read, time
+     * spent, p99 and max save latency and write amplification.
+     */
+    public String report() {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.ROOT, "%-16s %8s %8s %8s %12s %10s %10s %9s %9s %8s %12s %10s %10s %8s%n",
+                "file", "saves", "rewrites", "appends", "rows out", "MB out", "write ms", "p99 ms", "max ms",
+                "loads", "rows in", "MB in", "read ms", "amplif."));
+        for (FileIoMetrics file : files.values()) {
+            if (file.getSaves() == 0 && file.getRewrites() == 0 && file.getLoads() == 0) {
+                continue;
+            }
+            LatencyHistogram latency = file.getSaveLatency();
+            table.append(String.format(Locale.ROOT,
+                    "%-16s %8d %8d %8d %12d %10.1f %10d %9.1f %9.1f %8d %12d %10.1f %10d %8.1f%n",
+                    file.getName(), file.getSaves(), file.getRewrites(), file.getAppends(),
+                    file.getRowsWritten(), file.getBytesWritten() / 1e6, file.getWriteNanos() / 1_000_000,
+                    latency.getPercentile(99) / 1e6, latency.getMax() / 1e6,
+                    file.getLoads(), file.getRowsRead(), file.getBytesRead() / 1e6, file.getReadNanos() / 1_000_000,
+                    file.getWriteAmplification()));
+        }
+        if (getSlowSaves() > 0) {
+            table.append("Slow saves: ").append(getSlowSaves()).append(System.lineSeparator());
+        }
+        return table.toString();
+    }
+}
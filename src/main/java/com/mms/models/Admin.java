@@ -1,5 +1,7 @@
 package com.mms.models;
 
+import java.io.PrintStream;
+
 /**
  * Admin user class - has full system access.
  */
@@ -20,21 +22,23 @@ public class Admin extends User {
     }
 
     @Override
-    public void showMenu() {
-        System.out.println("\n====== ADMIN MENU ======");
-        System.out.println("1. Register new patient");
-        System.out.println("2. Upgrade patient to registered");
-        System.out.println("3. Assign patient to clinician");
-        System.out.println("4. Add treatment type");
-        System.out.println("5. Remove treatment type");
-        System.out.println("6. Generate bill");
-        System.out.println("7. Record payment");
-        System.out.println("8. Flag non-paying patient");
-        System.out.println("9. Send notifications");
-        System.out.println("10. View patients / treatments / reports");
-        System.out.println("11. Logout");
-        System.out.println("========================");
-        System.out.print("Select option: ");
+    public void printMenu(PrintStream out) {
+        out.println("\n====== ADMIN MENU ======");
+        out.println("1. Register new patient");
+        out.println("2. Upgrade patient to registered");
+        out.println("3. Assign patient to clinician");
+        out.println("4. Add treatment type");
+        out.println("5. Remove treatment type");
+        out.println("6. Generate bill");
+        out.println("7. Record payment");
+        out.println("8. Flag non-paying patient");
+        out.println("9. Send notifications");
+        out.println("10. View patients / treatments / reports");
+        out.println("11. Import patients from file");
+        out.println("12. Run billing for all billable treatments");
+        out.println("13. Logout");
+        out.println("========================");
+        out.print("Select option: ");
     }
 
     @Override
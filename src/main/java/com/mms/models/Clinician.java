@@ -1,5 +1,7 @@
 package com.mms.models;
 
+import java.io.PrintStream;
+
 /**
  * Clinician user class - has limited access to assigned patients and treatments.
  */
@@ -31,14 +33,14 @@ public class Clinician extends User {
     }
 
     @Override
-    public void showMenu() {
-        System.out.println("\n====== CLINICIAN MENU ======");
-        System.out.println("1. View assigned patients");
-        System.out.println("2. Record treatment");
-        System.out.println("3. Update treatment status");
-        System.out.println("4. Logout");
-        System.out.println("============================");
-        System.out.print("Select option: ");
+    public void printMenu(PrintStream out) {
+        out.println("\n====== CLINICIAN MENU ======");
+        out.println("1. View assigned patients");
+        out.println("2. Record treatment");
+        out.println("3. Update treatment status");
+        out.println("4. Logout");
+        out.println("============================");
+        out.print("Select option: ");
     }
 
     @Override
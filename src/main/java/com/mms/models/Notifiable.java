@@ -1,8 +1,13 @@
 package com.mms.models;
 
+import java.io.PrintStream;
+
 /**
  * Interface for objects that can receive notifications.
  */
 public interface Notifiable {
-    void receiveNotification(Notification notification);
+    /**
+     * Shows a delivered notification on the given session stream.
+     */
+    void receiveNotification(Notification notification, PrintStream out);
 }
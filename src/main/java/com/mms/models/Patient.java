@@ -1,5 +1,7 @@
 package com.mms.models;
 
+import java.io.PrintStream;
+
 /**
  * Patient user class - can book treatments, view bills, manage notifications.
  * Implements Notifiable interface for notification system.
@@ -53,22 +55,22 @@ public class Patient extends User implements Notifiable {
     }
 
     @Override
-    public void receiveNotification(Notification notification) {
+    public void receiveNotification(Notification notification, PrintStream out) {
         if (this.optedInForPromotions || !notification.isPromotional()) {
-            System.out.println("\n[NOTIFICATION for " + this.getName() + "] " + notification.getMessage());
+            out.println("\n[NOTIFICATION for " + this.getName() + "] " + notification.getMessage());
         }
     }
 
     @Override
-    public void showMenu() {
-        System.out.println("\n====== PATIENT MENU ======");
-        System.out.println("1. Book treatment");
-        System.out.println("2. View treatment status");
-        System.out.println("3. View bills");
-        System.out.println("4. Enable/disable promotions");
-        System.out.println("5. Logout");
-        System.out.println("=========================");
-        System.out.print("Select option: ");
+    public void printMenu(PrintStream out) {
+        out.println("\n====== PATIENT MENU ======");
+        out.println("1. Book treatment");
+        out.println("2. View treatment status");
+        out.println("3. View bills");
+        out.println("4. Enable/disable promotions");
+        out.println("5. Logout");
+        out.println("=========================");
+        out.print("Select option: ");
     }
 
     @Override
@@ -1,5 +1,7 @@
 package com.mms.models;
 
+import java.io.PrintStream;
+
 /**
  * Base abstract class representing a user in the system.
  * Defines common attributes and polymorphic behavior.
@@ -75,9 +77,16 @@ public abstract class User {
 
     /**
      * Polymorphic method to be overridden by subclasses.
-     * Each user type displays its own menu.
+     * Each user type writes its own menu to the given stream.
      */
-    public abstract void showMenu();
+    public abstract void printMenu(PrintStream out);
+
+    /**
+     * Displays the menu on the console.
+     */
+    public void showMenu() {
+        printMenu(System.out);
+    }
 
     @Override
     public String toString() {
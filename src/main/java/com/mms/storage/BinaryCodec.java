@@ -0,0 +1,18 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+
+/**
+ * Writes and reads one entity type in the {@link BinaryStore} record format.
+ * Fields must be read back in exactly the order they were written.
+ *
+ * @param <T> the entity type
+ */
+public interface BinaryCodec<T> {
+    /** Tag stored in the file header so a file is never read as the wrong entity. */
+    byte getEntityTag();
+
+    void write(BinaryStore.RecordWriter out, T entity);
+
+    T read(BinaryStore.RecordReader in) throws StorageException;
+}
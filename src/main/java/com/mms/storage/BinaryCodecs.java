@@ -0,0 +1,198 @@
+package com.mms.storage;
+
+import com.mms.models.*;
+import com.mms.exceptions.StorageException;
+import java.time.LocalDateTime;
+
+/**
+ * Binary record layouts for every persisted entity type.
+ * Fields follow the same order as the CSV columns; each codec has its own
+ * entity tag so a file can only be read back as the type it was written for.
+ * Changing a layout means bumping {@link BinaryStore#VERSION}.
+ */
+public final class BinaryCodecs {
+
+    private static final TreatmentStatus[] STATUSES = TreatmentStatus.values();
+
+    private BinaryCodecs() {
+    }
+
+    public static final BinaryCodec<Admin> ADMIN = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 1;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, Admin admin) {
+            out.putString(admin.getId());
+            out.putString(admin.getName());
+            out.putString(admin.getPhone());
+            out.putString(admin.getEmail());
+            out.putString(admin.getDepartment());
+        }
+
+        @Override
+        public Admin read(BinaryStore.RecordReader in) {
+            return new Admin(in.getString(), in.getString(), in.getString(), in.getString(), "", in.getString());
+        }
+    };
+
+    public static final BinaryCodec<Clinician> CLINICIAN = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 2;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, Clinician clinician) {
+            out.putString(clinician.getId());
+            out.putString(clinician.getName());
+            out.putString(clinician.getPhone());
+            out.putString(clinician.getEmail());
+            out.putString(clinician.getSpecialization());
+            out.putInt(clinician.getMaxPatients());
+        }
+
+        @Override
+        public Clinician read(BinaryStore.RecordReader in) {
+            return new Clinician(in.getString(), in.getString(), in.getString(), in.getString(), "",
+                    in.getString(), in.getInt());
+        }
+    };
+
+    public static final BinaryCodec<Patient> PATIENT = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 3;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, Patient patient) {
+            out.putString(patient.getId());
+            out.putString(patient.getName());
+            out.putString(patient.getPhone());
+            out.putString(patient.getEmail());
+            out.putBoolean(patient.isRegistered());
+            out.putBoolean(patient.isFlagged());
+            out.putBoolean(patient.isOptedInForPromotions());
+        }
+
+        @Override
+        public Patient read(BinaryStore.RecordReader in) {
+            Patient patient = new Patient(in.getString(), in.getString(), in.getString(), in.getString(), "");
+            patient.setRegistered(in.getBoolean());
+            patient.setFlagged(in.getBoolean());
+            patient.setOptedInForPromotions(in.getBoolean());
+            return patient;
+        }
+    };
+
+    public static final BinaryCodec<Treatment> TREATMENT = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 4;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, Treatment treatment) {
+            out.putString(treatment.getTreatmentId());
+            out.putString(treatment.getPatientId());
+            out.putString(treatment.getClinicianId());
+            out.putString(treatment.getTreatmentTypeId());
+            out.putByte(treatment.getStatus().ordinal());
+            out.putTimestamp(treatment.getCreatedDate());
+            out.putString(treatment.getNotes());
+        }
+
+        @Override
+        public Treatment read(BinaryStore.RecordReader in) throws StorageException {
+            String treatmentId = in.getString();
+            String patientId = in.getString();
+            String clinicianId = in.getString();
+            Treatment treatment = new Treatment(treatmentId, patientId, in.getString());
+            treatment.setClinicianId(clinicianId);
+            int status = in.getByte();
+            if (status < 0 || status >= STATUSES.length) {
+                throw new StorageException("Invalid treatment record " + treatmentId + ": unknown status " + status);
+            }
+            treatment.setStatus(STATUSES[status]);
+            treatment.setCreatedDate(in.getTimestamp());
+            treatment.setNotes(in.getString());
+            return treatment;
+        }
+    };
+
+    public static final BinaryCodec<TreatmentType> TREATMENT_TYPE = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 5;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, TreatmentType type) {
+            out.putString(type.getId());
+            out.putString(type.getName());
+            out.putDouble(type.getPrice());
+        }
+
+        @Override
+        public TreatmentType read(BinaryStore.RecordReader in) {
+            return new TreatmentType(in.getString(), in.getString(), in.getDouble());
+        }
+    };
+
+    public static final BinaryCodec<Bill> BILL = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 6;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, Bill bill) {
+            out.putString(bill.getBillId());
+            out.putString(bill.getPatientId());
+            out.putString(bill.getTreatmentId());
+            out.putDouble(bill.getTotalAmount());
+            out.putBoolean(bill.isPaid());
+            out.putTimestamp(bill.getCreatedDate());
+            out.putTimestamp(bill.getPaidDate());
+        }
+
+        @Override
+        public Bill read(BinaryStore.RecordReader in) {
+            Bill bill = new Bill(in.getString(), in.getString(), in.getString(), in.getDouble());
+            bill.setPaid(in.getBoolean());
+            bill.setCreatedDate(in.getTimestamp());
+            bill.setPaidDate(in.getTimestamp());
+            return bill;
+        }
+    };
+
+    public static final BinaryCodec<Notification> NOTIFICATION = new BinaryCodec<>() {
+        @Override
+        public byte getEntityTag() {
+            return 7;
+        }
+
+        @Override
+        public void write(BinaryStore.RecordWriter out, Notification notification) {
+            out.putString(notification.getNotificationId());
+            out.putString(notification.getPatientId());
+            out.putString(notification.getMessage());
+            out.putTimestamp(notification.getTimestamp());
+            out.putBoolean(notification.isPromotional());
+        }
+
+        @Override
+        public Notification read(BinaryStore.RecordReader in) {
+            String notificationId = in.getString();
+            String patientId = in.getString();
+            String message = in.getString();
+            LocalDateTime timestamp = in.getTimestamp();
+            Notification notification = new Notification(notificationId, patientId, message, in.getBoolean());
+            notification.setTimestamp(timestamp);
+            return notification;
+        }
+    };
+}
@@ -0,0 +1,397 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * BinaryStore reads and writes entity snapshots in a compact binary format.
+ *
+ * File layout (big-endian):
+ *   header  (32 bytes): magic "MMSB", version (short), entity tag (byte),
+ *                       reserved (byte), record count (long), written at
+ *                       epoch millis (long), reserved (8 bytes)
+ *   records           : length (int) followed by that many payload bytes
+ *
+ * Payload fields are written in a fixed order per entity by a
+ * {@link BinaryCodec}: strings as a length (int, -1 for null) plus UTF-8
+ * bytes, timestamps as epoch millis (Long.MIN_VALUE for null), booleans
+ * and enum ordinals as single bytes. The field layout is fixed but records
+ * are not fixed-size: strings take only their own length instead of a
+ * padded maximum, which keeps files small and names uncut. The record
+ * length prefix lets a reader check that it decoded exactly one record.
+ *
+ * Files are written through a FileChannel and read through memory-mapped
+ * windows, so loading is bounded by disk bandwidth rather than parsing.
+ * A cursor unmaps each window as soon as it moves past it and the last
+ * one when it is closed, rather than leaving them to the garbage
+ * collector.
+ */
+public final class BinaryStore {
+    public static final int MAGIC = 0x4D4D5342;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+
+    private static final int COUNT_OFFSET = 8;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long MAP_WINDOW_SIZE = 1L << 28;
+
+    // Unsafe.invokeCleaner, the only way to unmap a buffer before it is
+    // collected; null where the JDK does not offer it
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // mappings are released by the garbage collector instead
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private BinaryStore() {
+    }
+
+    /**
+     * Writes all entities to the file, replacing its contents.
+     */
+    public static <T> void write(File file, BinaryCodec<T> codec, List<T> entities) throws StorageException {
+        write(file, codec, entities.iterator());
+    }
+
+    /**
+     * Writes entities to the file as the iterator yields them, replacing its
+     * contents. The record count is filled into the header once the
+     * iterator is exhausted, so the entities never need to be held at once.
+     *
+     * @return the number of records written
+     */
+    public static <T> long write(File file, BinaryCodec<T> codec, Iterator<T> entities) throws StorageException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.put(codec.getEntityTag());
+            buffer.put((byte) 0);
+            buffer.putLong(0L);
+            buffer.putLong(System.currentTimeMillis());
+            buffer.putLong(0L);
+
+            RecordWriter record = new RecordWriter();
+            long count = 0;
+            while (entities.hasNext()) {
+                T entity = entities.next();
+                count++;
+                record.reset();
+                codec.write(record, entity);
+                int length = record.buffer.position();
+                if (buffer.remaining() < 4 + length) {
+                    drain(channel, buffer);
+                    if (buffer.remaining() < 4 + length) {
+                        buffer = ByteBuffer.allocateDirect(4 + length);
+                    }
+                }
+                buffer.putInt(length);
+                buffer.put(record.buffer.array(), 0, length);
+            }
+            drain(channel, buffer);
+            ByteBuffer header = ByteBuffer.allocate(8).putLong(count).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, COUNT_OFFSET + header.position());
+            }
+            return count;
+        } catch (IOException e) {
+            throw new StorageException("Failed to write " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads all entities from the file.
+     */
+    public static <T> List<T> read(File file, BinaryCodec<T> codec) throws StorageException {
+        try (Cursor<T> cursor = open(file, codec)) {
+            List<T> entities = new ArrayList<>((int) cursor.count);
+            T entity;
+            while ((entity = cursor.next()) != null) {
+                entities.add(entity);
+            }
+            return entities;
+        }
+    }
+
+    /**
+     * Opens a cursor that decodes one record at a time from mapped windows.
+     */
+    public static <T> Cursor<T> open(File file, BinaryCodec<T> codec) throws StorageException {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            return new Cursor<>(file, channel, codec);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new StorageException("Failed to read " + file.getName() + ": " + e.getMessage(), e);
+        } catch (StorageException e) {
+            closeQuietly(channel);
+            throw e;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already failing
+            }
+        }
+    }
+
+    /**
+     * Iterates over the records of one binary file.
+     */
+    public static final class Cursor<T> implements EntityCursor<T> {
+        private final File file;
+        private final FileChannel channel;
+        private final BinaryCodec<T> codec;
+        private final long size;
+        private final long count;
+        private final RecordReader record = new RecordReader();
+        private long windowStart = HEADER_SIZE;
+        private MappedByteBuffer window;
+        private long index;
+
+        private Cursor(File file, FileChannel channel, BinaryCodec<T> codec) throws IOException, StorageException {
+            this.file = file;
+            this.channel = channel;
+            this.codec = codec;
+            this.size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new StorageException("Invalid binary file " + file.getName() + ": missing header");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                channel.read(header, header.position());
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new StorageException("Invalid binary file " + file.getName() + ": bad magic number");
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new StorageException("Unsupported binary file version " + version + " in " + file.getName());
+            }
+            byte tag = header.get();
+            if (tag != codec.getEntityTag()) {
+                throw new StorageException("Binary file " + file.getName() + " holds entity tag " + tag
+                        + ", expected " + codec.getEntityTag());
+            }
+            header.get();
+            this.count = header.getLong();
+            if (count < 0 || count > Integer.MAX_VALUE) {
+                throw new StorageException("Invalid record count in " + file.getName() + ": " + count);
+            }
+            this.window = map(channel, windowStart, size);
+        }
+
+        @Override
+        public T next() throws StorageException {
+            if (index == count) {
+                return null;
+            }
+            if (window == null) {
+                throw new StorageException("Cursor on " + file.getName() + " is closed");
+            }
+            try {
+                if (window.remaining() < 4 || window.remaining() < 4 + window.getInt(window.position())) {
+                    // Record straddles the window boundary; remap starting at the record
+                    windowStart += window.position();
+                    MappedByteBuffer previous = window;
+                    window = null;
+                    unmap(previous);
+                    window = map(channel, windowStart, size);
+                    if (window.remaining() < 4 || window.remaining() < 4 + window.getInt(0)) {
+                        throw new StorageException("Truncated record " + index + " in " + file.getName());
+                    }
+                }
+                int length = window.getInt();
+                int end = window.position() + length;
+                record.buffer = window;
+                T entity = codec.read(record);
+                if (window.position() != end) {
+                    throw new StorageException("Record " + index + " in " + file.getName() + " has "
+                            + (end - window.position()) + " unread bytes");
+                }
+                index++;
+                return entity;
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new StorageException("Corrupt binary file " + file.getName(), e);
+            } catch (IOException e) {
+                throw new StorageException("Failed to read " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() throws StorageException {
+            if (window != null) {
+                MappedByteBuffer last = window;
+                window = null;
+                record.buffer = null;
+                unmap(last);
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new StorageException("Failed to close " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_WINDOW_SIZE, size - start));
+    }
+
+    /**
+     * Releases a mapping now. The buffer must not be used afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // left to the garbage collector
+        }
+    }
+
+    /**
+     * Accumulates the payload of one record.
+     */
+    public static final class RecordWriter {
+        private ByteBuffer buffer = ByteBuffer.allocate(512);
+
+        private void reset() {
+            buffer.clear();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+
+        public void putString(String value) {
+            if (value == null) {
+                ensure(4);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        public void putTimestamp(LocalDateTime value) {
+            ensure(8);
+            buffer.putLong(value == null ? Long.MIN_VALUE : value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+
+        public void putBoolean(boolean value) {
+            ensure(1);
+            buffer.put(value ? (byte) 1 : (byte) 0);
+        }
+
+        public void putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        public void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        public void putDouble(double value) {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+    }
+
+    /**
+     * Reads the payload of one record from the mapped file.
+     */
+    public static final class RecordReader {
+        private ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        public String getString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        public LocalDateTime getTimestamp() {
+            long millis = buffer.getLong();
+            if (millis == Long.MIN_VALUE) {
+                return null;
+            }
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        }
+
+        public boolean getBoolean() {
+            return buffer.get() != 0;
+        }
+
+        public int getByte() {
+            return buffer.get();
+        }
+
+        public int getInt() {
+            return buffer.getInt();
+        }
+
+        public double getDouble() {
+            return buffer.getDouble();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.mms.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * CsvParser reads RFC 4180 CSV one record at a time.
+ *
+ * Characters are scanned straight out of a fixed read buffer and the
+ * current record's fields are kept as slices of one reusable char array,
+ * so parsing a row allocates nothing. Typed getters decode booleans,
+ * numbers, enums and timestamps directly from those slices; only
+ * {@link #getString(int)} creates a String.
+ *
+ * Quoted fields may contain commas, line breaks and doubled quotes.
+ * Blank lines are skipped. Malformed values make the getters throw
+ * IllegalArgumentException or DateTimeException.
+ */
+public class CsvParser implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private char[] record = new char[256];
+    private int recordLength;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int fieldCount;
+    private long recordNumber;
+
+    public CsvParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advances to the next record.
+     *
+     * @return false once the input is exhausted
+     */
+    public boolean next() throws IOException {
+        do {
+            if (!fill()) {
+                fieldCount = 0;
+                return false;
+            }
+            parseRecord();
+        } while (fieldCount == 1 && ends[0] == starts[0]);
+        recordNumber++;
+        return true;
+    }
+
+    /** Number of records returned so far, counting the header. */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isEmpty(int field) {
+        return length(field) == 0;
+    }
+
+    public String getString(int field) {
+        return new String(record, start(field), length(field));
+    }
+
+    /** Same rule as Boolean.parseBoolean: true only for "true" in any case. */
+    public boolean getBoolean(int field) {
+        int start = start(field);
+        if (length(field) != 4) {
+            return false;
+        }
+        return (record[start] | 0x20) == 't' && (record[start + 1] | 0x20) == 'r'
+                && (record[start + 2] | 0x20) == 'u' && (record[start + 3] | 0x20) == 'e';
+    }
+
+    public int getInt(int field) {
+        int start = start(field);
+        int end = start + length(field);
+        if (start == end) {
+            throw new NumberFormatException("Empty integer in field " + field + " of record " + recordNumber);
+        }
+        boolean negative = record[start] == '-';
+        int i = negative || record[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            throw invalidNumber(field);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalidNumber(field);
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw invalidNumber(field);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw invalidNumber(field);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes plain decimals such as "150.25" without allocating. Values
+     * with more than 15 significant digits or an exponent go through
+     * Double.parseDouble so rounding always matches it.
+     */
+    public double getDouble(int field) {
+        int start = start(field);
+        int end = start + length(field);
+        boolean negative = start < end && record[start] == '-';
+        int i = negative || (start < end && record[start] == '+') ? start + 1 : start;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        for (; i < end; i++) {
+            char c = record[i];
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (mantissa == 0 && c == '0') {
+                    // leading zeros are not significant
+                } else if (++digits > 15) {
+                    return slowDouble(field);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowDouble(field);
+            }
+        }
+        if (!seenDigit || fractionDigits >= POWERS_OF_TEN.length) {
+            return slowDouble(field);
+        }
+        // Both operands are exact doubles, so one division rounds correctly
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private double slowDouble(int field) {
+        return Double.parseDouble(getString(field));
+    }
+
+    public <E extends Enum<E>> E getEnum(int field, E[] values) {
+        int start = start(field);
+        int length = length(field);
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == length && matches(name, start)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value '" + getString(field) + "' in field " + field
+                + " of record " + recordNumber);
+    }
+
+    private boolean matches(String name, int start) {
+        for (int i = 0; i < name.length(); i++) {
+            if (record[start + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes "yyyy-MM-dd HH:mm:ss" (a 'T' separator is also accepted).
+     *
+     * @return null for an empty field
+     */
+    public LocalDateTime getTimestamp(int field) {
+        int start = start(field);
+        int length = length(field);
+        if (length == 0) {
+            return null;
+        }
+        char[] r = record;
+        if (length != 19 || r[start + 4] != '-' || r[start + 7] != '-'
+                || (r[start + 10] != ' ' && r[start + 10] != 'T')
+                || r[start + 13] != ':' || r[start + 16] != ':') {
+            throw new IllegalArgumentException("Invalid timestamp '" + getString(field) + "' in field " + field
+                    + " of record " + recordNumber);
+        }
+        return LocalDateTime.of(digits(field, start, 4), digits(field, start + 5, 2), digits(field, start + 8, 2),
+                digits(field, start + 11, 2), digits(field, start + 14, 2), digits(field, start + 17, 2));
+    }
+
+    private int digits(int field, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid timestamp '" + getString(field) + "' in field "
+                        + field + " of record " + recordNumber);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private NumberFormatException invalidNumber(int field) {
+        return new NumberFormatException("Invalid number '" + getString(field) + "' in field " + field
+                + " of record " + recordNumber);
+    }
+
+    private int start(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IllegalArgumentException("Record " + recordNumber + " has no field " + field);
+        }
+        return starts[field];
+    }
+
+    private int length(int field) {
+        return ends[field] - start(field);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Quotes a value for writing if it contains a comma, quote or line break.
+     * Null is written as an empty field.
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    // ===== SCANNER =====
+
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    private void parseRecord() throws IOException {
+        fieldCount = 0;
+        recordLength = 0;
+        while (true) {
+            int fieldStart = recordLength;
+            if (fill() && buffer[position] == '"') {
+                position++;
+                scanQuoted();
+            }
+            int terminator = scanUnquoted();
+            addField(fieldStart);
+            if (terminator != ',') {
+                if (terminator == '\r' && fill() && buffer[position] == '\n') {
+                    position++;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copies a quoted section up to and including its closing quote.
+     */
+    private void scanQuoted() throws IOException {
+        while (fill()) {
+            int from = position;
+            while (position < limit && buffer[position] != '"') {
+                position++;
+            }
+            append(from, position);
+            if (position == limit) {
+                continue;
+            }
+            position++;
+            if (fill() && buffer[position] == '"') {
+                appendChar('"');
+                position++;
+            } else {
+                return;
+            }
+        }
+        // unterminated quote at end of input: keep what was read
+    }
+
+    /**
+     * Copies characters up to the next delimiter and consumes it.
+     *
+     * @return ',', '\r', '\n', or -1 at end of input
+     */
+    private int scanUnquoted() throws IOException {
+        while (fill()) {
+            int from = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == ',' || c == '\n' || c == '\r') {
+                    append(from, position);
+                    position++;
+                    return c;
+                }
+                position++;
+            }
+            append(from, position);
+        }
+        return -1;
+    }
+
+    private void append(int from, int to) {
+        int count = to - from;
+        if (count == 0) {
+            return;
+        }
+        ensureRecordCapacity(count);
+        System.arraycopy(buffer, from, record, recordLength, count);
+        recordLength += count;
+    }
+
+    private void appendChar(char c) {
+        ensureRecordCapacity(1);
+        record[recordLength++] = c;
+    }
+
+    private void ensureRecordCapacity(int extra) {
+        if (recordLength + extra > record.length) {
+            record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + extra));
+        }
+    }
+
+    private void addField(int fieldStart) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = fieldStart;
+        ends[fieldCount] = recordLength;
+        fieldCount++;
+    }
+}
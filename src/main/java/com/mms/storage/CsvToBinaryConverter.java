@@ -0,0 +1,26 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import java.io.File;
+
+/**
+ * One-shot migration of the CSV snapshots in the storage directory to the
+ * binary format. Afterwards start the system with -Dmms.storage.engine=binary.
+ *
+ * Run with:
+ *   java -cp target/classes com.mms.storage.CsvToBinaryConverter
+ */
+public class CsvToBinaryConverter {
+    public static void main(String[] args) {
+        try {
+            long start = System.nanoTime();
+            int records = new StorageManager(new File(StorageConfig.getDirectory()), StorageEngine.CSV)
+                    .convertCsvToBinary();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("✓ Converted " + records + " records to binary in " + millis + " ms");
+        } catch (StorageException e) {
+            System.err.println("✗ Conversion failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
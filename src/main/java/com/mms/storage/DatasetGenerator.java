@@ -0,0 +1,355 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import com.mms.models.*;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates a synthetic dataset of a chosen size for capacity testing.
+ *
+ * Every patient is generated from its own random stream derived from the
+ * seed and the patient's index, so the same seed and size always produce
+ * the same records, and each entity file can be written independently,
+ * straight from a stream, without holding the dataset in memory. Per
+ * patient there are 0 to 6 treatments spread over every TreatmentStatus,
+ * a bill for each billed treatment (paid once the treatment is PAID), and
+ * 0 to 3 notifications. Patients are assigned to clinicians in blocks of
+ * {@link #PATIENTS_PER_CLINICIAN}, which never exceeds a clinician's
+ * maxPatients. Some assessed and completed treatments are left unbilled
+ * for a billing run to pick up.
+ *
+ * Run with:
+ *   java -cp target/classes com.mms.storage.DatasetGenerator patients [seed] [directory] [csv|binary]
+ *
+ * The directory defaults to {@link StorageConfig#DIRECTORY} and the engine
+ * to {@link StorageConfig#ENGINE}. Existing files in it are replaced.
+ */
+public final class DatasetGenerator {
+    public static final int PATIENTS_PER_CLINICIAN = 25;
+    public static final int MAX_TREATMENTS_PER_PATIENT = 6;
+    public static final int MAX_NOTIFICATIONS_PER_PATIENT = 3;
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 8, 0);
+    private static final long SPAN_SECONDS = 2L * 365 * 24 * 3600;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long TREATMENT_SALT = 1;
+    private static final long NOTIFICATION_SALT = 2;
+    private static final long CLINICIAN_SALT = 3;
+
+    private static final String[] FIRST_NAMES = {
+        "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth",
+        "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah", "Charles", "Karen",
+        "Amara", "Wei", "Priya", "Mateo", "Aisha", "Kenji", "Olga", "Tomasz", "Fatima", "Diego"
+    };
+    private static final String[] LAST_NAMES = {
+        "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+        "Hernandez", "Lopez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee",
+        "Okafor", "Chen", "Patel", "Nowak", "Kowalski", "Tanaka", "Ivanova", "O'Brien", "Nguyen", "Haddad"
+    };
+    private static final String[] SPECIALIZATIONS = {
+        "Cardiology", "Dermatology", "General Practice", "Neurology", "Oncology", "Orthopaedics",
+        "Paediatrics", "Physiotherapy", "Psychiatry", "Radiology"
+    };
+    private static final TreatmentType[] TREATMENT_TYPES = {
+        new TreatmentType("TRT001", "Consultation", 100.0),
+        new TreatmentType("TRT002", "Surgery", 5000.0),
+        new TreatmentType("TRT003", "Therapy", 200.0),
+        new TreatmentType("TRT004", "Blood Test", 45.5),
+        new TreatmentType("TRT005", "X-Ray", 120.0),
+        new TreatmentType("TRT006", "MRI Scan", 850.0),
+        new TreatmentType("TRT007", "Vaccination", 35.0),
+        new TreatmentType("TRT008", "Physiotherapy Session", 75.0),
+        new TreatmentType("TRT009", "Dental Check-up", 60.0),
+        new TreatmentType("TRT010", "Minor Procedure", 450.0)
+    };
+    private static final String[] NOTES = {
+        "", "", "", "Follow-up in two weeks", "Patient reports mild pain", "Referred by GP",
+        "Fasting required, see leaflet", "Results pending"
+    };
+    private static final String[] REMINDERS = {
+        "Reminder: your appointment is tomorrow",
+        "Your test results are ready to view",
+        "Your bill is due, please pay at your earliest convenience",
+        "Please confirm your contact details"
+    };
+    private static final String[] PROMOTIONS = {
+        "Flu vaccinations now available, book today",
+        "Spring health check: 20% off, \"limited\" slots",
+        "New physiotherapy clinic opening next month"
+    };
+    /** Cumulative weights over TreatmentStatus.values(), out of 100. */
+    private static final int[] STATUS_WEIGHTS = { 15, 30, 50, 70, 100 };
+    private static final TreatmentStatus[] STATUSES = TreatmentStatus.values();
+
+    private final long seed;
+    private final int patientCount;
+
+    public DatasetGenerator(long seed, int patientCount) {
+        if (patientCount < 0) {
+            throw new IllegalArgumentException("Patient count must not be negative: " + patientCount);
+        }
+        this.seed = seed;
+        this.patientCount = patientCount;
+    }
+
+    public int getPatientCount() {
+        return patientCount;
+    }
+
+    public int getClinicianCount() {
+        return (patientCount + PATIENTS_PER_CLINICIAN - 1) / PATIENTS_PER_CLINICIAN;
+    }
+
+    public Stream<Admin> admins() {
+        return Stream.of(new Admin("ADM001", "Dr. Admin", "555-0001", "admin@mms.com", "admin123", "Management"));
+    }
+
+    public Stream<TreatmentType> treatmentTypes() {
+        return Stream.of(TREATMENT_TYPES)
+                .map(type -> new TreatmentType(type.getId(), type.getName(), type.getPrice()));
+    }
+
+    public Stream<Clinician> clinicians() {
+        return IntStream.range(0, getClinicianCount()).mapToObj(this::clinician);
+    }
+
+    public Stream<Patient> patients() {
+        return IntStream.range(0, patientCount).mapToObj(this::patient);
+    }
+
+    public Stream<Treatment> treatments() {
+        return IntStream.range(0, patientCount).boxed().flatMap(index -> treatmentsOf(index).stream());
+    }
+
+    public Stream<Bill> bills() {
+        return IntStream.range(0, patientCount).boxed().flatMap(this::billsOf);
+    }
+
+    public Stream<Notification> notifications() {
+        return IntStream.range(0, patientCount).boxed().flatMap(this::notificationsOf);
+    }
+
+    /**
+     * Writes the whole dataset to the backend, one entity type per thread,
+     * replacing whatever it held.
+     *
+     * @return the number of records written
+     */
+    public long generate(StorageBackend backend) throws StorageException {
+        List<Future<Long>> writes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(7)) {
+            writes.add(executor.submit(() -> write(backend.admins(), admins())));
+            writes.add(executor.submit(() -> write(backend.treatmentTypes(), treatmentTypes())));
+            writes.add(executor.submit(() -> write(backend.clinicians(), clinicians())));
+            writes.add(executor.submit(() -> write(backend.patients(), patients())));
+            writes.add(executor.submit(() -> write(backend.treatments(), treatments())));
+            writes.add(executor.submit(() -> write(backend.bills(), bills())));
+            writes.add(executor.submit(() -> write(backend.notifications(), notifications())));
+        }
+        long records = 0;
+        for (Future<Long> write : writes) {
+            try {
+                records += write.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof StorageException storageException) {
+                    throw storageException;
+                }
+                throw new StorageException("Dataset generation failed: " + e.getCause(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageException("Dataset generation interrupted", e);
+            }
+        }
+        return records;
+    }
+
+    private static <T> long write(Repository<T> repository, Stream<T> entities) throws StorageException {
+        long[] count = new long[1];
+        try (Stream<T> counted = entities.peek(entity -> count[0]++)) {
+            repository.saveAll(counted);
+        }
+        return count[0];
+    }
+
+    // ===== ENTITIES =====
+
+    private Clinician clinician(int index) {
+        SplittableRandom random = random(index, CLINICIAN_SALT);
+        String first = pick(random, FIRST_NAMES);
+        String last = pick(random, LAST_NAMES);
+        String id = clinicianId(index);
+        return new Clinician(id, "Dr. " + first + " " + last, phone(random),
+                             email(first, last, id), "clinic123", pick(random, SPECIALIZATIONS),
+                             PATIENTS_PER_CLINICIAN + random.nextInt(2 * PATIENTS_PER_CLINICIAN));
+    }
+
+    private Patient patient(int index) {
+        SplittableRandom random = random(index, 0);
+        String first = pick(random, FIRST_NAMES);
+        String last = pick(random, LAST_NAMES);
+        String id = patientId(index);
+        Patient patient = new Patient(id, first + " " + last, phone(random), email(first, last, id), "patient123");
+        patient.setRegistered(random.nextInt(100) < 70);
+        patient.setFlagged(random.nextInt(100) < 3);
+        patient.setOptedInForPromotions(random.nextInt(100) < 60);
+        return patient;
+    }
+
+    private List<Treatment> treatmentsOf(int index) {
+        SplittableRandom random = random(index, TREATMENT_SALT);
+        int count = random.nextInt(MAX_TREATMENTS_PER_PATIENT + 1);
+        List<Treatment> treatments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            TreatmentStatus status = status(random.nextInt(100));
+            Treatment treatment = new Treatment("TRE" + serial(index, i, MAX_TREATMENTS_PER_PATIENT),
+                                                patientId(index), pick(random, TREATMENT_TYPES).getId());
+            treatment.setStatus(status);
+            if (status != TreatmentStatus.NEW_TREATMENT) {
+                treatment.setClinicianId(clinicianId(index / PATIENTS_PER_CLINICIAN));
+            }
+            treatment.setCreatedDate(timestamp(random));
+            treatment.setNotes(pick(random, NOTES));
+            treatments.add(treatment);
+        }
+        return treatments;
+    }
+
+    private Stream<Bill> billsOf(int index) {
+        List<Treatment> treatments = treatmentsOf(index);
+        List<Bill> bills = new ArrayList<>(treatments.size());
+        for (int i = 0; i < treatments.size(); i++) {
+            long serial = serial(index, i, MAX_TREATMENTS_PER_PATIENT);
+            if (isBilled(treatments.get(i), serial)) {
+                bills.add(billOf(treatments.get(i), serial));
+            }
+        }
+        return bills.stream();
+    }
+
+    /** Completed treatments are billed every other serial; the rest await a billing run. */
+    private static boolean isBilled(Treatment treatment, long serial) {
+        return switch (treatment.getStatus()) {
+            case BILL_GENERATED, PAID -> true;
+            case COMPLETED -> serial % 2 == 0;
+            default -> false;
+        };
+    }
+
+    private Bill billOf(Treatment treatment, long serial) {
+        Bill bill = new Bill("BILL" + serial, treatment.getPatientId(), treatment.getTreatmentId(),
+                             price(treatment.getTreatmentTypeId()));
+        LocalDateTime created = treatment.getCreatedDate().plusDays(1);
+        bill.setCreatedDate(created);
+        if (treatment.getStatus() == TreatmentStatus.PAID) {
+            bill.setPaid(true);
+            bill.setPaidDate(created.plusDays(1 + serial % 30));
+        }
+        return bill;
+    }
+
+    private Stream<Notification> notificationsOf(int index) {
+        SplittableRandom random = random(index, NOTIFICATION_SALT);
+        int count = random.nextInt(MAX_NOTIFICATIONS_PER_PATIENT + 1);
+        List<Notification> notifications = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean promotional = random.nextInt(100) < 40;
+            Notification notification = new Notification(
+                    "NOT" + serial(index, i, MAX_NOTIFICATIONS_PER_PATIENT), patientId(index),
+                    promotional ? pick(random, PROMOTIONS) : pick(random, REMINDERS), promotional);
+            notification.setTimestamp(timestamp(random));
+            notifications.add(notification);
+        }
+        return notifications.stream();
+    }
+
+    // ===== HELPERS =====
+
+    /** A random stream that depends only on the seed, the record index and the salt. */
+    private SplittableRandom random(long index, long salt) {
+        return new SplittableRandom((seed * GOLDEN_GAMMA + index) * GOLDEN_GAMMA + salt);
+    }
+
+    private static String patientId(int index) {
+        return "PAT" + (index + 1);
+    }
+
+    private static String clinicianId(int index) {
+        return "CLI" + (index + 1);
+    }
+
+    /** Unique number for the i-th of up to max child records of a patient. */
+    private static long serial(int index, int i, int max) {
+        return (long) index * max + i + 1;
+    }
+
+    private static TreatmentStatus status(int roll) {
+        int i = 0;
+        while (roll >= STATUS_WEIGHTS[i]) {
+            i++;
+        }
+        return STATUSES[i];
+    }
+
+    private static double price(String typeId) {
+        return TREATMENT_TYPES[Integer.parseInt(typeId.substring(3)) - 1].getPrice();
+    }
+
+    private static LocalDateTime timestamp(SplittableRandom random) {
+        return EPOCH.plusSeconds(random.nextLong(SPAN_SECONDS));
+    }
+
+    private static String phone(SplittableRandom random) {
+        String digits = Integer.toString(random.nextInt(10_000_000));
+        return "555-" + "0000000".substring(digits.length()) + digits;
+    }
+
+    private static String email(String first, String last, String id) {
+        return first.toLowerCase(Locale.ROOT) + "." + last.replace("'", "").toLowerCase(Locale.ROOT)
+               + "." + id.toLowerCase(Locale.ROOT) + "@example.com";
+    }
+
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: DatasetGenerator patients [seed] [directory] [csv|binary]");
+            System.exit(2);
+        }
+        try {
+            int patients = Integer.parseInt(args[0].replace("_", ""));
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+            File directory = new File(args.length > 2 ? args[2] : StorageConfig.getDirectory());
+            StorageEngine engine = args.length > 3
+                    ? StorageEngine.valueOf(args[3].toUpperCase(Locale.ROOT))
+                    : StorageConfig.getEngine();
+
+            long start = System.nanoTime();
+            long records = new DatasetGenerator(seed, patients).generate(new StorageManager(directory, engine));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long bytes = sizeOf(directory);
+            System.out.printf(Locale.ROOT, "✓ Generated %d records for %d patients in %s in %.1f s (%.0f MB/s)%n",
+                    records, patients, directory, seconds, bytes / 1e6 / seconds);
+        } catch (StorageException | IllegalArgumentException e) {
+            System.err.println("✗ Generation failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static long sizeOf(File directory) {
+        File[] files = directory.listFiles(File::isFile);
+        return files == null ? 0 : Stream.of(files).mapToLong(File::length).sum();
+    }
+}
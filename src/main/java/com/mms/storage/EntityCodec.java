@@ -0,0 +1,17 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+
+/**
+ * Converts an entity to and from a flat array of string fields.
+ * Used by the journal to write one record per changed entity.
+ *
+ * @param <T> the entity type
+ */
+public interface EntityCodec<T> {
+    String getId(T entity);
+
+    String[] encode(T entity);
+
+    T decode(String[] fields) throws StorageException;
+}
@@ -0,0 +1,215 @@
+package com.mms.storage;
+
+import com.mms.models.*;
+import com.mms.exceptions.StorageException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+/**
+ * Field codecs for every persisted entity type.
+ * Columns follow the CSV layouts in StorageManager; timestamps are written
+ * in ISO-8601 so they survive a round trip without losing precision.
+ */
+public final class EntityCodecs {
+
+    private EntityCodecs() {
+    }
+
+    public static final EntityCodec<Admin> ADMIN = new EntityCodec<>() {
+        @Override
+        public String getId(Admin admin) {
+            return admin.getId();
+        }
+
+        @Override
+        public String[] encode(Admin admin) {
+            return new String[] {
+                    admin.getId(), admin.getName(), admin.getPhone(), admin.getEmail(), admin.getDepartment()
+            };
+        }
+
+        @Override
+        public Admin decode(String[] fields) throws StorageException {
+            requireFields(fields, 5, "admin");
+            return new Admin(fields[0], fields[1], fields[2], fields[3], "", fields[4]);
+        }
+    };
+
+    public static final EntityCodec<Clinician> CLINICIAN = new EntityCodec<>() {
+        @Override
+        public String getId(Clinician clinician) {
+            return clinician.getId();
+        }
+
+        @Override
+        public String[] encode(Clinician clinician) {
+            return new String[] {
+                    clinician.getId(), clinician.getName(), clinician.getPhone(), clinician.getEmail(),
+                    clinician.getSpecialization(), String.valueOf(clinician.getMaxPatients())
+            };
+        }
+
+        @Override
+        public Clinician decode(String[] fields) throws StorageException {
+            requireFields(fields, 6, "clinician");
+            try {
+                return new Clinician(fields[0], fields[1], fields[2], fields[3], "", fields[4],
+                        Integer.parseInt(fields[5]));
+            } catch (NumberFormatException e) {
+                throw new StorageException("Invalid clinician record: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    public static final EntityCodec<Patient> PATIENT = new EntityCodec<>() {
+        @Override
+        public String getId(Patient patient) {
+            return patient.getId();
+        }
+
+        @Override
+        public String[] encode(Patient patient) {
+            return new String[] {
+                    patient.getId(), patient.getName(), patient.getPhone(), patient.getEmail(),
+                    String.valueOf(patient.isRegistered()), String.valueOf(patient.isFlagged()),
+                    String.valueOf(patient.isOptedInForPromotions())
+            };
+        }
+
+        @Override
+        public Patient decode(String[] fields) throws StorageException {
+            requireFields(fields, 7, "patient");
+            Patient patient = new Patient(fields[0], fields[1], fields[2], fields[3], "");
+            patient.setRegistered(Boolean.parseBoolean(fields[4]));
+            patient.setFlagged(Boolean.parseBoolean(fields[5]));
+            patient.setOptedInForPromotions(Boolean.parseBoolean(fields[6]));
+            return patient;
+        }
+    };
+
+    public static final EntityCodec<Treatment> TREATMENT = new EntityCodec<>() {
+        @Override
+        public String getId(Treatment treatment) {
+            return treatment.getTreatmentId();
+        }
+
+        @Override
+        public String[] encode(Treatment treatment) {
+            return new String[] {
+                    treatment.getTreatmentId(), treatment.getPatientId(), treatment.getClinicianId(),
+                    treatment.getTreatmentTypeId(), treatment.getStatus().name(),
+                    formatDate(treatment.getCreatedDate()), treatment.getNotes()
+            };
+        }
+
+        @Override
+        public Treatment decode(String[] fields) throws StorageException {
+            requireFields(fields, 7, "treatment");
+            try {
+                Treatment treatment = new Treatment(fields[0], fields[1], fields[3]);
+                treatment.setClinicianId(fields[2]);
+                treatment.setStatus(TreatmentStatus.valueOf(fields[4]));
+                treatment.setCreatedDate(parseDate(fields[5]));
+                treatment.setNotes(fields[6]);
+                return treatment;
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new StorageException("Invalid treatment record: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    public static final EntityCodec<TreatmentType> TREATMENT_TYPE = new EntityCodec<>() {
+        @Override
+        public String getId(TreatmentType type) {
+            return type.getId();
+        }
+
+        @Override
+        public String[] encode(TreatmentType type) {
+            return new String[] { type.getId(), type.getName(), String.valueOf(type.getPrice()) };
+        }
+
+        @Override
+        public TreatmentType decode(String[] fields) throws StorageException {
+            requireFields(fields, 3, "treatment type");
+            try {
+                return new TreatmentType(fields[0], fields[1], Double.parseDouble(fields[2]));
+            } catch (NumberFormatException e) {
+                throw new StorageException("Invalid treatment type record: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    public static final EntityCodec<Bill> BILL = new EntityCodec<>() {
+        @Override
+        public String getId(Bill bill) {
+            return bill.getBillId();
+        }
+
+        @Override
+        public String[] encode(Bill bill) {
+            return new String[] {
+                    bill.getBillId(), bill.getPatientId(), bill.getTreatmentId(),
+                    String.valueOf(bill.getTotalAmount()), String.valueOf(bill.isPaid()),
+                    formatDate(bill.getCreatedDate()), formatDate(bill.getPaidDate())
+            };
+        }
+
+        @Override
+        public Bill decode(String[] fields) throws StorageException {
+            requireFields(fields, 7, "bill");
+            try {
+                Bill bill = new Bill(fields[0], fields[1], fields[2], Double.parseDouble(fields[3]));
+                bill.setPaid(Boolean.parseBoolean(fields[4]));
+                bill.setCreatedDate(parseDate(fields[5]));
+                bill.setPaidDate(parseDate(fields[6]));
+                return bill;
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new StorageException("Invalid bill record: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    public static final EntityCodec<Notification> NOTIFICATION = new EntityCodec<>() {
+        @Override
+        public String getId(Notification notification) {
+            return notification.getNotificationId();
+        }
+
+        @Override
+        public String[] encode(Notification notification) {
+            return new String[] {
+                    notification.getNotificationId(), notification.getPatientId(), notification.getMessage(),
+                    formatDate(notification.getTimestamp()), String.valueOf(notification.isPromotional())
+            };
+        }
+
+        @Override
+        public Notification decode(String[] fields) throws StorageException {
+            requireFields(fields, 5, "notification");
+            try {
+                Notification notification = new Notification(fields[0], fields[1], fields[2],
+                        Boolean.parseBoolean(fields[4]));
+                notification.setTimestamp(parseDate(fields[3]));
+                return notification;
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new StorageException("Invalid notification record: " + e.getMessage(), e);
+            }
+        }
+    };
+
+    private static void requireFields(String[] fields, int count, String entity) throws StorageException {
+        if (fields.length < count) {
+            throw new StorageException("Invalid " + entity + " record: expected " + count
+                    + " fields but found " + fields.length);
+        }
+    }
+
+    private static String formatDate(LocalDateTime date) {
+        return date != null ? date.toString() : null;
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+}
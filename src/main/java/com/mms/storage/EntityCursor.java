@@ -0,0 +1,19 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+
+/**
+ * Reads persisted entities one at a time, holding only the current record
+ * in memory. Cursors must be closed to release the underlying file.
+ *
+ * @param <T> the entity type
+ */
+public interface EntityCursor<T> extends AutoCloseable {
+    /**
+     * @return the next entity, or null once the cursor is exhausted
+     */
+    T next() throws StorageException;
+
+    @Override
+    void close() throws StorageException;
+}
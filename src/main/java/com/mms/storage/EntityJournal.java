@@ -0,0 +1,524 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * EntityJournal is an append-only log of changes to one entity set.
+ * Each mutation appends a single record, so an update costs O(1) I/O
+ * regardless of how many rows the entity set holds. On startup the
+ * journal is replayed over the latest CSV snapshot.
+ *
+ * The journal is split into numbered segments (base.1, base.2, ...).
+ * Appends always go to the highest segment; {@link #roll()} seals it and
+ * starts a new one, so a compaction can fold sealed segments into a new
+ * snapshot while writers keep appending.
+ *
+ * Durability follows the {@link SyncMode}: NONE leaves flushing to the
+ * operating system, ALWAYS fsyncs each record, and GROUP hands records to
+ * a shared {@link GroupCommitter} and waits for its batch to be fsynced.
+ *
+ * Record layout (one line per record, tab-separated, escaped):
+ *   crc32-hex  op  field1  field2 ...
+ * where op is P (put: insert or replace by id), D (delete by id) or
+ * B (batch: the next count records apply together or not at all).
+ * Records are idempotent, so replaying a journal over a snapshot that
+ * already contains some of its changes yields the same state.
+ *
+ * @param <T> the entity type
+ */
+public class EntityJournal<T> {
+    private static final String PUT = "P";
+    private static final String DELETE = "D";
+    private static final String BATCH = "B";
+    private static final String NULL_FIELD = "\\N";
+
+    private final File baseFile;
+    private final EntityCodec<T> codec;
+    private final SyncMode syncMode;
+    private final GroupCommitter committer;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // Bytes and record counts per segment currently on disk
+    private final TreeMap<Long, long[]> segmentStats = new TreeMap<>();
+    private long activeSegment;
+    private FileChannel out;
+    private CompletableFuture<Void> lastCommit;
+
+    public EntityJournal(File baseFile, EntityCodec<T> codec) {
+        this(baseFile, codec, SyncMode.NONE, null);
+    }
+
+    /**
+     * @param committer the shared group committer, required when syncMode is GROUP
+     */
+    public EntityJournal(File baseFile, EntityCodec<T> codec, SyncMode syncMode, GroupCommitter committer) {
+        if (syncMode == SyncMode.GROUP && committer == null) {
+            throw new IllegalArgumentException("Group commit requires a GroupCommitter");
+        }
+        this.baseFile = baseFile;
+        this.codec = codec;
+        this.syncMode = syncMode;
+        this.committer = committer;
+        this.activeSegment = 1;
+        for (long segment : listSegments(Long.MAX_VALUE)) {
+            segmentStats.put(segment, new long[] { segmentFile(segment).length(), 0 });
+            activeSegment = segment;
+        }
+    }
+
+    /**
+     * Returns the segment file that appends currently go to.
+     */
+    public synchronized File getFile() {
+        return segmentFile(activeSegment);
+    }
+
+    /**
+     * Lock held while the snapshot for this entity set is rewritten,
+     * so a compaction and a full save never interleave.
+     */
+    public ReentrantLock snapshotLock() {
+        return snapshotLock;
+    }
+
+    public synchronized long getPendingBytes() {
+        long total = 0;
+        for (long[] stats : segmentStats.values()) {
+            total += stats[0];
+        }
+        return total;
+    }
+
+    public synchronized long getPendingRecords() {
+        long total = 0;
+        for (long[] stats : segmentStats.values()) {
+            total += stats[1];
+        }
+        return total;
+    }
+
+    /**
+     * Appends an insert-or-replace record for the entity.
+     * Returns once the record is as durable as the sync mode promises.
+     *
+     * @return the number of bytes appended
+     */
+    public int appendPut(T entity) throws StorageException {
+        return append(encodeRecord(putRecord(entity)), 1);
+    }
+
+    /**
+     * Appends insert-or-replace records for all entities in one write, and
+     * with syncing on, one fsync. The records are framed as a batch, so
+     * replay applies either all of them or, after a crash mid-write, none.
+     *
+     * @return the number of bytes appended
+     */
+    public int appendPutAll(List<T> entities) throws StorageException {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(entities.size() * 128);
+        lines.writeBytes(encodeRecord(new String[] { BATCH, String.valueOf(entities.size()) }));
+        for (T entity : entities) {
+            lines.writeBytes(encodeRecord(putRecord(entity)));
+        }
+        return append(lines.toByteArray(), entities.size());
+    }
+
+    private String[] putRecord(T entity) {
+        String[] fields = codec.encode(entity);
+        String[] record = new String[fields.length + 1];
+        record[0] = PUT;
+        System.arraycopy(fields, 0, record, 1, fields.length);
+        return record;
+    }
+
+    /**
+     * Appends a delete record for the given id.
+     *
+     * @return the number of bytes appended
+     */
+    public int appendDelete(String id) throws StorageException {
+        return append(encodeRecord(new String[] { DELETE, id }), 1);
+    }
+
+    private int append(byte[] line, int records) throws StorageException {
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            try {
+                if (out == null) {
+                    out = FileChannel.open(segmentFile(activeSegment).toPath(), StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                }
+                long[] stats = segmentStats.computeIfAbsent(activeSegment, s -> new long[2]);
+                stats[0] += line.length;
+                stats[1] += records;
+                if (syncMode != SyncMode.GROUP) {
+                    ByteBuffer buffer = ByteBuffer.wrap(line);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    if (syncMode == SyncMode.ALWAYS) {
+                        out.force(false);
+                    }
+                    return line.length;
+                }
+                // Queued under the lock so records reach the file in append order
+                commit = committer.submit(out, line);
+                lastCommit = commit;
+            } catch (IOException e) {
+                throw new StorageException("Failed to append to journal " + baseFile.getName() + ": " + e.getMessage(), e);
+            }
+        }
+        // Wait outside the lock so other writers can join the same batch
+        GroupCommitter.await(commit);
+        return line.length;
+    }
+
+    /**
+     * Seals the active segment and directs further appends to a new one.
+     *
+     * @return the highest sealed segment number
+     */
+    public synchronized long roll() throws StorageException {
+        close();
+        return activeSegment++;
+    }
+
+    /**
+     * Replays every segment over a snapshot and returns the resulting entity list.
+     * Snapshot order is preserved; new ids are appended in journal order.
+     * A torn record or incomplete batch at the end of a segment (from a
+     * crash during append) is discarded and truncated away; corruption
+     * anywhere else is an error.
+     */
+    public synchronized List<T> replay(List<T> snapshot) throws StorageException {
+        Map<String, T> state = toState(snapshot);
+        for (long segment : listSegments(Long.MAX_VALUE)) {
+            File file = segmentFile(segment);
+            long records = replaySegment(file, state, true, false);
+            segmentStats.put(segment, new long[] { file.length(), records });
+        }
+        return new ArrayList<>(state.values());
+    }
+
+    /**
+     * Replays every segment into a map of pending changes keyed by id: the
+     * latest entity for a put, or null for a delete. Its size depends on the
+     * journal, not the snapshot, so a reader can stream the snapshot and
+     * overlay these changes with constant memory.
+     */
+    public synchronized Map<String, T> pendingChanges() throws StorageException {
+        Map<String, T> changes = new LinkedHashMap<>();
+        for (long segment : listSegments(Long.MAX_VALUE)) {
+            replaySegment(segmentFile(segment), changes, false, true);
+        }
+        return changes;
+    }
+
+    /**
+     * Replays sealed segments up to and including the given number over a
+     * snapshot. Sealed segments are immutable, so this does not block appends.
+     */
+    public List<T> replaySealed(List<T> snapshot, long sealedThrough) throws StorageException {
+        Map<String, T> state = toState(snapshot);
+        for (long segment : listSegments(sealedThrough)) {
+            replaySegment(segmentFile(segment), state, false, false);
+        }
+        return new ArrayList<>(state.values());
+    }
+
+    /**
+     * Returns true if any sealed segment up to the given number holds records.
+     */
+    public synchronized boolean hasRecordsThrough(long sealedThrough) {
+        for (long[] stats : segmentStats.headMap(sealedThrough, true).values()) {
+            if (stats[0] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deletes sealed segments up to and including the given number, once a
+     * snapshot covering them is durable.
+     */
+    public synchronized void deleteSegmentsThrough(long sealedThrough) throws StorageException {
+        for (long segment : listSegments(sealedThrough)) {
+            if (segment == activeSegment) {
+                continue;
+            }
+            File file = segmentFile(segment);
+            if (file.exists() && !file.delete()) {
+                throw new StorageException("Failed to delete journal segment " + file.getName());
+            }
+        }
+        segmentStats.headMap(Math.min(sealedThrough, activeSegment - 1), true).clear();
+    }
+
+    /**
+     * Discards all journal records. Called once a snapshot covering them is durable.
+     */
+    public synchronized void reset() throws StorageException {
+        close();
+        for (long segment : listSegments(Long.MAX_VALUE)) {
+            File file = segmentFile(segment);
+            if (!file.delete()) {
+                throw new StorageException("Failed to delete journal segment " + file.getName());
+            }
+        }
+        segmentStats.clear();
+    }
+
+    /**
+     * Closes the append stream. The journal reopens it on the next append.
+     */
+    public synchronized void close() throws StorageException {
+        if (out == null) {
+            return;
+        }
+        if (lastCommit != null) {
+            // Let queued records reach the channel before it is closed
+            lastCommit.handle((ignored, error) -> null).join();
+            lastCommit = null;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new StorageException("Failed to close journal " + baseFile.getName() + ": " + e.getMessage(), e);
+        } finally {
+            out = null;
+        }
+    }
+
+    // ===== SEGMENTS =====
+    private File segmentFile(long segment) {
+        return new File(baseFile.getParentFile(), baseFile.getName() + "." + segment);
+    }
+
+    private List<Long> listSegments(long maxSegment) {
+        String prefix = baseFile.getName() + ".";
+        String[] names = baseFile.getParentFile().list();
+        List<Long> segments = new ArrayList<>();
+        if (names == null) {
+            return segments;
+        }
+        for (String name : names) {
+            if (!name.startsWith(prefix)) {
+                continue;
+            }
+            try {
+                long segment = Long.parseLong(name.substring(prefix.length()));
+                if (segment <= maxSegment) {
+                    segments.add(segment);
+                }
+            } catch (NumberFormatException e) {
+                // not a segment file
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Map<String, T> toState(List<T> snapshot) {
+        Map<String, T> state = new LinkedHashMap<>();
+        for (T entity : snapshot) {
+            state.put(codec.getId(entity), entity);
+        }
+        return state;
+    }
+
+    private long replaySegment(File file, Map<String, T> state, boolean truncateTornTail, boolean keepDeletes)
+            throws StorageException {
+        long validLength = 0;
+        long offset = 0;
+        long records = 0;
+        // Records of a batch are held back until its last record is read
+        List<String[]> batch = new ArrayList<>();
+        long batchRemaining = 0;
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            byte[] buffer = new byte[8192];
+            boolean corrupt = false;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    offset++;
+                    if (buffer[i] != '\n') {
+                        line.write(buffer[i]);
+                        continue;
+                    }
+                    if (corrupt) {
+                        throw new StorageException("Corrupt record in journal " + file.getName()
+                                + " at offset " + validLength);
+                    }
+                    String[] record = decodeRecord(line.toByteArray());
+                    line.reset();
+                    if (record == null) {
+                        corrupt = true;
+                        continue;
+                    }
+                    if (BATCH.equals(record[0])) {
+                        if (batchRemaining > 0) {
+                            throw new StorageException("Nested batch in journal " + file.getName()
+                                    + " at offset " + validLength);
+                        }
+                        batchRemaining = parseBatchSize(file, record);
+                        continue;
+                    }
+                    if (batchRemaining > 0) {
+                        batch.add(record);
+                        if (--batchRemaining > 0) {
+                            continue;
+                        }
+                        for (String[] batched : batch) {
+                            apply(state, batched, keepDeletes);
+                        }
+                        records += batch.size();
+                        batch.clear();
+                    } else {
+                        apply(state, record, keepDeletes);
+                        records++;
+                    }
+                    validLength = offset;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            return 0;
+        } catch (IOException e) {
+            throw new StorageException("Failed to replay journal " + file.getName() + ": " + e.getMessage(), e);
+        }
+
+        if (validLength < offset && truncateTornTail) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            } catch (IOException e) {
+                throw new StorageException("Failed to truncate journal " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+        return records;
+    }
+
+    private static long parseBatchSize(File file, String[] record) throws StorageException {
+        try {
+            long size = record.length > 1 ? Long.parseLong(record[1]) : 0;
+            if (size > 0) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new StorageException("Invalid batch record in journal " + file.getName());
+    }
+
+    private void apply(Map<String, T> state, String[] record, boolean keepDeletes) throws StorageException {
+        if (PUT.equals(record[0])) {
+            T entity = codec.decode(Arrays.copyOfRange(record, 1, record.length));
+            state.put(codec.getId(entity), entity);
+        } else if (DELETE.equals(record[0]) && record.length > 1) {
+            if (keepDeletes) {
+                state.put(record[1], null);
+            } else {
+                state.remove(record[1]);
+            }
+        } else {
+            throw new StorageException("Unknown journal operation in " + baseFile.getName() + ": " + record[0]);
+        }
+    }
+
+    // ===== RECORD ENCODING =====
+    static byte[] encodeRecord(String[] record) {
+        StringBuilder body = new StringBuilder(128);
+        for (int i = 0; i < record.length; i++) {
+            if (i > 0) {
+                body.append('\t');
+            }
+            escape(body, record[i]);
+        }
+        byte[] bodyBytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        String crc = String.format("%08x\t", checksum(bodyBytes, 0, bodyBytes.length));
+        byte[] line = new byte[9 + bodyBytes.length + 1];
+        System.arraycopy(crc.getBytes(StandardCharsets.US_ASCII), 0, line, 0, 9);
+        System.arraycopy(bodyBytes, 0, line, 9, bodyBytes.length);
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    /**
+     * Decodes one line (without the trailing newline).
+     * Returns null if the line is truncated or fails its checksum.
+     */
+    static String[] decodeRecord(byte[] line) {
+        if (line.length < 10 || line[8] != '\t') {
+            return null;
+        }
+        long expected;
+        try {
+            expected = Long.parseLong(new String(line, 0, 8, StandardCharsets.US_ASCII), 16);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (checksum(line, 9, line.length - 9) != expected) {
+            return null;
+        }
+        String body = new String(line, 9, line.length - 9, StandardCharsets.UTF_8);
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isNull = false;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\t') {
+                fields.add(isNull ? null : field.toString());
+                field.setLength(0);
+                isNull = false;
+            } else if (c == '\\' && i + 1 < body.length()) {
+                char next = body.charAt(++i);
+                switch (next) {
+                    case 't' -> field.append('\t');
+                    case 'n' -> field.append('\n');
+                    case 'r' -> field.append('\r');
+                    case 'N' -> isNull = true;
+                    default -> field.append(next);
+                }
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(isNull ? null : field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    private static void escape(StringBuilder out, String value) {
+        if (value == null) {
+            out.append(NULL_FIELD);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static long checksum(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return crc.getValue();
+    }
+}
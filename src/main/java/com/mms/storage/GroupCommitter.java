@@ -0,0 +1,192 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GroupCommitter makes journal appends durable in batches.
+ * Callers queue records; a single flusher thread writes everything that
+ * has queued up, fsyncs each touched file once, and then releases every
+ * caller in the batch. Under concurrent load one fsync covers many
+ * mutations instead of one.
+ *
+ * After taking the first record of a batch the flusher waits up to the
+ * batch window for more, and never takes more than the maximum batch size.
+ * With a zero window it only takes what is already queued, which still
+ * batches the records that arrived during the previous fsync.
+ */
+public class GroupCommitter {
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private volatile boolean closed;
+
+    public GroupCommitter(long windowMicros, int maxBatchSize) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flusher = new Thread(this::run, "mms-group-commit");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues a record for the given channel.
+     *
+     * @return a future that completes once the record is written and fsynced
+     */
+    public CompletableFuture<Void> submit(FileChannel channel, byte[] data) throws StorageException {
+        if (closed) {
+            throw new StorageException("Group commit has been shut down");
+        }
+        PendingWrite write = new PendingWrite(channel, data);
+        queue.add(write);
+        return write.done;
+    }
+
+    /**
+     * Blocks until the record behind the future is durable.
+     */
+    public static void await(CompletableFuture<Void> done) throws StorageException {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException("Interrupted while waiting for journal commit", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new StorageException("Failed to commit journal record: " + cause.getMessage(), cause);
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getRecordCount() {
+        return records.get();
+    }
+
+    /**
+     * Stops the flusher. Records still queued fail with an error.
+     */
+    public void close() {
+        closed = true;
+        flusher.interrupt();
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // shutting down
+        }
+        IOException shutdown = new IOException("group commit shut down");
+        for (PendingWrite write : batch) {
+            write.done.completeExceptionally(shutdown);
+        }
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            write.done.completeExceptionally(shutdown);
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        Map<FileChannel, ChannelBatch> channels = new IdentityHashMap<>();
+        for (PendingWrite write : batch) {
+            ChannelBatch written = channels.get(write.channel);
+            if (written == null) {
+                written = new ChannelBatch();
+                channels.put(write.channel, written);
+                try {
+                    written.start = write.channel.size();
+                } catch (IOException e) {
+                    written.failure = e;
+                }
+            }
+            if (written.failure != null) {
+                continue;
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(write.data);
+                while (buffer.hasRemaining()) {
+                    write.channel.write(buffer);
+                }
+            } catch (IOException e) {
+                written.failure = e;
+            }
+        }
+        for (Map.Entry<FileChannel, ChannelBatch> entry : channels.entrySet()) {
+            ChannelBatch written = entry.getValue();
+            if (written.failure == null) {
+                try {
+                    entry.getKey().force(false);
+                } catch (IOException e) {
+                    written.failure = e;
+                }
+            }
+            if (written.failure != null && written.start >= 0) {
+                // Cut the batch off again, so no torn or unacknowledged record
+                // is left for later appends to follow or for replay to apply
+                try {
+                    entry.getKey().truncate(written.start);
+                } catch (IOException e) {
+                    written.failure.addSuppressed(e);
+                }
+            }
+        }
+        // Count before releasing callers so they observe their own batch
+        batches.incrementAndGet();
+        records.addAndGet(batch.size());
+        for (PendingWrite write : batch) {
+            IOException failure = channels.get(write.channel).failure;
+            if (failure != null) {
+                write.done.completeExceptionally(failure);
+            } else {
+                write.done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Where one channel's part of a batch starts, and why it failed, if it did.
+     */
+    private static final class ChannelBatch {
+        private long start = -1;
+        private IOException failure;
+    }
+
+    private static final class PendingWrite {
+        private final FileChannel channel;
+        private final byte[] data;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private PendingWrite(FileChannel channel, byte[] data) {
+            this.channel = channel;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mms.storage;
+
+import com.mms.metrics.StorageMetrics;
+import com.mms.models.*;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * InMemoryStorageBackend keeps every entity in memory and never touches
+ * the disk. Used by the test suite and by benchmarks that measure business
+ * logic without persistence costs. Data is lost when the process exits.
+ */
+public class InMemoryStorageBackend implements StorageBackend {
+    private final Repository<Admin> admins = new MemoryRepository<>(EntityCodecs.ADMIN);
+    private final Repository<Clinician> clinicians = new MemoryRepository<>(EntityCodecs.CLINICIAN);
+    private final Repository<Patient> patients = new MemoryRepository<>(EntityCodecs.PATIENT);
+    private final Repository<Treatment> treatments = new MemoryRepository<>(EntityCodecs.TREATMENT);
+    private final Repository<TreatmentType> treatmentTypes = new MemoryRepository<>(EntityCodecs.TREATMENT_TYPE);
+    private final Repository<Bill> bills = new MemoryRepository<>(EntityCodecs.BILL);
+    private final Repository<Notification> notifications = new MemoryRepository<>(EntityCodecs.NOTIFICATION);
+    private final StorageMetrics metrics = new StorageMetrics(0);
+
+    @Override
+    public Repository<Admin> admins() {
+        return admins;
+    }
+
+    @Override
+    public Repository<Clinician> clinicians() {
+        return clinicians;
+    }
+
+    @Override
+    public Repository<Patient> patients() {
+        return patients;
+    }
+
+    @Override
+    public Repository<Treatment> treatments() {
+        return treatments;
+    }
+
+    @Override
+    public Repository<TreatmentType> treatmentTypes() {
+        return treatmentTypes;
+    }
+
+    @Override
+    public Repository<Bill> bills() {
+        return bills;
+    }
+
+    @Override
+    public Repository<Notification> notifications() {
+        return notifications;
+    }
+
+    /** Always empty: nothing is read from or written to files. */
+    @Override
+    public StorageMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Stores entities by id in insertion order. Entities are stored by
+     * reference, so they reflect later in-place changes without a save.
+     */
+    private static final class MemoryRepository<T> implements Repository<T> {
+        private final EntityCodec<T> codec;
+        private final Map<String, T> entities = new LinkedHashMap<>();
+
+        private MemoryRepository(EntityCodec<T> codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public synchronized List<T> loadAll() {
+            return new ArrayList<>(entities.values());
+        }
+
+        @Override
+        public synchronized void saveAll(List<T> all) {
+            entities.clear();
+            for (T entity : all) {
+                entities.put(codec.getId(entity), entity);
+            }
+        }
+
+        @Override
+        public synchronized void saveAll(Stream<T> all) {
+            entities.clear();
+            all.forEachOrdered(entity -> entities.put(codec.getId(entity), entity));
+        }
+
+        @Override
+        public synchronized void save(T entity, Supplier<List<T>> all) {
+            entities.put(codec.getId(entity), entity);
+        }
+
+        @Override
+        public synchronized void saveBatch(List<T> batch, Supplier<List<T>> all) {
+            for (T entity : batch) {
+                entities.put(codec.getId(entity), entity);
+            }
+        }
+
+        @Override
+        public synchronized void delete(String id, Supplier<List<T>> all) {
+            entities.remove(id);
+        }
+
+        @Override
+        public Stream<T> stream() {
+            return loadAll().stream();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * JournalCompactor folds journal segments into fresh CSV snapshots in the
+ * background, keeping replay time and disk use bounded.
+ *
+ * A compaction first rolls every registered journal under a brief write
+ * lock, which fixes a consistent point in time across all entity sets.
+ * Each entity set is then rebuilt from its previous snapshot plus its
+ * sealed segments, written as the new snapshot, and the sealed segments
+ * are deleted. Writers keep appending to the new segments meanwhile.
+ */
+public class JournalCompactor {
+
+    /**
+     * Reads the current snapshot of an entity set, without the journal.
+     */
+    public interface SnapshotReader<T> {
+        List<T> read() throws StorageException;
+    }
+
+    /**
+     * Atomically replaces the snapshot of an entity set.
+     */
+    public interface SnapshotWriter<T> {
+        void write(List<T> entities) throws StorageException;
+    }
+
+    private final long maxBytes;
+    private final long maxRecords;
+    private final List<Target<?>> targets = new ArrayList<>();
+    private final ReentrantReadWriteLock rollLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong completedCompactions = new AtomicLong();
+    private final ExecutorService executor;
+
+    public JournalCompactor(long maxBytes, long maxRecords) {
+        this.maxBytes = maxBytes;
+        this.maxRecords = maxRecords;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mms-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> void register(EntityJournal<T> journal, SnapshotReader<T> reader, SnapshotWriter<T> writer) {
+        targets.add(new Target<>(journal, reader, writer));
+    }
+
+    /**
+     * Lock that journal appends hold, so a roll never lands between an
+     * append and the threshold check that follows it.
+     */
+    public Lock appendLock() {
+        return rollLock.readLock();
+    }
+
+    /**
+     * Lock that a full snapshot rewrite holds until it has reset its
+     * journal, so no append lands in between and is discarded.
+     */
+    public Lock rewriteLock() {
+        return rollLock.writeLock();
+    }
+
+    public long getCompletedCompactions() {
+        return completedCompactions.get();
+    }
+
+    /**
+     * Schedules a compaction if any journal has crossed the size or record
+     * threshold and none is already running.
+     */
+    public void maybeCompact() {
+        if (running.get()) {
+            return;
+        }
+        for (Target<?> target : targets) {
+            if (target.journal.getPendingBytes() >= maxBytes || target.journal.getPendingRecords() >= maxRecords) {
+                compactNow();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Schedules a compaction of all entity sets.
+     *
+     * @return a future that completes when the compaction has finished,
+     *         or null if one is already running
+     */
+    public Future<?> compactNow() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        return executor.submit(() -> {
+            try {
+                compactAll();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void compactAll() {
+        Map<Target<?>, Long> sealed = new LinkedHashMap<>();
+        rollLock.writeLock().lock();
+        try {
+            for (Target<?> target : targets) {
+                sealed.put(target, target.journal.roll());
+            }
+        } catch (StorageException e) {
+            System.err.println("Journal compaction aborted: " + e.getMessage());
+            return;
+        } finally {
+            rollLock.writeLock().unlock();
+        }
+
+        for (Map.Entry<Target<?>, Long> entry : sealed.entrySet()) {
+            try {
+                entry.getKey().compact(entry.getValue());
+            } catch (StorageException e) {
+                // Sealed segments stay on disk and are retried by the next compaction
+                System.err.println("Journal compaction failed: " + e.getMessage());
+            }
+        }
+        completedCompactions.incrementAndGet();
+    }
+
+    private static final class Target<T> {
+        private final EntityJournal<T> journal;
+        private final SnapshotReader<T> reader;
+        private final SnapshotWriter<T> writer;
+
+        private Target(EntityJournal<T> journal, SnapshotReader<T> reader, SnapshotWriter<T> writer) {
+            this.journal = journal;
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        private void compact(long sealedThrough) throws StorageException {
+            journal.snapshotLock().lock();
+            try {
+                if (journal.hasRecordsThrough(sealedThrough)) {
+                    writer.write(journal.replaySealed(reader.read(), sealedThrough));
+                }
+                journal.deleteSegmentsThrough(sealedThrough);
+            } finally {
+                journal.snapshotLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Persists one entity type for a {@link StorageBackend}.
+ *
+ * Single-entity changes also receive the caller's full list, so a backend
+ * that can only rewrite whole files may fall back to saving all of it. The
+ * list is supplied lazily and fetched under the backend's write lock, so
+ * concurrent saves never replace a newer list with an older one.
+ *
+ * @param <T> the entity type
+ */
+public interface Repository<T> {
+    List<T> loadAll() throws StorageException;
+
+    /** Replaces everything stored for this entity type. */
+    void saveAll(List<T> entities) throws StorageException;
+
+    /**
+     * Replaces everything stored for this entity type with the stream's
+     * entities, consuming it once in order. File backends write it straight
+     * through, so the stream may be larger than the heap.
+     */
+    void saveAll(Stream<T> entities) throws StorageException;
+
+    /** Stores one added or changed entity. The list must already contain it. */
+    void save(T entity, Supplier<List<T>> all) throws StorageException;
+
+    /** Stores many added or changed entities in one write. The list must already contain them. */
+    void saveBatch(List<T> entities, Supplier<List<T>> all) throws StorageException;
+
+    /** Removes one entity. The list must already exclude it. */
+    void delete(String id, Supplier<List<T>> all) throws StorageException;
+
+    /** Reads every stored entity incrementally. The stream must be closed. */
+    Stream<T> stream() throws StorageException;
+}
@@ -0,0 +1,28 @@
+package com.mms.storage;
+
+import com.mms.metrics.StorageMetrics;
+import com.mms.models.*;
+
+/**
+ * StorageBackend is the persistence SPI used by the controller: one typed
+ * repository per entity type. {@link StorageBackends#fromConfig()} picks
+ * the implementation from {@link StorageConfig#ENGINE}.
+ */
+public interface StorageBackend {
+    Repository<Admin> admins();
+
+    Repository<Clinician> clinicians();
+
+    Repository<Patient> patients();
+
+    Repository<Treatment> treatments();
+
+    Repository<TreatmentType> treatmentTypes();
+
+    Repository<Bill> bills();
+
+    Repository<Notification> notifications();
+
+    /** Returns the I/O counters of this backend's entity files. */
+    StorageMetrics getMetrics();
+}
@@ -0,0 +1,23 @@
+package com.mms.storage;
+
+import com.mms.exceptions.StorageException;
+
+/**
+ * Creates the configured {@link StorageBackend}.
+ */
+public final class StorageBackends {
+
+    private StorageBackends() {
+    }
+
+    /**
+     * Returns a fresh in-memory backend for the memory engine, otherwise the
+     * shared file backend for {@link StorageConfig#DIRECTORY}.
+     */
+    public static StorageBackend fromConfig() throws StorageException {
+        if (StorageConfig.getEngine() == StorageEngine.MEMORY) {
+            return new InMemoryStorageBackend();
+        }
+        return StorageManager.getInstance();
+    }
+}
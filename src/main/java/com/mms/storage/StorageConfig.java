@@ -0,0 +1,104 @@
+package com.mms.storage;
+
+/**
+ * StorageConfig reads storage options from system properties.
+ * Options are read when the storage layer is created, so they can be set
+ * with -D flags on the command line or by tests before first use.
+ */
+public final class StorageConfig {
+    /** Storage engine: memory, csv or binary. */
+    public static final String ENGINE = "mms.storage.engine";
+    /** Directory holding the storage files. */
+    public static final String DIRECTORY = "mms.storage.dir";
+    /** Load bills and notifications on first access instead of at startup. */
+    public static final String LAZY_LOAD = "mms.storage.lazyLoad";
+    /** Append each mutation to a per-entity journal instead of rewriting the CSV file. */
+    public static final String JOURNAL_ENABLED = "mms.storage.journal";
+    /** Compact once any entity journal holds this many bytes. */
+    public static final String COMPACTION_MAX_BYTES = "mms.storage.compaction.maxBytes";
+    /** Compact once any entity journal holds this many records. */
+    public static final String COMPACTION_MAX_RECORDS = "mms.storage.compaction.maxRecords";
+    /** Durability of journal appends and snapshots: none, always or group. */
+    public static final String SYNC_MODE = "mms.storage.sync";
+    /** How long the group-commit flusher waits for more records after the first, in microseconds. */
+    public static final String GROUP_COMMIT_WINDOW_MICROS = "mms.storage.groupCommit.windowMicros";
+    /** Maximum number of records fsynced together in one group-commit batch. */
+    public static final String GROUP_COMMIT_MAX_BATCH = "mms.storage.groupCommit.maxBatch";
+    /** Log a warning when a single save takes longer than this many milliseconds; 0 disables it. */
+    public static final String SLOW_SAVE_MILLIS = "mms.storage.slowSaveMillis";
+
+    private static final long DEFAULT_COMPACTION_MAX_BYTES = 4L * 1024 * 1024;
+    private static final long DEFAULT_COMPACTION_MAX_RECORDS = 50_000;
+    private static final long DEFAULT_GROUP_COMMIT_WINDOW_MICROS = 0;
+    private static final long DEFAULT_GROUP_COMMIT_MAX_BATCH = 512;
+    private static final long DEFAULT_SLOW_SAVE_MILLIS = 250;
+
+    private StorageConfig() {
+    }
+
+    public static String getDirectory() {
+        String value = System.getProperty(DIRECTORY);
+        return value == null || value.isBlank() ? "storage" : value.trim();
+    }
+
+    public static StorageEngine getEngine() {
+        String value = System.getProperty(ENGINE, "csv");
+        try {
+            return StorageEngine.valueOf(value.trim().toUpperCase(java.util.Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid value for " + ENGINE + ": " + value);
+            return StorageEngine.CSV;
+        }
+    }
+
+    public static boolean isLazyLoadEnabled() {
+        return Boolean.parseBoolean(System.getProperty(LAZY_LOAD, "false"));
+    }
+
+    public static boolean isJournalEnabled() {
+        return Boolean.parseBoolean(System.getProperty(JOURNAL_ENABLED, "false"));
+    }
+
+    public static long getCompactionMaxBytes() {
+        return getLong(COMPACTION_MAX_BYTES, DEFAULT_COMPACTION_MAX_BYTES);
+    }
+
+    public static long getCompactionMaxRecords() {
+        return getLong(COMPACTION_MAX_RECORDS, DEFAULT_COMPACTION_MAX_RECORDS);
+    }
+
+    public static SyncMode getSyncMode() {
+        String value = System.getProperty(SYNC_MODE, "none");
+        try {
+            return SyncMode.valueOf(value.trim().toUpperCase(java.util.Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring invalid value for " + SYNC_MODE + ": " + value);
+            return SyncMode.NONE;
+        }
+    }
+
+    public static long getGroupCommitWindowMicros() {
+        return getLong(GROUP_COMMIT_WINDOW_MICROS, DEFAULT_GROUP_COMMIT_WINDOW_MICROS);
+    }
+
+    public static int getGroupCommitMaxBatch() {
+        return (int) Math.min(Integer.MAX_VALUE, getLong(GROUP_COMMIT_MAX_BATCH, DEFAULT_GROUP_COMMIT_MAX_BATCH));
+    }
+
+    public static long getSlowSaveMillis() {
+        return getLong(SLOW_SAVE_MILLIS, DEFAULT_SLOW_SAVE_MILLIS);
+    }
+
+    private static long getLong(String key, long defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid value for " + key + ": " + value);
+            return defaultValue;
+        }
+    }
+}
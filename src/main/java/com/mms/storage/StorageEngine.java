@@ -0,0 +1,13 @@
+package com.mms.storage;
+
+/**
+ * Storage implementation selected by {@link StorageConfig#ENGINE}.
+ */
+public enum StorageEngine {
+    /** Everything kept in memory; nothing is persisted. */
+    MEMORY,
+    /** Human-readable CSV files, one row per entity. */
+    CSV,
+    /** Length-prefixed binary records, read through memory-mapped files. */
+    BINARY
+}
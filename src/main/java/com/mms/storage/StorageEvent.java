@@ -0,0 +1,47 @@
+package com.mms.storage;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one load, stream, save or compaction of an entity file by
+ * {@link StorageManager}, disabled unless a recording enables
+ * {@code com.mms.Storage}. Like the controller's operation event it costs
+ * only the enabled check while disabled.
+ */
+@Name("com.mms.Storage")
+@Label("MMS Storage")
+@Category({"MMS", "Storage"})
+@Description("A load, stream, save or compaction of one entity file")
+@StackTrace(false)
+final class StorageEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Entity Id")
+    @Description("Id of the saved or deleted entity, for single-entity saves")
+    String entityId;
+
+    @Label("Rows Changed")
+    long rowsChanged;
+
+    @Label("Rows")
+    @Description("Rows read, or written to the snapshot or journal")
+    long rows;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Full Rewrite")
+    @Description("Whether the whole snapshot was rewritten rather than appended to the journal")
+    boolean rewrite;
+}
@@ -2,30 +2,110 @@ package com.mms.storage;
 
 import com.mms.models.*;
 import com.mms.exceptions.StorageException;
+import com.mms.exceptions.UncheckedStorageException;
+import com.mms.metrics.FileIoMetrics;
+import com.mms.metrics.StorageMetrics;
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * StorageManager handles all CSV file operations for persistent data storage.
- * Singleton pattern ensures single instance manages all storage operations.
+ * StorageManager is the file-based {@link StorageBackend}: one snapshot
+ * file per entity type in the storage directory, as CSV or binary records
+ * depending on the {@link StorageEngine}. {@link #getInstance()} returns
+ * the shared manager for the configured directory and engine.
+ *
+ * Each snapshot is written to a temporary file and moved into place so a
+ * crash never leaves a half-written file. In journaled mode
+ * (see {@link StorageConfig#JOURNAL_ENABLED}) single-entity changes are
+ * appended to a per-entity journal instead, and loads replay that journal
+ * over the snapshot. A background {@link JournalCompactor} folds the
+ * journals back into the snapshots once they grow past the configured
+ * thresholds. {@link StorageConfig#SYNC_MODE} controls fsync: per record,
+ * or batched across concurrent writers by a {@link GroupCommitter}.
+ *
+ * {@link #convertCsvToBinary()} migrates existing CSV data to the binary
+ * format (see {@link BinaryStore}).
  */
-public class StorageManager {
+public class StorageManager implements StorageBackend {
     private static StorageManager instance;
-    private static final String STORAGE_DIR = "storage";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final TreatmentStatus[] TREATMENT_STATUSES = TreatmentStatus.values();
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int CSV_CHUNK_SIZE = 1 << 16;
+    private static final Charset CSV_CHARSET = Charset.defaultCharset();
     
-    private File storageDirectory;
+    private final File storageDirectory;
+    private final StorageEngine engine;
+    private final boolean journalEnabled;
+    private final SyncMode syncMode;
+    private final GroupCommitter groupCommitter;
+    private final JournalCompactor compactor;
+    private final StorageMetrics metrics = new StorageMetrics(StorageConfig.getSlowSaveMillis());
+
+    private final FileRepository<Admin> admins;
+    private final FileRepository<Clinician> clinicians;
+    private final FileRepository<Patient> patients;
+    private final FileRepository<Treatment> treatments;
+    private final FileRepository<TreatmentType> treatmentTypes;
+    private final FileRepository<Bill> bills;
+    private final FileRepository<Notification> notifications;
 
     private StorageManager() throws StorageException {
-        this.storageDirectory = new File(STORAGE_DIR);
+        this(new File(StorageConfig.getDirectory()), StorageConfig.getEngine());
+    }
+
+    /**
+     * Opens file storage in the given directory, creating it if needed.
+     * Journal and sync options are read from {@link StorageConfig}.
+     */
+    public StorageManager(File directory, StorageEngine engine) throws StorageException {
+        if (engine == StorageEngine.MEMORY) {
+            throw new StorageException("StorageManager needs a file engine, not " + engine);
+        }
+        this.storageDirectory = directory;
         if (!storageDirectory.exists()) {
             if (!storageDirectory.mkdirs()) {
                 throw new StorageException("Failed to create storage directory");
             }
         }
+        this.engine = engine;
+        this.journalEnabled = StorageConfig.isJournalEnabled();
+        this.syncMode = StorageConfig.getSyncMode();
+        this.groupCommitter = journalEnabled && syncMode == SyncMode.GROUP
+                ? new GroupCommitter(StorageConfig.getGroupCommitWindowMicros(), StorageConfig.getGroupCommitMaxBatch())
+                : null;
+        this.compactor = new JournalCompactor(StorageConfig.getCompactionMaxBytes(),
+                StorageConfig.getCompactionMaxRecords());
+        this.admins = new FileRepository<>("admins", "admins", EntityCodecs.ADMIN, BinaryCodecs.ADMIN,
+                "id,name,phone,email,department", StorageManager::writeAdminRow, StorageManager::decodeAdmin);
+        this.clinicians = new FileRepository<>("clinicians", "clinicians", EntityCodecs.CLINICIAN, BinaryCodecs.CLINICIAN,
+                "id,name,phone,email,specialization,maxPatients", StorageManager::writeClinicianRow, StorageManager::decodeClinician);
+        this.patients = new FileRepository<>("patients", "patients", EntityCodecs.PATIENT, BinaryCodecs.PATIENT,
+                "id,name,phone,email,isRegistered,isFlagged,optedInForPromotions", StorageManager::writePatientRow, StorageManager::decodePatient);
+        this.treatments = new FileRepository<>("treatments", "treatments", EntityCodecs.TREATMENT, BinaryCodecs.TREATMENT,
+                "treatmentId,patientId,clinicianId,treatmentTypeId,status,createdDate,notes", StorageManager::writeTreatmentRow, StorageManager::decodeTreatment);
+        this.treatmentTypes = new FileRepository<>("treatment_types", "treatment types", EntityCodecs.TREATMENT_TYPE, BinaryCodecs.TREATMENT_TYPE,
+                "id,name,price", StorageManager::writeTreatmentTypeRow, StorageManager::decodeTreatmentType);
+        this.bills = new FileRepository<>("bills", "bills", EntityCodecs.BILL, BinaryCodecs.BILL,
+                "billId,patientId,treatmentId,totalAmount,isPaid,createdDate,paidDate", StorageManager::writeBillRow, StorageManager::decodeBill);
+        this.notifications = new FileRepository<>("notifications", "notifications", EntityCodecs.NOTIFICATION, BinaryCodecs.NOTIFICATION,
+                "notificationId,patientId,message,timestamp,isPromotional", StorageManager::writeNotificationRow, StorageManager::decodeNotification);
     }
 
+    /**
+     * Returns the shared file storage for {@link StorageConfig#DIRECTORY}.
+     */
     public static synchronized StorageManager getInstance() throws StorageException {
         if (instance == null) {
             instance = new StorageManager();
@@ -33,370 +113,854 @@ public class StorageManager {
         return instance;
     }
 
+    @Override
+    public Repository<Admin> admins() {
+        return admins;
+    }
+
+    @Override
+    public Repository<Clinician> clinicians() {
+        return clinicians;
+    }
+
+    @Override
+    public Repository<Patient> patients() {
+        return patients;
+    }
+
+    @Override
+    public Repository<Treatment> treatments() {
+        return treatments;
+    }
+
+    @Override
+    public Repository<TreatmentType> treatmentTypes() {
+        return treatmentTypes;
+    }
+
+    @Override
+    public Repository<Bill> bills() {
+        return bills;
+    }
+
+    @Override
+    public Repository<Notification> notifications() {
+        return notifications;
+    }
+
+    /**
+     * Returns rows, bytes and time read and written per entity file, and
+     * how often each file was fully rewritten.
+     */
+    @Override
+    public StorageMetrics getMetrics() {
+        return metrics;
+    }
+
+    public StorageEngine getEngine() {
+        return engine;
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public JournalCompactor getCompactor() {
+        return compactor;
+    }
+
+    /**
+     * Returns the group committer, or null unless journaling with group commit.
+     */
+    public GroupCommitter getGroupCommitter() {
+        return groupCommitter;
+    }
+
     private File getFile(String filename) {
         return new File(storageDirectory, filename);
     }
 
-    // ===== ADMINS =====
-    public void saveAdmins(List<Admin> admins) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("admins.csv")))) {
-            writer.println("id,name,phone,email,department");
-            for (Admin admin : admins) {
-                writer.printf("%s,%s,%s,%s,%s%n",
-                        admin.getId(),
-                        admin.getName(),
-                        admin.getPhone(),
-                        admin.getEmail(),
-                        admin.getDepartment());
-            }
-        } catch (IOException e) {
-            throw new StorageException("Failed to save admins: " + e.getMessage(), e);
-        }
+    private File getTempFile(String filename) {
+        return new File(storageDirectory, filename + ".tmp");
     }
 
-    public List<Admin> loadAdmins() throws StorageException {
-        List<Admin> admins = new ArrayList<>();
-        File file = getFile("admins.csv");
-        
-        if (!file.exists()) {
-            return admins;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                String[] parts = line.split(",");
-                if (parts.length < 4) {
-                    throw new StorageException("Invalid admin data in CSV");
+    /**
+     * Moves a fully written temporary snapshot over the live file.
+     */
+    private void commitFile(String filename) throws StorageException {
+        Path source = getTempFile(filename).toPath();
+        Path target = getFile(filename).toPath();
+        try {
+            if (syncMode != SyncMode.NONE) {
+                // Data must be durable before the rename that publishes it
+                try (FileChannel channel = FileChannel.open(source, StandardOpenOption.WRITE)) {
+                    channel.force(true);
                 }
-                
-                String department = parts.length > 4 ? parts[4] : "";
-                Admin admin = new Admin(parts[0], parts[1], parts[2], parts[3], "", department);
-                admins.add(admin);
+            }
+            try {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
             }
         } catch (IOException e) {
-            throw new StorageException("Failed to load admins: " + e.getMessage(), e);
+            throw new StorageException("Failed to commit " + filename + ": " + e.getMessage(), e);
+        }
+        if (syncMode != SyncMode.NONE) {
+            syncDirectory();
         }
-        return admins;
     }
 
-    // ===== CLINICIANS =====
-    public void saveClinicians(List<Clinician> clinicians) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("clinicians.csv")))) {
-            writer.println("id,name,phone,email,specialization,maxPatients");
-            for (Clinician clinician : clinicians) {
-                writer.printf("%s,%s,%s,%s,%s,%d%n",
-                        clinician.getId(),
-                        clinician.getName(),
-                        clinician.getPhone(),
-                        clinician.getEmail(),
-                        clinician.getSpecialization(),
-                        clinician.getMaxPatients());
-            }
+    /**
+     * Makes a rename in the storage directory durable. Not every platform
+     * allows opening a directory, so failures are ignored.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(storageDirectory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
         } catch (IOException e) {
-            throw new StorageException("Failed to save clinicians: " + e.getMessage(), e);
+            // best effort
         }
     }
 
-    public List<Clinician> loadClinicians() throws StorageException {
-        List<Clinician> clinicians = new ArrayList<>();
-        File file = getFile("clinicians.csv");
-        
-        if (!file.exists()) {
-            return clinicians;
+    // ===== CONVERSION =====
+    /**
+     * Writes every CSV snapshot, with its journal replayed on top in journaled
+     * mode, out as a binary snapshot. Run once before switching
+     * {@link StorageConfig#ENGINE} to binary; the CSV files are left in place.
+     *
+     * @return the number of records converted
+     */
+    public int convertCsvToBinary() throws StorageException {
+        int records = 0;
+        records += admins.convertToBinary();
+        records += clinicians.convertToBinary();
+        records += patients.convertToBinary();
+        records += treatments.convertToBinary();
+        records += treatmentTypes.convertToBinary();
+        records += bills.convertToBinary();
+        records += notifications.convertToBinary();
+        return records;
+    }
+
+    // ===== FILE REPOSITORY =====
+
+    /**
+     * Appends one entity as a CSV row, without the line separator.
+     */
+    private interface CsvRowWriter<T> {
+        void write(StringBuilder row, T entity);
+    }
+
+    /**
+     * Decodes the current CSV record into an entity.
+     */
+    private interface CsvRowDecoder<T> {
+        T decode(CsvParser csv) throws StorageException;
+    }
+
+    /**
+     * Stores one entity type as a snapshot file plus, in journaled mode, a journal.
+     */
+    private final class FileRepository<T> implements Repository<T> {
+        private final String name;
+        private final String label;
+        private final EntityCodec<T> codec;
+        private final BinaryCodec<T> binaryCodec;
+        private final String csvHeader;
+        private final CsvRowWriter<T> csvWriter;
+        private final CsvRowDecoder<T> csvDecoder;
+        private final EntityJournal<T> journal;
+        private final FileIoMetrics io;
+
+        private FileRepository(String name, String label, EntityCodec<T> codec, BinaryCodec<T> binaryCodec,
+                               String csvHeader, CsvRowWriter<T> csvWriter, CsvRowDecoder<T> csvDecoder) {
+            this.name = name;
+            this.label = label;
+            this.codec = codec;
+            this.binaryCodec = binaryCodec;
+            this.csvHeader = csvHeader;
+            this.csvWriter = csvWriter;
+            this.csvDecoder = csvDecoder;
+            // Group commit only runs in journaled mode; unused journals fall back to NONE
+            SyncMode journalSync = syncMode == SyncMode.GROUP && groupCommitter == null ? SyncMode.NONE : syncMode;
+            this.journal = new EntityJournal<>(getFile(name + ".journal"), codec, journalSync, groupCommitter);
+            this.io = metrics.file(name);
+            compactor.register(journal, this::readSnapshot, this::compactSnapshot);
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                String[] parts = line.split(",");
-                if (parts.length < 4) {
-                    throw new StorageException("Invalid clinician data in CSV");
-                }
-                
-                String specialization = parts.length > 4 ? parts[4] : "";
-                int maxPatients = parts.length > 5 ? Integer.parseInt(parts[5]) : 0;
-                Clinician clinician = new Clinician(parts[0], parts[1], parts[2], parts[3], "", specialization, maxPatients);
-                clinicians.add(clinician);
-            }
-        } catch (IOException e) {
-            throw new StorageException("Failed to load clinicians: " + e.getMessage(), e);
+        private String snapshotName() {
+            return engine == StorageEngine.BINARY ? name + ".bin" : name + ".csv";
         }
-        return clinicians;
-    }
 
-    // ===== PATIENTS =====
-    public void savePatients(List<Patient> patients) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("patients.csv")))) {
-            writer.println("id,name,phone,email,isRegistered,isFlagged,optedInForPromotions");
-            for (Patient patient : patients) {
-                writer.printf("%s,%s,%s,%s,%b,%b,%b%n",
-                        patient.getId(),
-                        patient.getName(),
-                        patient.getPhone(),
-                        patient.getEmail(),
-                        patient.isRegistered(),
-                        patient.isFlagged(),
-                        patient.isOptedInForPromotions());
+        @Override
+        public List<T> loadAll() throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            if (!journalEnabled) {
+                long bytes = getFile(snapshotName()).length();
+                List<T> snapshot = readSnapshot();
+                io.recordLoad(snapshot.size(), bytes, System.nanoTime() - start);
+                event.rows = snapshot.size();
+                event.bytes = bytes;
+                commit(event, "loadAll", null, 0);
+                return snapshot;
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to save patients: " + e.getMessage(), e);
+            long bytes;
+            List<T> replayed;
+            // Same snapshot lock as stream(): the journal must match the snapshot
+            journal.snapshotLock().lock();
+            try {
+                bytes = getFile(snapshotName()).length() + journal.getPendingBytes();
+                replayed = journal.replay(readSnapshot());
+            } finally {
+                journal.snapshotLock().unlock();
+            }
+            io.recordLoad(replayed.size(), bytes, System.nanoTime() - start);
+            event.rows = replayed.size();
+            event.bytes = bytes;
+            commit(event, "loadAll", null, 0);
+            compactor.maybeCompact();
+            return replayed;
         }
-    }
 
-    public List<Patient> loadPatients() throws StorageException {
-        List<Patient> patients = new ArrayList<>();
-        File file = getFile("patients.csv");
-        
-        if (!file.exists()) {
-            return patients;
+        /**
+         * Writes a full snapshot and, in journaled mode, discards the journal it supersedes.
+         */
+        @Override
+        public void saveAll(List<T> entities) throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            rewrite(entities::iterator, event);
+            metrics.recordSave(io, "saveAll", entities.size(), System.nanoTime() - start);
+            commit(event, "saveAll", null, entities.size());
+        }
+
+        /**
+         * Streams a full snapshot to disk and, in journaled mode, discards the journal.
+         */
+        @Override
+        public void saveAll(Stream<T> entities) throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            long rows = rewrite(entities::iterator, event);
+            metrics.recordSave(io, "saveAll", (int) Math.min(Integer.MAX_VALUE, rows), System.nanoTime() - start);
+            commit(event, "saveAll", null, rows);
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
+        /**
+         * Fetches the entities under the snapshot lock, so the last writer
+         * always publishes the newest list and concurrent writers never share
+         * the temporary file. In journaled mode appends are held off until the
+         * journal is reset, so none lands after the snapshot and is discarded
+         * with the journal.
+         *
+         * @return the number of rows written
+         */
+        private long rewrite(Supplier<Iterator<T>> entities, StorageEvent event) throws StorageException {
+            Lock appends = compactor.rewriteLock();
+            if (journalEnabled) {
+                appends.lock();
+            }
+            try {
+                journal.snapshotLock().lock();
+                try {
+                    long rows = writeSnapshot(entities.get(), event);
+                    if (journalEnabled) {
+                        journal.reset();
+                    }
+                    return rows;
+                } finally {
+                    journal.snapshotLock().unlock();
                 }
-                
-                String[] parts = line.split(",");
-                if (parts.length < 4) {
-                    throw new StorageException("Invalid patient data in CSV");
+            } finally {
+                if (journalEnabled) {
+                    appends.unlock();
                 }
-                
-                Patient patient = new Patient(parts[0], parts[1], parts[2], parts[3], "");
-                if (parts.length > 4) {
-                    patient.setRegistered(Boolean.parseBoolean(parts[4]));
+            }
+        }
+
+        /**
+         * Persists a single added or changed entity: one journal append in
+         * journaled mode, otherwise a full snapshot.
+         */
+        @Override
+        public void save(T entity, Supplier<List<T>> all) throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            if (!journalEnabled) {
+                rewrite(() -> all.get().iterator(), event);
+            } else {
+                Lock lock = compactor.appendLock();
+                lock.lock();
+                try {
+                    int bytes = journal.appendPut(entity);
+                    io.recordAppend(1, bytes, System.nanoTime() - start);
+                    event.rows = 1;
+                    event.bytes = bytes;
+                } finally {
+                    lock.unlock();
                 }
-                if (parts.length > 5) {
-                    patient.setFlagged(Boolean.parseBoolean(parts[5]));
+                compactor.maybeCompact();
+            }
+            metrics.recordSave(io, "save", 1, System.nanoTime() - start);
+            commit(event, "save", codec.getId(entity), 1);
+        }
+
+        /**
+         * Persists many added entities at once: one journal write in
+         * journaled mode, otherwise a single full snapshot.
+         */
+        @Override
+        public void saveBatch(List<T> entities, Supplier<List<T>> all) throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            if (!journalEnabled) {
+                rewrite(() -> all.get().iterator(), event);
+            } else {
+                Lock lock = compactor.appendLock();
+                lock.lock();
+                try {
+                    int bytes = journal.appendPutAll(entities);
+                    io.recordAppend(entities.size(), bytes, System.nanoTime() - start);
+                    event.rows = entities.size();
+                    event.bytes = bytes;
+                } finally {
+                    lock.unlock();
                 }
-                if (parts.length > 6) {
-                    patient.setOptedInForPromotions(Boolean.parseBoolean(parts[6]));
+                compactor.maybeCompact();
+            }
+            metrics.recordSave(io, "saveBatch", entities.size(), System.nanoTime() - start);
+            commit(event, "saveBatch", null, entities.size());
+        }
+
+        @Override
+        public void delete(String id, Supplier<List<T>> all) throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            if (!journalEnabled) {
+                rewrite(() -> all.get().iterator(), event);
+            } else {
+                Lock lock = compactor.appendLock();
+                lock.lock();
+                try {
+                    int bytes = journal.appendDelete(id);
+                    io.recordAppend(1, bytes, System.nanoTime() - start);
+                    event.rows = 1;
+                    event.bytes = bytes;
+                } finally {
+                    lock.unlock();
                 }
-                patients.add(patient);
+                compactor.maybeCompact();
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to load patients: " + e.getMessage(), e);
+            metrics.recordSave(io, "delete", 1, System.nanoTime() - start);
+            commit(event, "delete", id, 1);
         }
-        return patients;
-    }
 
-    // ===== TREATMENTS =====
-    public void saveTreatments(List<Treatment> treatments) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("treatments.csv")))) {
-            writer.println("treatmentId,patientId,clinicianId,treatmentTypeId,status,createdDate,notes");
-            for (Treatment treatment : treatments) {
-                String clinicianId = treatment.getClinicianId() != null ? treatment.getClinicianId() : "";
-                writer.printf("%s,%s,%s,%s,%s,%s,%s%n",
-                        treatment.getTreatmentId(),
-                        treatment.getPatientId(),
-                        clinicianId,
-                        treatment.getTreatmentTypeId(),
-                        treatment.getStatus().name(),
-                        treatment.getCreatedDate().format(DATE_FORMATTER),
-                        treatment.getNotes());
+        /**
+         * Streams the current snapshot, with the journal overlaid in journaled mode.
+         */
+        @Override
+        public Stream<T> stream() throws StorageException {
+            File file = getFile(snapshotName());
+            Map<String, T> changes;
+            EntityCursor<T> cursor;
+            long bytes;
+            // The journal is read and the snapshot opened under the snapshot lock,
+            // so no rewrite or compaction can replace one but not the other in
+            // between; the open file keeps its contents if it is replaced later
+            journal.snapshotLock().lock();
+            try {
+                changes = journalEnabled ? journal.pendingChanges() : Map.of();
+                if (!file.exists()) {
+                    cursor = new EmptyCursor<>();
+                } else if (engine == StorageEngine.BINARY) {
+                    cursor = BinaryStore.open(file, binaryCodec);
+                } else {
+                    cursor = new CsvCursor<>(file, label, csvDecoder);
+                }
+                bytes = file.length();
+            } finally {
+                journal.snapshotLock().unlock();
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to save treatments: " + e.getMessage(), e);
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            long[] rows = new long[1];
+            return toStream(changes.isEmpty() ? cursor : new JournalOverlayCursor<>(cursor, codec, changes))
+                    .peek(entity -> rows[0]++)
+                    .onClose(() -> {
+                        io.recordLoad(rows[0], bytes, System.nanoTime() - start);
+                        event.rows = rows[0];
+                        event.bytes = bytes;
+                        commit(event, "stream", null, 0);
+                    });
         }
-    }
 
-    public List<Treatment> loadTreatments() throws StorageException {
-        List<Treatment> treatments = new ArrayList<>();
-        File file = getFile("treatments.csv");
-        
-        if (!file.exists()) {
-            return treatments;
+        private List<T> readSnapshot() throws StorageException {
+            return engine == StorageEngine.BINARY ? readBinary() : readCsv();
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                String[] parts = line.split(",");
-                if (parts.length < 5) {
-                    throw new StorageException("Invalid treatment data in CSV");
+        /**
+         * Writes the snapshot a journal compaction folded the journal into.
+         */
+        private void compactSnapshot(List<T> entities) throws StorageException {
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            writeSnapshot(entities.iterator(), event);
+            commit(event, "compact", null, 0);
+        }
+
+        /**
+         * Writes and commits a full snapshot, noting its size on the event.
+         *
+         * @return the number of rows written
+         */
+        private long writeSnapshot(Iterator<T> entities, StorageEvent event) throws StorageException {
+            long start = System.nanoTime();
+            String filename = snapshotName();
+            long rows = engine == StorageEngine.BINARY ? writeBinary(entities) : writeCsv(entities);
+            long bytes = getFile(filename).length();
+            io.recordRewrite(rows, bytes, System.nanoTime() - start);
+            event.rows = rows;
+            event.bytes = bytes;
+            event.rewrite = true;
+            return rows;
+        }
+
+        /**
+         * Ends the event and commits it if the recording settings select it.
+         */
+        private void commit(StorageEvent event, String operation, String entityId, long rowsChanged) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = name;
+                event.operation = operation;
+                event.entityId = entityId;
+                event.rowsChanged = rowsChanged;
+                event.commit();
+            }
+        }
+
+        private List<T> readCsv() throws StorageException {
+            List<T> entities = new ArrayList<>();
+            File file = getFile(name + ".csv");
+            
+            if (!file.exists()) {
+                return entities;
+            }
+
+            try (CsvCursor<T> cursor = new CsvCursor<>(file, label, csvDecoder)) {
+                T entity;
+                while ((entity = cursor.next()) != null) {
+                    entities.add(entity);
                 }
-                
-                Treatment treatment = new Treatment(parts[0], parts[1], parts[3]);
-                if (!parts[2].isEmpty()) {
-                    treatment.setClinicianId(parts[2]);
+            }
+            return entities;
+        }
+
+        private long writeCsv(Iterator<T> entities) throws StorageException {
+            String filename = name + ".csv";
+            long rowCount = 0;
+            // Rows are appended to one reused buffer and encoded a chunk at a
+            // time, which keeps formatting and encoding off the per-field path
+            try (OutputStream out = new FileOutputStream(getTempFile(filename))) {
+                StringBuilder rows = new StringBuilder(CSV_CHUNK_SIZE + 1024);
+                rows.append(csvHeader).append(LINE_SEPARATOR);
+                while (entities.hasNext()) {
+                    csvWriter.write(rows, entities.next());
+                    rows.append(LINE_SEPARATOR);
+                    rowCount++;
+                    if (rows.length() >= CSV_CHUNK_SIZE) {
+                        out.write(rows.toString().getBytes(CSV_CHARSET));
+                        rows.setLength(0);
+                    }
                 }
-                treatment.setStatus(TreatmentStatus.valueOf(parts[4]));
-                if (parts.length > 6) {
-                    treatment.setNotes(parts[6]);
+                out.write(rows.toString().getBytes(CSV_CHARSET));
+            } catch (IOException e) {
+                throw new StorageException("Failed to save " + label + ": " + e.getMessage(), e);
+            }
+            commitFile(filename);
+            return rowCount;
+        }
+
+        private List<T> readBinary() throws StorageException {
+            File file = getFile(name + ".bin");
+            if (!file.exists()) {
+                return new ArrayList<>();
+            }
+            return BinaryStore.read(file, binaryCodec);
+        }
+
+        private long writeBinary(Iterator<T> entities) throws StorageException {
+            String filename = name + ".bin";
+            long rows = BinaryStore.write(getTempFile(filename), binaryCodec, entities);
+            commitFile(filename);
+            return rows;
+        }
+
+        private int convertToBinary() throws StorageException {
+            List<T> snapshot = readCsv();
+            List<T> entities = journalEnabled ? journal.replay(snapshot) : snapshot;
+            writeBinary(entities.iterator());
+            return entities.size();
+        }
+    }
+
+    // ===== CURSORS =====
+
+    /**
+     * Reads one CSV snapshot record by record, skipping the header.
+     */
+    private static final class CsvCursor<T> implements EntityCursor<T> {
+        private final File file;
+        private final String label;
+        private final CsvRowDecoder<T> decoder;
+        private final CsvParser csv;
+
+        private CsvCursor(File file, String label, CsvRowDecoder<T> decoder) throws StorageException {
+            this.file = file;
+            this.label = label;
+            this.decoder = decoder;
+            CsvParser parser = null;
+            try {
+                parser = new CsvParser(new FileReader(file));
+                parser.next(); // header
+            } catch (IOException e) {
+                if (parser != null) {
+                    try {
+                        parser.close();
+                    } catch (IOException suppressed) {
+                        e.addSuppressed(suppressed);
+                    }
                 }
-                treatments.add(treatment);
+                throw new StorageException("Failed to load " + label + ": " + e.getMessage(), e);
+            }
+            this.csv = parser;
+        }
+
+        @Override
+        public T next() throws StorageException {
+            try {
+                return csv.next() ? decoder.decode(csv) : null;
+            } catch (IOException e) {
+                throw new StorageException("Failed to load " + label + ": " + e.getMessage(), e);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                throw new StorageException("Invalid data in " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() throws StorageException {
+            try {
+                csv.close();
+            } catch (IOException e) {
+                throw new StorageException("Failed to close " + file.getName() + ": " + e.getMessage(), e);
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to load treatments: " + e.getMessage(), e);
         }
-        return treatments;
     }
 
-    // ===== TREATMENT TYPES =====
-    public void saveTreatmentTypes(List<TreatmentType> types) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("treatment_types.csv")))) {
-            writer.println("id,name,price");
-            for (TreatmentType type : types) {
-                writer.printf("%s,%s,%.2f%n", type.getId(), type.getName(), type.getPrice());
+    /**
+     * Applies pending journal changes to a snapshot cursor: changed entities
+     * replace their snapshot rows, deleted ones are skipped, and new ones
+     * follow the snapshot.
+     */
+    private static final class JournalOverlayCursor<T> implements EntityCursor<T> {
+        private final EntityCursor<T> snapshot;
+        private final EntityCodec<T> codec;
+        private final Map<String, T> changes;
+        private Iterator<T> added;
+
+        private JournalOverlayCursor(EntityCursor<T> snapshot, EntityCodec<T> codec, Map<String, T> changes) {
+            this.snapshot = snapshot;
+            this.codec = codec;
+            this.changes = changes;
+        }
+
+        @Override
+        public T next() throws StorageException {
+            if (added == null) {
+                T entity;
+                while ((entity = snapshot.next()) != null) {
+                    String id = codec.getId(entity);
+                    if (!changes.containsKey(id)) {
+                        return entity;
+                    }
+                    T changed = changes.remove(id);
+                    if (changed != null) {
+                        return changed;
+                    }
+                }
+                changes.values().removeIf(Objects::isNull);
+                added = changes.values().iterator();
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to save treatment types: " + e.getMessage(), e);
+            return added.hasNext() ? added.next() : null;
+        }
+
+        @Override
+        public void close() throws StorageException {
+            snapshot.close();
         }
     }
 
-    public List<TreatmentType> loadTreatmentTypes() throws StorageException {
-        List<TreatmentType> types = new ArrayList<>();
-        File file = getFile("treatment_types.csv");
-        
-        if (!file.exists()) {
-            return types;
+    private static final class EmptyCursor<T> implements EntityCursor<T> {
+        @Override
+        public T next() {
+            return null;
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Adapts a cursor to a sequential Stream that closes the cursor when the
+     * stream is closed. Read errors surface as UncheckedStorageException.
+     */
+    private static <T> Stream<T> toStream(EntityCursor<T> cursor) {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                T entity;
+                try {
+                    entity = cursor.next();
+                } catch (StorageException e) {
+                    throw new UncheckedStorageException(e);
                 }
-                
-                String[] parts = line.split(",");
-                if (parts.length < 3) {
-                    throw new StorageException("Invalid treatment type data in CSV");
+                if (entity == null) {
+                    return false;
                 }
-                
-                TreatmentType type = new TreatmentType(parts[0], parts[1], Double.parseDouble(parts[2]));
-                types.add(type);
+                action.accept(entity);
+                return true;
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to load treatment types: " + e.getMessage(), e);
-        }
-        return types;
-    }
-
-    // ===== BILLS =====
-    public void saveBills(List<Bill> bills) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("bills.csv")))) {
-            writer.println("billId,patientId,treatmentId,totalAmount,isPaid,createdDate,paidDate");
-            for (Bill bill : bills) {
-                String paidDate = bill.getPaidDate() != null ? bill.getPaidDate().format(DATE_FORMATTER) : "";
-                writer.printf("%s,%s,%s,%.2f,%b,%s,%s%n",
-                        bill.getBillId(),
-                        bill.getPatientId(),
-                        bill.getTreatmentId(),
-                        bill.getTotalAmount(),
-                        bill.isPaid(),
-                        bill.getCreatedDate().format(DATE_FORMATTER),
-                        paidDate);
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                cursor.close();
+            } catch (StorageException e) {
+                throw new UncheckedStorageException(e);
             }
-        } catch (IOException e) {
-            throw new StorageException("Failed to save bills: " + e.getMessage(), e);
+        });
+    }
+
+    // ===== CSV ROWS =====
+
+    /**
+     * Appends the timestamp as DATE_FORMATTER would. Years outside
+     * 1..9999 are left to the formatter.
+     */
+    private static void appendTimestamp(StringBuilder row, LocalDateTime timestamp) {
+        int year = timestamp.getYear();
+        if (year < 1 || year > 9999) {
+            row.append(timestamp.format(DATE_FORMATTER));
+            return;
+        }
+        appendDigits(row, year, 4);
+        row.append('-');
+        appendDigits(row, timestamp.getMonthValue(), 2);
+        row.append('-');
+        appendDigits(row, timestamp.getDayOfMonth(), 2);
+        row.append(' ');
+        appendDigits(row, timestamp.getHour(), 2);
+        row.append(':');
+        appendDigits(row, timestamp.getMinute(), 2);
+        row.append(':');
+        appendDigits(row, timestamp.getSecond(), 2);
+    }
+
+    private static void appendDigits(StringBuilder row, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : 10; divisor > 0; divisor /= 10) {
+            row.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Appends the amount as "%.2f" would in Locale.ROOT. Amounts that are
+     * not a whole number of cents, negative or huge are left to the formatter.
+     */
+    private static void appendAmount(StringBuilder row, double amount) {
+        long cents = Math.round(amount * 100);
+        if (amount >= 0 && amount < 1e13 && cents / 100.0 == amount
+                && Double.doubleToRawLongBits(amount) != Long.MIN_VALUE) {
+            long fraction = cents % 100;
+            row.append(cents / 100).append('.')
+               .append((char) ('0' + fraction / 10))
+               .append((char) ('0' + fraction % 10));
+            return;
+        }
+        row.append(String.format(Locale.ROOT, "%.2f", amount));
+    }
+    private static void writeAdminRow(StringBuilder row, Admin admin) {
+        row.append(CsvParser.quote(admin.getId())).append(',')
+           .append(CsvParser.quote(admin.getName())).append(',')
+           .append(CsvParser.quote(admin.getPhone())).append(',')
+           .append(CsvParser.quote(admin.getEmail())).append(',')
+           .append(CsvParser.quote(admin.getDepartment()));
+    }
+
+    private static Admin decodeAdmin(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 4) {
+            throw new StorageException("Invalid admin data in CSV at record " + csv.getRecordNumber());
+        }
+        
+        String department = csv.getFieldCount() > 4 ? csv.getString(4) : "";
+        Admin admin = new Admin(csv.getString(0), csv.getString(1), csv.getString(2), csv.getString(3),
+                                "", department);
+        return admin;
+    }
+
+    private static void writeClinicianRow(StringBuilder row, Clinician clinician) {
+        row.append(CsvParser.quote(clinician.getId())).append(',')
+           .append(CsvParser.quote(clinician.getName())).append(',')
+           .append(CsvParser.quote(clinician.getPhone())).append(',')
+           .append(CsvParser.quote(clinician.getEmail())).append(',')
+           .append(CsvParser.quote(clinician.getSpecialization())).append(',')
+           .append(clinician.getMaxPatients());
+    }
+
+    private static Clinician decodeClinician(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 4) {
+            throw new StorageException("Invalid clinician data in CSV at record " + csv.getRecordNumber());
         }
+        
+        String specialization = csv.getFieldCount() > 4 ? csv.getString(4) : "";
+        int maxPatients = csv.getFieldCount() > 5 ? csv.getInt(5) : 0;
+        Clinician clinician = new Clinician(csv.getString(0), csv.getString(1), csv.getString(2),
+                                            csv.getString(3), "", specialization, maxPatients);
+        return clinician;
+    }
+
+    private static void writePatientRow(StringBuilder row, Patient patient) {
+        row.append(CsvParser.quote(patient.getId())).append(',')
+           .append(CsvParser.quote(patient.getName())).append(',')
+           .append(CsvParser.quote(patient.getPhone())).append(',')
+           .append(CsvParser.quote(patient.getEmail())).append(',')
+           .append(patient.isRegistered()).append(',')
+           .append(patient.isFlagged()).append(',')
+           .append(patient.isOptedInForPromotions());
     }
 
-    public List<Bill> loadBills() throws StorageException {
-        List<Bill> bills = new ArrayList<>();
-        File file = getFile("bills.csv");
+    private static Patient decodePatient(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 4) {
+            throw new StorageException("Invalid patient data in CSV at record " + csv.getRecordNumber());
+        }
         
-        if (!file.exists()) {
-            return bills;
+        Patient patient = new Patient(csv.getString(0), csv.getString(1), csv.getString(2),
+                                      csv.getString(3), "");
+        if (csv.getFieldCount() > 4) {
+            patient.setRegistered(csv.getBoolean(4));
+        }
+        if (csv.getFieldCount() > 5) {
+            patient.setFlagged(csv.getBoolean(5));
         }
+        if (csv.getFieldCount() > 6) {
+            patient.setOptedInForPromotions(csv.getBoolean(6));
+        }
+        return patient;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                String[] parts = line.split(",");
-                if (parts.length < 4) {
-                    throw new StorageException("Invalid bill data in CSV");
-                }
-                
-                Bill bill = new Bill(parts[0], parts[1], parts[2], Double.parseDouble(parts[3]));
-                if (parts.length > 4) {
-                    bill.setPaid(Boolean.parseBoolean(parts[4]));
-                }
-                bills.add(bill);
-            }
-        } catch (IOException e) {
-            throw new StorageException("Failed to load bills: " + e.getMessage(), e);
+    private static void writeTreatmentRow(StringBuilder row, Treatment treatment) {
+        row.append(CsvParser.quote(treatment.getTreatmentId())).append(',')
+           .append(CsvParser.quote(treatment.getPatientId())).append(',')
+           .append(CsvParser.quote(treatment.getClinicianId())).append(',')
+           .append(CsvParser.quote(treatment.getTreatmentTypeId())).append(',')
+           .append(treatment.getStatus().name()).append(',');
+        appendTimestamp(row, treatment.getCreatedDate());
+        row.append(',').append(CsvParser.quote(treatment.getNotes()));
+    }
+
+    private static Treatment decodeTreatment(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 5) {
+            throw new StorageException("Invalid treatment data in CSV at record " + csv.getRecordNumber());
         }
-        return bills;
+        
+        Treatment treatment = new Treatment(csv.getString(0), csv.getString(1), csv.getString(3));
+        if (!csv.isEmpty(2)) {
+            treatment.setClinicianId(csv.getString(2));
+        }
+        treatment.setStatus(csv.getEnum(4, TREATMENT_STATUSES));
+        if (csv.getFieldCount() > 5 && !csv.isEmpty(5)) {
+            treatment.setCreatedDate(csv.getTimestamp(5));
+        }
+        if (csv.getFieldCount() > 6) {
+            treatment.setNotes(csv.getString(6));
+        }
+        return treatment;
     }
 
-    // ===== NOTIFICATIONS =====
-    public void saveNotifications(List<Notification> notifications) throws StorageException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(getFile("notifications.csv")))) {
-            writer.println("notificationId,patientId,message,timestamp,isPromotional");
-            for (Notification notification : notifications) {
-                writer.printf("%s,%s,%s,%s,%b%n",
-                        notification.getNotificationId(),
-                        notification.getPatientId(),
-                        notification.getMessage(),
-                        notification.getTimestamp().format(DATE_FORMATTER),
-                        notification.isPromotional());
-            }
-        } catch (IOException e) {
-            throw new StorageException("Failed to save notifications: " + e.getMessage(), e);
+    private static void writeTreatmentTypeRow(StringBuilder row, TreatmentType type) {
+        row.append(CsvParser.quote(type.getId())).append(',')
+           .append(CsvParser.quote(type.getName())).append(',');
+        appendAmount(row, type.getPrice());
+    }
+
+    private static TreatmentType decodeTreatmentType(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 3) {
+            throw new StorageException("Invalid treatment type data in CSV at record "
+                                       + csv.getRecordNumber());
+        }
+        
+        TreatmentType type = new TreatmentType(csv.getString(0), csv.getString(1), csv.getDouble(2));
+        return type;
+    }
+
+    private static void writeBillRow(StringBuilder row, Bill bill) {
+        row.append(CsvParser.quote(bill.getBillId())).append(',')
+           .append(CsvParser.quote(bill.getPatientId())).append(',')
+           .append(CsvParser.quote(bill.getTreatmentId())).append(',');
+        appendAmount(row, bill.getTotalAmount());
+        row.append(',').append(bill.isPaid()).append(',');
+        appendTimestamp(row, bill.getCreatedDate());
+        row.append(',');
+        if (bill.getPaidDate() != null) {
+            appendTimestamp(row, bill.getPaidDate());
         }
     }
 
-    public List<Notification> loadNotifications() throws StorageException {
-        List<Notification> notifications = new ArrayList<>();
-        File file = getFile("notifications.csv");
+    private static Bill decodeBill(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 4) {
+            throw new StorageException("Invalid bill data in CSV at record " + csv.getRecordNumber());
+        }
         
-        if (!file.exists()) {
-            return notifications;
+        Bill bill = new Bill(csv.getString(0), csv.getString(1), csv.getString(2), csv.getDouble(3));
+        if (csv.getFieldCount() > 4) {
+            bill.setPaid(csv.getBoolean(4));
+        }
+        if (csv.getFieldCount() > 5 && !csv.isEmpty(5)) {
+            bill.setCreatedDate(csv.getTimestamp(5));
         }
+        if (csv.getFieldCount() > 6) {
+            bill.setPaidDate(csv.getTimestamp(6));
+        }
+        return bill;
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            boolean isFirstLine = true;
-            while ((line = reader.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-                
-                String[] parts = line.split(",", 5);
-                if (parts.length < 4) {
-                    throw new StorageException("Invalid notification data in CSV");
-                }
-                
-                Notification notification = new Notification(parts[0], parts[1], parts[2], 
-                                                             Boolean.parseBoolean(parts[4]));
-                notifications.add(notification);
-            }
-        } catch (IOException e) {
-            throw new StorageException("Failed to load notifications: " + e.getMessage(), e);
+    private static void writeNotificationRow(StringBuilder row, Notification notification) {
+        row.append(CsvParser.quote(notification.getNotificationId())).append(',')
+           .append(CsvParser.quote(notification.getPatientId())).append(',')
+           .append(CsvParser.quote(notification.getMessage())).append(',');
+        appendTimestamp(row, notification.getTimestamp());
+        row.append(',').append(notification.isPromotional());
+    }
+
+    private static Notification decodeNotification(CsvParser csv) throws StorageException {
+        if (csv.getFieldCount() < 5) {
+            throw new StorageException("Invalid notification data in CSV at record "
+                                       + csv.getRecordNumber());
         }
-        return notifications;
+        
+        Notification notification = new Notification(csv.getString(0), csv.getString(1),
+                                                     csv.getString(2), csv.getBoolean(4));
+        if (!csv.isEmpty(3)) {
+            notification.setTimestamp(csv.getTimestamp(3));
+        }
+        return notification;
     }
 }
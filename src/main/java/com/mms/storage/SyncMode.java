@@ -0,0 +1,13 @@
+package com.mms.storage;
+
+/**
+ * Enum representing how journal appends and snapshots are made durable.
+ */
+public enum SyncMode {
+    /** Leave flushing to the operating system. Survives a process crash but not a power loss. */
+    NONE,
+    /** fsync after every journal record. */
+    ALWAYS,
+    /** Queue concurrent records and fsync once per batch (group commit). */
+    GROUP
+}
@@ -0,0 +1,82 @@
+package com.mms.benchmarks;
+
+import com.mms.controllers.BillingRunReport;
+import com.mms.controllers.MMSController;
+import com.mms.models.*;
+import com.mms.storage.InMemoryStorageBackend;
+import com.mms.storage.StorageBackend;
+import com.mms.storage.StorageConfig;
+import com.mms.storage.StorageEngine;
+import com.mms.storage.StorageManager;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times an end-of-day billing run over a large treatment set, in memory
+ * and on CSV storage with and without the journal.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.BillingRunBenchmark [-Dexec.args="treatments"]
+ *
+ * Half the treatments are TREATMENT_ASSESSED, a quarter COMPLETED and a
+ * quarter NEW_TREATMENT, so three quarters get billed. Storage directories
+ * are created under java.io.tmpdir. A million treatments need a heap of
+ * about 2 GB (MAVEN_OPTS=-Xmx2g).
+ */
+public class BillingRunBenchmark {
+    private static final int PATIENTS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File dir = Files.createTempDirectory("mms-billing").toFile();
+        System.out.printf("%-12s %12s %12s %10s %12s%n", "storage", "treatments", "bills", "ms", "bills/s");
+        run("memory", new InMemoryStorageBackend(), count);
+        run("csv", storage(new File(dir, "snapshot"), false), count);
+        run("csv+journal", storage(new File(dir, "journal"), true), count);
+    }
+
+    private static StorageBackend storage(File dir, boolean journal) throws Exception {
+        System.setProperty(StorageConfig.JOURNAL_ENABLED, String.valueOf(journal));
+        dir.mkdirs();
+        return new StorageManager(dir, StorageEngine.CSV);
+    }
+
+    private static void run(String name, StorageBackend storage, int count) throws Exception {
+        seed(storage, count);
+        MMSController controller = new MMSController(storage);
+        BillingRunReport report = controller.runBilling();
+        System.out.printf("%-12s %12d %12d %10d %12.0f%n", name, report.getTreatmentsScanned(),
+                report.getBillsCreated(), report.getElapsedMillis(),
+                report.getBillsCreated() * 1000.0 / Math.max(1, report.getElapsedMillis()));
+        System.gc();
+    }
+
+    private static void seed(StorageBackend storage, int count) throws Exception {
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = new Patient("PAT" + i, "Patient " + i, "555-" + i, "patient" + i + "@email.com", "pass");
+            patient.upgrade();
+            patients.add(patient);
+        }
+        List<Treatment> treatments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Treatment treatment = new Treatment("TRE" + i, "PAT" + (i % PATIENTS), "TRT00" + (1 + i % 3));
+            treatment.setStatus(switch (i % 4) {
+                case 0, 1 -> TreatmentStatus.TREATMENT_ASSESSED;
+                case 2 -> TreatmentStatus.COMPLETED;
+                default -> TreatmentStatus.NEW_TREATMENT;
+            });
+            treatments.add(treatment);
+        }
+        storage.patients().saveAll(patients);
+        storage.admins().saveAll(List.of(new Admin("ADM001", "Admin", "555-0001", "admin@mms.com", "pass", "Ops")));
+        storage.treatmentTypes().saveAll(List.of(new TreatmentType("TRT001", "Consultation", 100.0),
+                                                 new TreatmentType("TRT002", "Surgery", 5000.0),
+                                                 new TreatmentType("TRT003", "Therapy", 200.0)));
+        storage.treatments().saveAll(treatments);
+        storage.bills().saveAll(List.of());
+    }
+}
@@ -0,0 +1,73 @@
+package com.mms.benchmarks;
+
+import com.mms.controllers.Broadcast;
+import com.mms.controllers.MMSController;
+import com.mms.models.*;
+import com.mms.storage.InMemoryStorageBackend;
+import com.mms.storage.StorageBackend;
+import com.mms.storage.StorageConfig;
+import com.mms.storage.StorageEngine;
+import com.mms.storage.StorageManager;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times a promotional broadcast to a large patient base, in memory and on
+ * CSV storage with and without the journal.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.BroadcastBenchmark [-Dexec.args="patients"]
+ *
+ * Every tenth patient has opted out, so nine in ten receive the message.
+ * "return" is how long broadcastNotification blocked the caller; "done" is
+ * how long until every notification was stored. Storage directories are
+ * created under java.io.tmpdir.
+ */
+public class BroadcastBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        File dir = Files.createTempDirectory("mms-broadcast").toFile();
+        System.out.printf("%-12s %10s %10s %10s %10s %12s%n",
+                "storage", "patients", "stored", "return ms", "done ms", "stored/s");
+        run("memory", new InMemoryStorageBackend(), count);
+        run("csv", storage(new File(dir, "snapshot"), false), count);
+        run("csv+journal", storage(new File(dir, "journal"), true), count);
+    }
+
+    private static StorageBackend storage(File dir, boolean journal) throws Exception {
+        System.setProperty(StorageConfig.JOURNAL_ENABLED, String.valueOf(journal));
+        dir.mkdirs();
+        return new StorageManager(dir, StorageEngine.CSV);
+    }
+
+    private static void run(String name, StorageBackend storage, int count) throws Exception {
+        seed(storage, count);
+        MMSController controller = new MMSController(storage);
+        long start = System.nanoTime();
+        Broadcast broadcast = controller.broadcastNotification("Spring offer", true, Set.of());
+        long returned = System.nanoTime() - start;
+        if (!broadcast.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Broadcast did not finish: " + broadcast);
+        }
+        System.out.printf("%-12s %10d %10d %10.1f %10d %12.0f%n", name, count, broadcast.getStored(),
+                returned / 1e6, broadcast.getElapsedMillis(), broadcast.getThroughput());
+        System.gc();
+    }
+
+    private static void seed(StorageBackend storage, int count) throws Exception {
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Patient patient = new Patient("PAT" + i, "Patient " + i, "555-" + i, "patient" + i + "@email.com", "pass");
+            patient.setOptedInForPromotions(i % 10 != 0);
+            patients.add(patient);
+        }
+        storage.patients().saveAll(patients);
+        storage.admins().saveAll(List.of(new Admin("ADM001", "Admin", "555-0001", "admin@mms.com", "pass", "Ops")));
+        storage.notifications().saveAll(List.of());
+    }
+}
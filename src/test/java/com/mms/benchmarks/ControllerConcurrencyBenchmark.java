@@ -0,0 +1,100 @@
+package com.mms.benchmarks;
+
+import com.mms.controllers.MMSController;
+import com.mms.models.*;
+import com.mms.storage.InMemoryStorageBackend;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures MMSController throughput on a mixed booking, billing and lookup
+ * workload as the number of concurrent sessions grows. Storage is the
+ * in-memory backend, so the numbers reflect controller locking only.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.ControllerConcurrencyBenchmark [-Dexec.args="seconds"]
+ *
+ * Each operation picks a random patient and does one of: three lookups
+ * (60%), a booking (20%), billing the latest treatment (10%) or paying the
+ * latest bill (10%). Speedup is relative to one thread and cannot exceed
+ * the number of available cores.
+ */
+public class ControllerConcurrencyBenchmark {
+    private static final int PATIENTS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Available cores: " + cores);
+        System.out.printf("%8s %14s %10s%n", "threads", "ops/s", "speedup");
+        double baseline = 0;
+        for (int threads = 1; threads <= Math.max(8, cores * 2); threads *= 2) {
+            double perSecond = run(threads, seconds);
+            if (threads == 1) {
+                baseline = perSecond;
+            }
+            System.out.printf("%8d %14.0f %9.2fx%n", threads, perSecond, perSecond / baseline);
+        }
+    }
+
+    private static double run(int threads, long seconds) throws Exception {
+        MMSController controller = new MMSController(seed());
+        AtomicLong operations = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> sessions = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            sessions.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int index = random.nextInt(PATIENTS);
+                    String patientId = "PAT" + index;
+                    int choice = random.nextInt(100);
+                    if (choice < 60) {
+                        controller.getPatient(patientId);
+                        controller.getPatientTreatments(patientId);
+                        controller.login("patient" + index + "@email.com", "pass");
+                    } else if (choice < 80) {
+                        controller.bookTreatment(patientId, "TRT1");
+                    } else if (choice < 90) {
+                        List<Treatment> treatments = controller.getPatientTreatments(patientId);
+                        if (!treatments.isEmpty()) {
+                            controller.generateBill(treatments.get(treatments.size() - 1).getTreatmentId());
+                        }
+                    } else {
+                        List<Bill> bills = controller.getPatientBills(patientId);
+                        if (!bills.isEmpty()) {
+                            controller.recordPayment(bills.get(bills.size() - 1).getBillId());
+                        }
+                    }
+                    operations.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        for (Future<?> session : sessions) {
+            session.get();
+        }
+        return operations.get() / (double) seconds;
+    }
+
+    private static InMemoryStorageBackend seed() throws Exception {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = new Patient("PAT" + i, "Patient " + i, "555-" + i, "patient" + i + "@email.com", "pass");
+            patient.upgrade();
+            patients.add(patient);
+        }
+        backend.patients().saveAll(patients);
+        backend.admins().saveAll(List.of(new Admin("ADM1", "Admin", "555-0001", "admin@mms.com", "pass", "Ops")));
+        backend.clinicians().saveAll(List.of(
+                new Clinician("CLI1", "Dr. Bench", "555-0010", "bench@mms.com", "pass", "General", 10)));
+        backend.treatmentTypes().saveAll(List.of(new TreatmentType("TRT1", "Consultation", 100.0)));
+        return backend;
+    }
+}
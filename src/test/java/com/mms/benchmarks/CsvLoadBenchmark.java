@@ -0,0 +1,98 @@
+package com.mms.benchmarks;
+
+import com.mms.models.Patient;
+import com.mms.storage.CsvParser;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares loading patients.csv with BufferedReader.readLine() plus
+ * String.split(",") (the previous loader) against CsvParser.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.CsvLoadBenchmark [-Dexec.args="rows"]
+ *
+ * Each loader runs a few warm-up rounds before the measured rounds; the
+ * file is read from the page cache, so the numbers measure parsing. Give
+ * the JVM a heap that holds every row (e.g. MAVEN_OPTS="-Xms4g -Xmx4g"),
+ * otherwise garbage collection dominates both loaders.
+ */
+public class CsvLoadBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        File file = Files.createTempFile("mms-patients", ".csv").toFile();
+        file.deleteOnExit();
+        writePatients(file, rows);
+        System.out.printf("%,d rows, %,d bytes%n", rows, file.length());
+        System.out.printf("%-10s %12s %14s%n", "loader", "ms/load", "rows/s");
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            loadWithSplit(file);
+            loadWithParser(file);
+        }
+        report("split", file, rows, true);
+        report("parser", file, rows, false);
+    }
+
+    private static void report(String name, File file, int rows, boolean split) throws IOException {
+        long total = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Patient> patients = split ? loadWithSplit(file) : loadWithParser(file);
+            total += System.nanoTime() - start;
+            if (patients.size() != rows) {
+                throw new IllegalStateException(name + " loaded " + patients.size() + " rows");
+            }
+        }
+        double millis = total / 1e6 / MEASURED_ROUNDS;
+        System.out.printf("%-10s %12.1f %14.0f%n", name, millis, rows / (millis / 1000));
+    }
+
+    private static void writePatients(File file, int rows) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16))) {
+            writer.println("id,name,phone,email,isRegistered,isFlagged,optedInForPromotions");
+            for (int i = 0; i < rows; i++) {
+                writer.printf("PAT%d,Patient %d,07700%06d,patient%d@example.com,%b,%b,%b%n",
+                        i, i, i % 1_000_000, i, i % 2 == 0, i % 7 == 0, i % 3 == 0);
+            }
+        }
+    }
+
+    private static List<Patient> loadWithSplit(File file) throws IOException {
+        List<Patient> patients = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                Patient patient = new Patient(parts[0], parts[1], parts[2], parts[3], "");
+                patient.setRegistered(Boolean.parseBoolean(parts[4]));
+                patient.setFlagged(Boolean.parseBoolean(parts[5]));
+                patient.setOptedInForPromotions(Boolean.parseBoolean(parts[6]));
+                patients.add(patient);
+            }
+        }
+        return patients;
+    }
+
+    private static List<Patient> loadWithParser(File file) throws IOException {
+        List<Patient> patients = new ArrayList<>();
+        try (CsvParser csv = new CsvParser(new FileReader(file))) {
+            csv.next();
+            while (csv.next()) {
+                Patient patient = new Patient(csv.getString(0), csv.getString(1), csv.getString(2),
+                                              csv.getString(3), "");
+                patient.setRegistered(csv.getBoolean(4));
+                patient.setFlagged(csv.getBoolean(5));
+                patient.setOptedInForPromotions(csv.getBoolean(6));
+                patients.add(patient);
+            }
+        }
+        return patients;
+    }
+}
@@ -0,0 +1,67 @@
+package com.mms.benchmarks;
+
+import com.mms.models.Bill;
+import com.mms.storage.EntityCodecs;
+import com.mms.storage.EntityJournal;
+import com.mms.storage.GroupCommitter;
+import com.mms.storage.SyncMode;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures durable journal appends per second with per-record fsync versus group commit.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.GroupCommitBenchmark [-Dexec.args="seconds"]
+ *
+ * The storage directory is created under java.io.tmpdir; point that at the
+ * disk you want to measure, since tmpfs makes fsync nearly free.
+ */
+public class GroupCommitBenchmark {
+    private static final int[] THREAD_COUNTS = { 1, 4, 16, 64 };
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        File dir = Files.createTempDirectory("mms-group-commit").toFile();
+        System.out.printf("%-8s %8s %14s %12s%n", "mode", "threads", "mutations/s", "avg batch");
+        for (int threads : THREAD_COUNTS) {
+            run(dir, SyncMode.ALWAYS, threads, seconds);
+            run(dir, SyncMode.GROUP, threads, seconds);
+        }
+    }
+
+    private static void run(File dir, SyncMode mode, int threads, long seconds) throws Exception {
+        GroupCommitter committer = mode == SyncMode.GROUP ? new GroupCommitter(0, 512) : null;
+        File base = new File(dir, mode.name().toLowerCase() + "-" + threads + ".journal");
+        EntityJournal<Bill> journal = new EntityJournal<>(base, EntityCodecs.BILL, mode, committer);
+        Bill bill = new Bill("BILL1", "PAT1", "TRE1", 100.0);
+
+        AtomicLong mutations = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    journal.appendPut(bill);
+                    mutations.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+        journal.reset();
+
+        double perSecond = mutations.get() / (double) seconds;
+        String avgBatch = committer != null && committer.getBatchCount() > 0
+                ? String.format("%.1f", committer.getRecordCount() / (double) committer.getBatchCount())
+                : "1.0";
+        System.out.printf("%-8s %8d %14.0f %12s%n", mode, threads, perSecond, avgBatch);
+        if (committer != null) {
+            committer.close();
+        }
+    }
+}
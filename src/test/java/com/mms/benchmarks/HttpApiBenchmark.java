@@ -0,0 +1,119 @@
+package com.mms.benchmarks;
+
+import com.mms.api.HttpApiServer;
+import com.mms.controllers.MMSController;
+import com.mms.models.*;
+import com.mms.storage.InMemoryStorageBackend;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures HttpApiServer throughput with concurrent keep-alive clients,
+ * once with single requests and once with batches.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.HttpApiBenchmark [-Dexec.args="seconds clients"]
+ *
+ * Single mode alternates GET /api/patients/{id} and POST /api/treatments;
+ * batch mode posts 100 bookings per request to /api/batch. Storage is in
+ * memory and the clients run in the same JVM.
+ */
+public class HttpApiBenchmark {
+    private static final int PATIENTS = 1_000;
+    private static final int BATCH_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        try (HttpApiServer server = new HttpApiServer(new MMSController(seed()), 0)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort() + "/api/";
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            System.out.printf("%-8s %8s %14s %14s%n", "mode", "clients", "requests/s", "operations/s");
+            run(client, base, clients, seconds, false);
+            run(client, base, clients, seconds, true);
+        }
+    }
+
+    private static void run(HttpClient client, String base, int clients, long seconds, boolean batch)
+            throws Exception {
+        AtomicLong requests = new AtomicLong();
+        AtomicLong operations = new AtomicLong();
+        AtomicLong failures = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> sessions = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                sessions.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long sent = 0;
+                    while (System.nanoTime() < deadline) {
+                        String patientId = "PAT" + random.nextInt(PATIENTS);
+                        HttpRequest request;
+                        int count = 1;
+                        if (batch) {
+                            StringJoiner body = new StringJoiner(",", "[", "]");
+                            for (int j = 0; j < BATCH_SIZE; j++) {
+                                body.add("{\"op\":\"book\",\"patientId\":\"" + patientId
+                                        + "\",\"treatmentTypeId\":\"TRT1\"}");
+                            }
+                            request = post(base + "batch", body.toString());
+                            count = BATCH_SIZE;
+                        } else if (sent % 2 == 0) {
+                            request = HttpRequest.newBuilder(URI.create(base + "patients/" + patientId)).build();
+                        } else {
+                            request = post(base + "treatments",
+                                    "{\"patientId\":\"" + patientId + "\",\"treatmentTypeId\":\"TRT1\"}");
+                        }
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() >= 300) {
+                            failures.incrementAndGet();
+                        }
+                        requests.incrementAndGet();
+                        operations.addAndGet(count);
+                        sent++;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> session : sessions) {
+                session.get();
+            }
+        }
+        System.out.printf("%-8s %8d %14.0f %14.0f%s%n", batch ? "batch" : "single", clients,
+                requests.get() / (double) seconds, operations.get() / (double) seconds,
+                failures.get() > 0 ? "  (" + failures.get() + " failed)" : "");
+    }
+
+    private static HttpRequest post(String uri, String body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static InMemoryStorageBackend seed() throws Exception {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            Patient patient = new Patient("PAT" + i, "Patient " + i, "555-" + i, "patient" + i + "@email.com", "pass");
+            patient.upgrade();
+            patients.add(patient);
+        }
+        backend.patients().saveAll(patients);
+        backend.admins().saveAll(List.of(new Admin("ADM1", "Admin", "555-0001", "admin@mms.com", "pass", "Ops")));
+        backend.treatmentTypes().saveAll(List.of(new TreatmentType("TRT1", "Consultation", 100.0)));
+        return backend;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mms.benchmarks;
+
+import com.mms.controllers.IdAllocator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures ids issued per second by IdAllocator as threads are added, with
+ * all threads on one prefix (the worst case) and each on its own prefix.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.IdAllocatorBenchmark [-Dexec.args="seconds"]
+ *
+ * Numbers include building the id string, which dominates the cost of the
+ * counter increment itself.
+ */
+public class IdAllocatorBenchmark {
+    private static final String[] PREFIXES = { "PAT", "TRE", "BILL", "NOT", "TRT" };
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+        System.out.println("Available cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %16s %16s%n", "threads", "shared ids/s", "per-prefix ids/s");
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            System.out.printf("%8d %16.0f %16.0f%n", threads,
+                    run(threads, seconds, true), run(threads, seconds, false));
+        }
+    }
+
+    private static double run(int threads, long seconds, boolean shared) throws Exception {
+        IdAllocator allocator = new IdAllocator();
+        AtomicLong issued = new AtomicLong();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String prefix = shared ? "PAT" : PREFIXES[t % PREFIXES.length];
+            workers.add(pool.submit(() -> {
+                long count = 0;
+                int sink = 0;
+                while ((count & 1023) != 0 || System.nanoTime() < deadline) {
+                    sink += allocator.next(prefix).length();
+                    count++;
+                }
+                issued.addAndGet(count + (sink == 0 ? 1 : 0));
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        return issued.get() / ((System.nanoTime() - start) / 1e9);
+    }
+}
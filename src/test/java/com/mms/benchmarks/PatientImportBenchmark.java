@@ -0,0 +1,74 @@
+package com.mms.benchmarks;
+
+import com.mms.controllers.ImportReport;
+import com.mms.controllers.MMSController;
+import com.mms.storage.InMemoryStorageBackend;
+import com.mms.storage.StorageBackend;
+import com.mms.storage.StorageConfig;
+import com.mms.storage.StorageEngine;
+import com.mms.storage.StorageManager;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Times a bulk patient import from CSV and JSON-lines files into the
+ * in-memory backend and into CSV storage with and without the journal.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.PatientImportBenchmark [-Dexec.args="rows"]
+ *
+ * Every 100th row reuses an earlier email, so the reports also show the
+ * duplicate check at work. Storage directories are created under
+ * java.io.tmpdir.
+ */
+public class PatientImportBenchmark {
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        File dir = Files.createTempDirectory("mms-import").toFile();
+        File csv = new File(dir, "patients.csv");
+        File jsonl = new File(dir, "patients.jsonl");
+        writeFiles(csv, jsonl, rows);
+
+        System.out.printf("%-8s %-14s %10s %10s %10s %12s%n",
+                "format", "storage", "rows", "imported", "ms", "rows/s");
+        for (File file : new File[] { csv, jsonl }) {
+            run(file, "memory", new InMemoryStorageBackend());
+            run(file, "csv", storage(dir, file, false));
+            run(file, "csv+journal", storage(dir, file, true));
+        }
+    }
+
+    private static StorageBackend storage(File dir, File input, boolean journal) throws Exception {
+        System.setProperty(StorageConfig.JOURNAL_ENABLED, String.valueOf(journal));
+        File storageDir = new File(dir, input.getName() + (journal ? "-journal" : "-snapshot"));
+        storageDir.mkdirs();
+        return new StorageManager(storageDir, StorageEngine.CSV);
+    }
+
+    private static void run(File file, String storageName, StorageBackend storage) throws Exception {
+        MMSController controller = new MMSController(storage);
+        ImportReport report = controller.importPatients(file);
+        String format = file.getName().endsWith(".csv") ? "csv" : "jsonl";
+        System.out.printf("%-8s %-14s %10d %10d %10d %12.0f%n", format, storageName,
+                report.getRowsRead(), report.getImported(), report.getElapsedMillis(),
+                report.getRowsRead() * 1000.0 / Math.max(1, report.getElapsedMillis()));
+    }
+
+    private static void writeFiles(File csv, File jsonl, int rows) throws Exception {
+        try (BufferedWriter csvOut = Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter jsonOut = Files.newBufferedWriter(jsonl.toPath(), StandardCharsets.UTF_8)) {
+            csvOut.write("name,phone,email,password,registered\n");
+            for (int i = 0; i < rows; i++) {
+                int id = i % 100 == 99 ? i - 50 : i;
+                String email = "import" + id + "@email.com";
+                boolean registered = i % 3 == 0;
+                csvOut.write("Patient " + i + ",555-" + i + "," + email + ",pass" + i + "," + registered + "\n");
+                jsonOut.write("{\"name\":\"Patient " + i + "\",\"phone\":\"555-" + i + "\",\"email\":\""
+                        + email + "\",\"password\":\"pass" + i + "\",\"registered\":" + registered + "}\n");
+            }
+        }
+    }
+}
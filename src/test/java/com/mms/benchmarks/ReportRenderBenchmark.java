@@ -0,0 +1,83 @@
+package com.mms.benchmarks;
+
+import com.mms.cli.ReportTable;
+import com.mms.models.Bill;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures printing every bill as the admin bills report did before, with
+ * several printf calls per row, against one ReportTable page holding all
+ * rows. Output goes to a temporary file through a PrintStream set up like
+ * System.out (autoflush over an 8 KB buffer), so each flushed line is one
+ * write call as on a console.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.ReportRenderBenchmark [-Dexec.args="bills rounds"]
+ *
+ * A terminal adds its own rendering time per write on top of these
+ * numbers, which is where most of the old report's minutes went.
+ */
+public class ReportRenderBenchmark {
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<Bill> bills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Bill bill = new Bill("BILL" + (i + 1), "PAT" + (i / 3 + 1), "TRE" + (i + 1), 100 + (i % 50) * 25.5);
+            if (i % 2 == 0) {
+                bill.markPaid();
+            }
+            bills.add(bill);
+        }
+        File file = File.createTempFile("mms-report", ".txt");
+        file.deleteOnExit();
+        ReportTable<Bill> table = new ReportTable<Bill>("ALL BILLS")
+                .text("Bill ID", Bill::getBillId)
+                .text("Patient ID", Bill::getPatientId)
+                .text("Treatment ID", Bill::getTreatmentId)
+                .amount("Amount", Bill::getTotalAmount)
+                .text("Status", b -> b.isPaid() ? "PAID" : "PENDING");
+
+        System.out.printf("%d bills%n%6s %14s %14s%n", count, "round", "printf ms", "table ms");
+        for (int round = 1; round <= rounds; round++) {
+            long printf;
+            long rendered;
+            try (PrintStream out = console(file)) {
+                long start = System.nanoTime();
+                printRows(out, bills);
+                printf = (System.nanoTime() - start) / 1_000_000;
+            }
+            try (PrintStream out = console(file)) {
+                long start = System.nanoTime();
+                table.print(out, bills, 0, bills.size());
+                rendered = (System.nanoTime() - start) / 1_000_000;
+            }
+            System.out.printf("%6d %14d %14d%n", round, printf, rendered);
+        }
+    }
+
+    private static PrintStream console(File file) throws Exception {
+        return new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 8192), true);
+    }
+
+    /** The bills report as it was printed before ReportTable. */
+    private static void printRows(PrintStream out, List<Bill> bills) {
+        out.println("\n╔═══════════════════════════════════════════════════════════════════╗");
+        out.println("║                         ALL BILLS                               ║");
+        out.println("╠═══════════════════════════════════════════════════════════════════╣");
+        for (Bill b : bills) {
+            out.printf("║ Bill ID: %-25s Amount: $%.2f ║\n", b.getBillId(), b.getTotalAmount());
+            out.printf("║ Patient ID: %-35s ║\n", b.getPatientId());
+            out.printf("║ Status: %s                                              ║\n",
+                b.isPaid() ? "PAID" : "PENDING");
+            out.println("╠═══════════════════════════════════════════════════════════════════╣");
+        }
+        out.println("╚═══════════════════════════════════════════════════════════════════╝");
+    }
+}
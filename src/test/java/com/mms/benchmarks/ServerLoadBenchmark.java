@@ -0,0 +1,188 @@
+package com.mms.benchmarks;
+
+import com.mms.cli.MMSServer;
+import com.mms.controllers.MMSController;
+import com.mms.models.*;
+import com.mms.storage.InMemoryStorageBackend;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives an in-process MMSServer with many concurrent scripted sessions
+ * and reports per-action latency as seen by the client.
+ *
+ * Run with:
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *       -Dexec.mainClass=com.mms.benchmarks.ServerLoadBenchmark [-Dexec.args="sessions rounds"]
+ *
+ * Every tenth session logs in as the admin, sends a notification and
+ * lists treatment types; the others log in as their own patient, book a
+ * treatment and view treatments and bills. Each action is timed from
+ * sending the input until the next prompt arrives. Storage is in memory.
+ */
+public class ServerLoadBenchmark {
+    private static final String MENU_PROMPT = "Select option: ";
+
+    private final Map<String, ConcurrentLinkedQueue<Long>> latencies = new ConcurrentSkipListMap<>();
+    private final AtomicLong errors = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        new ServerLoadBenchmark().run(sessions, rounds);
+    }
+
+    private void run(int sessions, int rounds) throws Exception {
+        MMSController controller = new MMSController(seed(sessions));
+        try (MMSServer server = new MMSServer(controller, 0)) {
+            server.start();
+            long start = System.nanoTime();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> results = new ArrayList<>();
+                for (int i = 0; i < sessions; i++) {
+                    int session = i;
+                    results.add(clients.submit(() -> {
+                        runSession(server.getPort(), session, rounds);
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report(sessions, seconds);
+        }
+    }
+
+    private void runSession(int port, int session, int rounds) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            Client client = new Client(socket);
+            client.await(MENU_PROMPT);
+            if (session % 10 == 0) {
+                client.send("1", "Email: ", null);
+                client.send("admin@mms.com", "Password: ", null);
+                client.send("admin123", MENU_PROMPT, "login");
+                for (int round = 0; round < rounds; round++) {
+                    client.send("9", "Enter patient ID: ", null);
+                    client.send("PAT" + (session + 1), "Enter message: ", null);
+                    client.send("Reminder " + round, "Is promotional (y/n): ", null);
+                    client.send("y", MENU_PROMPT, "send notification");
+                    client.send("10", "Select: ", null);
+                    client.send("2", MENU_PROMPT, "list treatment types");
+                }
+                client.send("13", MENU_PROMPT, "logout");
+            } else {
+                client.send("3", "Email: ", null);
+                client.send("patient" + session + "@email.com", "Password: ", null);
+                client.send("pass", MENU_PROMPT, "login");
+                for (int round = 0; round < rounds; round++) {
+                    client.send("1", "Enter treatment type ID to book: ", "list treatment types");
+                    client.send("TRT1", MENU_PROMPT, "book treatment");
+                    client.send("2", MENU_PROMPT, "view treatments");
+                    client.send("3", MENU_PROMPT, "view bills");
+                }
+                client.send("5", MENU_PROMPT, "logout");
+            }
+            client.send("4", null, null);
+        }
+    }
+
+    private void record(String action, long nanos) {
+        latencies.computeIfAbsent(action, k -> new ConcurrentLinkedQueue<>()).add(nanos);
+    }
+
+    private void report(int sessions, double seconds) {
+        long total = 0;
+        System.out.printf("%d sessions in %.2f s%n", sessions, seconds);
+        System.out.printf("%-22s %9s %10s %10s%n", "action", "count", "p50 ms", "p99 ms");
+        for (Map.Entry<String, ConcurrentLinkedQueue<Long>> entry : latencies.entrySet()) {
+            long[] sorted = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+            total += sorted.length;
+            System.out.printf("%-22s %9d %10.3f %10.3f%n", entry.getKey(), sorted.length,
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6);
+        }
+        System.out.printf("%.0f actions/s, %d errors%n", total / seconds, errors.get());
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static InMemoryStorageBackend seed(int sessions) throws Exception {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i <= sessions; i++) {
+            Patient patient = new Patient("PAT" + i, "Patient " + i, "555-" + i, "patient" + i + "@email.com", "pass");
+            patient.upgrade();
+            patients.add(patient);
+        }
+        backend.patients().saveAll(patients);
+        backend.admins().saveAll(List.of(
+                new Admin("ADM001", "Dr. Admin", "555-0001", "admin@mms.com", "admin123", "Management")));
+        backend.treatmentTypes().saveAll(List.of(new TreatmentType("TRT1", "Consultation", 100.0)));
+        return backend;
+    }
+
+    /**
+     * One scripted connection: sends a line and reads until the expected prompt.
+     */
+    private final class Client {
+        private final InputStream in;
+        private final PrintStream out;
+        private byte[] received = new byte[8192];
+        private int size;
+
+        private Client(Socket socket) throws IOException {
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Sends one line and waits for the prompt, or for end of stream
+         * when the prompt is null. Times the round trip under the action name.
+         */
+        private void send(String line, String prompt, String action) throws IOException {
+            long start = System.nanoTime();
+            out.println(line);
+            String output = await(prompt);
+            if (action != null) {
+                record(action, System.nanoTime() - start);
+            }
+            if (output.contains("Error:") || output.contains("✗")) {
+                errors.incrementAndGet();
+            }
+        }
+
+        private String await(String prompt) throws IOException {
+            byte[] expected = prompt == null ? null : prompt.getBytes(StandardCharsets.UTF_8);
+            size = 0;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (size == received.length) {
+                    received = Arrays.copyOf(received, size * 2);
+                }
+                received[size++] = (byte) b;
+                if (expected != null && endsWith(expected)) {
+                    return new String(received, 0, size, StandardCharsets.UTF_8);
+                }
+            }
+            if (expected != null) {
+                throw new EOFException("Connection closed while waiting for '" + prompt + "'");
+            }
+            return new String(received, 0, size, StandardCharsets.UTF_8);
+        }
+
+        private boolean endsWith(byte[] expected) {
+            return size >= expected.length
+                    && Arrays.equals(received, size - expected.length, size, expected, 0, expected.length);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.mms.benchmarks.jmh;
+
+import com.mms.controllers.MMSController;
+import com.mms.models.*;
+import com.mms.storage.InMemoryStorageBackend;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH baseline for the MMSController operations behind every session.
+ *
+ * Run with:
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="ControllerBenchmarks -prof gc"
+ *
+ * The controller sits on the in-memory backend seeded with 10k patients
+ * holding two treatments and one bill each, so the numbers cover the
+ * controller's indexes and locking but not disk I/O; see StorageBenchmarks
+ * for that. Booking and billing add entities on every call, so the
+ * controller is rebuilt before every iteration to keep its size bounded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmarks {
+    private static final int PATIENTS = 10_000;
+
+    private MMSController controller;
+    private String[] patientIds;
+    private String[] emails;
+    private String[] treatmentIds;
+    private String[] billIds;
+
+    /** Per-thread cursor, so each call touches a different patient. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int advance() {
+            next = (next + 1) % PATIENTS;
+            return next;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        List<Patient> patients = new ArrayList<>(PATIENTS);
+        List<Treatment> treatments = new ArrayList<>(PATIENTS * 2);
+        List<Bill> bills = new ArrayList<>(PATIENTS);
+        patientIds = new String[PATIENTS];
+        emails = new String[PATIENTS];
+        treatmentIds = new String[PATIENTS];
+        billIds = new String[PATIENTS];
+        for (int i = 0; i < PATIENTS; i++) {
+            patientIds[i] = "PAT" + i;
+            emails[i] = "patient" + i + "@email.com";
+            Patient patient = new Patient(patientIds[i], "Patient " + i, "555-" + i, emails[i], "pass");
+            patient.upgrade();
+            patients.add(patient);
+            Treatment assessed = new Treatment("TRE" + (2 * i), patientIds[i], "TRT001");
+            assessed.setStatus(TreatmentStatus.TREATMENT_ASSESSED);
+            treatments.add(assessed);
+            treatments.add(new Treatment("TRE" + (2 * i + 1), patientIds[i], "TRT002"));
+            treatmentIds[i] = assessed.getTreatmentId();
+            billIds[i] = "BILL" + i;
+            bills.add(new Bill(billIds[i], patientIds[i], "TRE" + (2 * i + 1), 5000.0));
+        }
+        backend.patients().saveAll(patients);
+        backend.admins().saveAll(List.of(new Admin("ADM001", "Admin", "555-0001", "admin@mms.com", "pass", "Ops")));
+        backend.treatmentTypes().saveAll(List.of(new TreatmentType("TRT001", "Consultation", 100.0),
+                                                 new TreatmentType("TRT002", "Surgery", 5000.0)));
+        backend.treatments().saveAll(treatments);
+        backend.bills().saveAll(bills);
+        controller = new MMSController(backend);
+    }
+
+    @Benchmark
+    public User login(Cursor cursor) throws Exception {
+        return controller.login(emails[cursor.advance()], "pass");
+    }
+
+    @Benchmark
+    public Patient getPatient(Cursor cursor) throws Exception {
+        return controller.getPatient(patientIds[cursor.advance()]);
+    }
+
+    @Benchmark
+    public List<Treatment> getPatientTreatments(Cursor cursor) {
+        return controller.getPatientTreatments(patientIds[cursor.advance()]);
+    }
+
+    @Benchmark
+    public Treatment bookTreatment(Cursor cursor) throws Exception {
+        return controller.bookTreatmentAndReturn(patientIds[cursor.advance()], "TRT001");
+    }
+
+    @Benchmark
+    public Bill generateBill(Cursor cursor) throws Exception {
+        return controller.generateBill(treatmentIds[cursor.advance()]);
+    }
+
+    @Benchmark
+    public void recordPayment(Cursor cursor) throws Exception {
+        controller.recordPayment(billIds[cursor.advance()]);
+    }
+}
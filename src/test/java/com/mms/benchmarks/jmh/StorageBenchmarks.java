@@ -0,0 +1,121 @@
+package com.mms.benchmarks.jmh;
+
+import com.mms.models.*;
+import com.mms.storage.Repository;
+import com.mms.storage.StorageBackend;
+import com.mms.storage.StorageConfig;
+import com.mms.storage.StorageEngine;
+import com.mms.storage.StorageManager;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JMH baseline for StorageManager: full snapshot saves and loads, and
+ * single-entity saves in journaled mode, per entity type, engine and size.
+ *
+ * Run with:
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="StorageBenchmarks -prof gc"
+ *
+ * The full matrix takes a while; narrow it with JMH parameters, e.g.
+ * -Djmh.args="StorageBenchmarks -p rows=1000 -p entity=patients -prof gc".
+ * Files live under java.io.tmpdir and are read back from the page cache,
+ * so loads measure decoding rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class StorageBenchmarks {
+    @Param({ "1000", "100000", "1000000" })
+    public int rows;
+
+    @Param({ "CSV", "BINARY" })
+    public StorageEngine engine;
+
+    @Param({ "patients", "treatments", "bills", "notifications" })
+    public String entity;
+
+    private File dir;
+    private List<Object> data;
+    private Repository<Object> snapshots;
+    private Repository<Object> journaled;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mms-jmh-storage").toFile();
+        data = generate(entity, rows);
+
+        File snapshotDir = new File(dir, "snapshot");
+        snapshotDir.mkdirs();
+        System.setProperty(StorageConfig.JOURNAL_ENABLED, "false");
+        snapshots = repository(new StorageManager(snapshotDir, engine), entity);
+        snapshots.saveAll(data);
+
+        File journalDir = new File(dir, "journal");
+        journalDir.mkdirs();
+        System.setProperty(StorageConfig.JOURNAL_ENABLED, "true");
+        journaled = repository(new StorageManager(journalDir, engine), entity);
+        journaled.saveAll(data);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public void saveAll() throws Exception {
+        snapshots.saveAll(data);
+    }
+
+    @Benchmark
+    public List<Object> loadAll() throws Exception {
+        return snapshots.loadAll();
+    }
+
+    /** One changed entity appended to the journal, compactions included. */
+    @Benchmark
+    public void saveJournaled() throws Exception {
+        next = (next + 1) % rows;
+        journaled.save(data.get(next), () -> data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Repository<Object> repository(StorageBackend backend, String entity) {
+        return (Repository<Object>) switch (entity) {
+            case "patients" -> backend.patients();
+            case "treatments" -> backend.treatments();
+            case "bills" -> backend.bills();
+            case "notifications" -> backend.notifications();
+            default -> throw new IllegalArgumentException("Unknown entity: " + entity);
+        };
+    }
+
+    private static List<Object> generate(String entity, int count) {
+        List<Object> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(switch (entity) {
+                case "patients" -> new Patient("PAT" + i, "Patient " + i, "555-" + i,
+                                               "patient" + i + "@email.com", "pass" + i);
+                case "treatments" -> new Treatment("TRE" + i, "PAT" + (i % 10_000), "TRT00" + (1 + i % 3));
+                case "bills" -> new Bill("BILL" + i, "PAT" + (i % 10_000), "TRE" + i, 100.0 + i % 900);
+                case "notifications" -> new Notification("NOT" + i, "PAT" + (i % 10_000),
+                                                         "Reminder number " + i, i % 2 == 0);
+                default -> throw new IllegalArgumentException("Unknown entity: " + entity);
+            });
+        }
+        return rows;
+    }
+}
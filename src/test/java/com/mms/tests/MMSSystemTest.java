@@ -1,12 +1,80 @@
 package com.mms.tests;
 
+import com.mms.api.HttpApiServer;
+import com.mms.api.Json;
+import com.mms.cli.AdminCLI;
+import com.mms.cli.MMSServer;
+import com.mms.cli.PatientCLI;
+import com.mms.cli.ReportTable;
+import com.mms.controllers.BillingRunReport;
+import com.mms.controllers.Broadcast;
+import com.mms.controllers.BroadcastAudience;
+import com.mms.controllers.IdAllocator;
+import com.mms.controllers.ImportReport;
 import com.mms.controllers.MMSController;
 import com.mms.controllers.UserFactory;
 import com.mms.exceptions.*;
+import com.mms.metrics.FileIoMetrics;
+import com.mms.metrics.LatencyHistogram;
+import com.mms.metrics.MetricsRegistry;
+import com.mms.metrics.OperationMetrics;
+import com.mms.metrics.StorageMetrics;
 import com.mms.models.*;
+import com.mms.storage.BinaryCodecs;
+import com.mms.storage.BinaryStore;
+import com.mms.storage.CsvParser;
+import com.mms.storage.DatasetGenerator;
+import com.mms.storage.EntityCodecs;
+import com.mms.storage.EntityJournal;
+import com.mms.storage.GroupCommitter;
+import com.mms.storage.InMemoryStorageBackend;
+import com.mms.storage.JournalCompactor;
+import com.mms.storage.Repository;
+import com.mms.storage.StorageConfig;
+import com.mms.storage.StorageEngine;
+import com.mms.storage.StorageManager;
+import com.mms.storage.SyncMode;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,7 +86,7 @@ public class MMSSystemTest {
     private MMSController controller;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws StorageException {
         controller = MMSController.getInstance();
     }
 
@@ -39,9 +107,118 @@ public class MMSSystemTest {
         });
     }
 
+    @Test
+    @DisplayName("Should reject registration with an email already in use")
+    public void testRegisterPatientWithDuplicateEmail() throws InvalidInputException, StorageException {
+        controller.registerPatient("Dup Patient", "555-7777", "dup.test456@email.com", "pass");
+        assertThrows(InvalidInputException.class, () -> {
+            controller.registerPatient("Dup Patient 2", "555-7778", "DUP.Test456@email.com", "pass");
+        });
+    }
+
+    @Test
+    @DisplayName("Should leave no trace of a registration whose save fails")
+    public void testRegisterPatientSaveFailure() throws Exception {
+        FailingStore backend = new FailingStore();
+        MMSController shared = new MMSController(backend);
+        int before = shared.getAllPatients().size();
+        backend.failPatients = true;
+        assertThrows(StorageException.class,
+                     () -> shared.registerPatient("Lost", "555-0700", "lost@email.com", "pass"));
+        assertEquals(before, shared.getAllPatients().size());
+        assertThrows(UserNotFoundException.class, () -> shared.login("lost@email.com", "pass"));
+
+        backend.failPatients = false;
+        Patient saved = shared.registerPatientAndReturn("Lost", "555-0700", "lost@email.com", "pass");
+        assertSame(saved, shared.getPatient(saved.getId()));
+        assertEquals(List.of(saved), backend.patients().loadAll().stream()
+                .filter(p -> p.getEmail().equals("lost@email.com")).toList());
+    }
+
+    /**
+     * Keeps everything in memory but fails writes of the chosen entity files
+     * on request.
+     */
+    private static final class FailingStore extends InMemoryStorageBackend {
+        volatile boolean failPatients;
+        volatile boolean failTreatments;
+        volatile boolean failBills;
+        volatile boolean failNotifications;
+
+        @Override
+        public Repository<Patient> patients() {
+            return failing(super.patients(), () -> failPatients);
+        }
+
+        @Override
+        public Repository<Treatment> treatments() {
+            return failing(super.treatments(), () -> failTreatments);
+        }
+
+        @Override
+        public Repository<Bill> bills() {
+            return failing(super.bills(), () -> failBills);
+        }
+
+        @Override
+        public Repository<Notification> notifications() {
+            return failing(super.notifications(), () -> failNotifications);
+        }
+
+        private static <T> Repository<T> failing(Repository<T> stored, BooleanSupplier failing) {
+            return new Repository<>() {
+                @Override
+                public List<T> loadAll() throws StorageException {
+                    return stored.loadAll();
+                }
+
+                @Override
+                public void saveAll(List<T> all) throws StorageException {
+                    check();
+                    stored.saveAll(all);
+                }
+
+                @Override
+                public void saveAll(Stream<T> all) throws StorageException {
+                    check();
+                    stored.saveAll(all);
+                }
+
+                @Override
+                public void save(T entity, Supplier<List<T>> all) throws StorageException {
+                    check();
+                    stored.save(entity, all);
+                }
+
+                @Override
+                public void saveBatch(List<T> batch, Supplier<List<T>> all) throws StorageException {
+                    check();
+                    stored.saveBatch(batch, all);
+                }
+
+                @Override
+                public void delete(String id, Supplier<List<T>> all) throws StorageException {
+                    check();
+                    stored.delete(id, all);
+                }
+
+                @Override
+                public Stream<T> stream() throws StorageException {
+                    return stored.stream();
+                }
+
+                private void check() throws StorageException {
+                    if (failing.getAsBoolean()) {
+                        throw new StorageException("Disk full");
+                    }
+                }
+            };
+        }
+    }
+
     @Test
     @DisplayName("Should upgrade patient to registered")
-    public void testUpgradePatient() throws UserNotFoundException, InvalidInputException {
+    public void testUpgradePatient() throws UserNotFoundException, InvalidInputException, StorageException {
         controller.registerPatient("John Test", "555-0001", "john.test@email.com", "test123");
         Patient patient = controller.getAllPatients()
                 .stream()
@@ -64,7 +241,7 @@ public class MMSSystemTest {
 
     @Test
     @DisplayName("Should flag patient as non-paying")
-    public void testFlagPatient() throws UserNotFoundException {
+    public void testFlagPatient() throws UserNotFoundException, StorageException {
         Patient patient = controller.getAllPatients().get(0);
         assertFalse(patient.isFlagged());
         controller.flagPatient(patient.getId());
@@ -74,7 +251,7 @@ public class MMSSystemTest {
     // ===== TREATMENT TYPE TESTS =====
     @Test
     @DisplayName("Should add a new treatment type")
-    public void testAddTreatmentType() throws InvalidInputException {
+    public void testAddTreatmentType() throws InvalidInputException, StorageException {
         int initialSize = controller.getAllTreatmentTypes().size();
         controller.addTreatmentType("New Treatment", 1500.0);
         assertEquals(initialSize + 1, controller.getAllTreatmentTypes().size());
@@ -90,7 +267,7 @@ public class MMSSystemTest {
 
     @Test
     @DisplayName("Should remove a treatment type")
-    public void testRemoveTreatmentType() throws InvalidInputException, TreatmentNotFoundException {
+    public void testRemoveTreatmentType() throws InvalidInputException, TreatmentNotFoundException, StorageException {
         controller.addTreatmentType("Removable Treatment", 500.0);
         String typeId = controller.getAllTreatmentTypes()
                 .stream()
@@ -115,7 +292,7 @@ public class MMSSystemTest {
     // ===== TREATMENT BOOKING TESTS =====
     @Test
     @DisplayName("Should throw exception when unregistered patient books treatment")
-    public void testBookTreatmentAsUnregisteredPatient() throws InvalidInputException {
+    public void testBookTreatmentAsUnregisteredPatient() throws InvalidInputException, StorageException {
         // Register a new patient specifically for this test
         controller.registerPatient("Unreg Patient", "555-9999", "unreg.test123@test.com", "test");
         final Patient unregisteredPatient = controller.getAllPatients().stream()
@@ -159,6 +336,27 @@ public class MMSSystemTest {
         assertEquals(clinicianId, treatment.getClinicianId());
     }
 
+    @Test
+    @DisplayName("Should move treatment between clinicians when reassigned")
+    public void testReassignClinician() throws Exception {
+        Patient patient = controller.getAllPatients().get(0);
+        patient.upgrade();
+        String treatmentTypeId = controller.getAllTreatmentTypes().get(0).getId();
+        controller.bookTreatment(patient.getId(), treatmentTypeId);
+        
+        List<Treatment> patientTreatments = controller.getPatientTreatments(patient.getId());
+        Treatment treatment = patientTreatments.get(patientTreatments.size() - 1);
+        String clinicianId = controller.getAllClinicians().get(0).getId();
+        
+        controller.assignClinician(treatment.getTreatmentId(), clinicianId);
+        assertTrue(controller.getClinicianTreatments(clinicianId).contains(treatment));
+        
+        controller.assignClinician(treatment.getTreatmentId(), clinicianId);
+        assertEquals(1, controller.getClinicianTreatments(clinicianId).stream()
+                .filter(t -> t == treatment)
+                .count());
+    }
+
     @Test
     @DisplayName("Should throw exception when assigning to non-existent clinician")
     public void testAssignNonExistentClinician() throws Exception {
@@ -220,10 +418,28 @@ public class MMSSystemTest {
         assertTrue(bill.isPaid());
     }
 
+    @Test
+    @DisplayName("Should look up newly created treatment and bill by id")
+    public void testLookupById() throws Exception {
+        Patient patient = controller.getAllPatients().get(0);
+        patient.upgrade();
+        TreatmentType treatmentType = controller.getAllTreatmentTypes().get(0);
+        controller.bookTreatment(patient.getId(), treatmentType.getId());
+        
+        Treatment treatment = controller.getPatientTreatments(patient.getId()).get(0);
+        Bill bill = controller.generateBill(treatment.getTreatmentId());
+        
+        assertSame(patient, controller.getPatient(patient.getId()));
+        assertSame(treatment, controller.getTreatment(treatment.getTreatmentId()));
+        assertSame(treatmentType, controller.getTreatmentType(treatmentType.getId()));
+        assertSame(bill, controller.getBill(bill.getBillId()));
+        assertThrows(TreatmentNotFoundException.class, () -> controller.getBill("INVALID_BILL"));
+    }
+
     // ===== NOTIFICATION TESTS =====
     @Test
     @DisplayName("Should send notification to patient")
-    public void testSendNotification() throws UserNotFoundException {
+    public void testSendNotification() throws UserNotFoundException, StorageException {
         Patient patient = controller.getAllPatients().get(0);
         
         int initialSize = controller.getPatientNotifications(patient.getId()).size();
@@ -248,6 +464,14 @@ public class MMSSystemTest {
         assertEquals("admin@mms.com", user.getEmail());
     }
 
+    @Test
+    @DisplayName("Should login regardless of email case")
+    public void testLoginIsCaseInsensitiveOnEmail() throws UserNotFoundException {
+        User user = controller.login(" Admin@MMS.com ", "admin123");
+        assertEquals("admin@mms.com", user.getEmail());
+        assertThrows(UserNotFoundException.class, () -> controller.login("admin@mms.com", "wrong"));
+    }
+
     @Test
     @DisplayName("Should throw exception with invalid credentials")
     public void testInvalidLogin() {
@@ -343,4 +567,959 @@ public class MMSSystemTest {
         controller.updateTreatmentStatus(treatment.getTreatmentId(), TreatmentStatus.TREATMENT_ASSESSED);
         assertEquals(TreatmentStatus.TREATMENT_ASSESSED, treatment.getStatus());
     }
+
+    // ===== STORAGE TESTS =====
+    @Test
+    @DisplayName("Should rebuild state by replaying the journal over a snapshot")
+    public void testJournalReplay(@TempDir File dir) throws Exception {
+        EntityJournal<Treatment> journal = new EntityJournal<>(new File(dir, "treatments.journal"),
+                                                               EntityCodecs.TREATMENT);
+        Treatment first = new Treatment("TRE1", "PAT1", "TRT1");
+        Treatment second = new Treatment("TRE2", "PAT1", "TRT1");
+        journal.appendPut(first);
+        journal.appendPut(second);
+        second.setNotes("tab\tcomma, newline\n");
+        second.setClinicianId("CLI1");
+        journal.appendPut(second);
+        journal.appendDelete("TRE1");
+        journal.close();
+        
+        // Simulate a crash in the middle of an append
+        try (FileOutputStream out = new FileOutputStream(journal.getFile(), true)) {
+            out.write("0000abcd\tP\tTRE3".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        List<Treatment> replayed = journal.replay(List.of(new Treatment("TRE0", "PAT0", "TRT1")));
+        assertEquals(2, replayed.size());
+        assertEquals("TRE0", replayed.get(0).getTreatmentId());
+        Treatment restored = replayed.get(1);
+        assertEquals("TRE2", restored.getTreatmentId());
+        assertEquals("CLI1", restored.getClinicianId());
+        assertEquals("tab\tcomma, newline\n", restored.getNotes());
+        assertEquals(second.getCreatedDate(), restored.getCreatedDate());
+        
+        Map<String, Treatment> changes = journal.pendingChanges();
+        assertTrue(changes.containsKey("TRE1"));
+        assertNull(changes.get("TRE1"));
+        assertEquals("CLI1", changes.get("TRE2").getClinicianId());
+        
+        // The torn record is truncated so new appends start on a clean line
+        journal.appendPut(first);
+        journal.close();
+        assertEquals(3, journal.replay(List.of(new Treatment("TRE0", "PAT0", "TRT1"))).size());
+    }
+
+    @Test
+    @DisplayName("Should fold sealed journal segments into a new snapshot")
+    public void testJournalCompaction(@TempDir File dir) throws Exception {
+        EntityJournal<Bill> journal = new EntityJournal<>(new File(dir, "bills.journal"), EntityCodecs.BILL);
+        List<Bill> snapshot = new ArrayList<>(List.of(new Bill("BILL0", "PAT1", "TRE0", 50.0)));
+        JournalCompactor compactor = new JournalCompactor(Long.MAX_VALUE, 2);
+        compactor.register(journal, () -> snapshot, bills -> {
+            snapshot.clear();
+            snapshot.addAll(bills);
+        });
+        
+        Bill bill = new Bill("BILL1", "PAT1", "TRE1", 100.0);
+        journal.appendPut(bill);
+        compactor.maybeCompact();
+        assertEquals(0, compactor.getCompletedCompactions());
+        bill.markPaid();
+        journal.appendPut(bill);
+        
+        compactor.compactNow().get();
+        assertEquals(1, compactor.getCompletedCompactions());
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.get(1).isPaid());
+        assertEquals(0, journal.getPendingRecords());
+        
+        // Appends after the roll land in a new segment and replay over the new snapshot
+        journal.appendDelete("BILL0");
+        assertEquals(List.of("BILL1"), journal.replay(snapshot).stream().map(Bill::getBillId).toList());
+    }
+
+    @Test
+    @DisplayName("Should make concurrent appends durable through group commit")
+    public void testGroupCommit(@TempDir File dir) throws Exception {
+        GroupCommitter committer = new GroupCommitter(100, 64);
+        EntityJournal<Notification> journal = new EntityJournal<>(new File(dir, "notifications.journal"),
+                                                                  EntityCodecs.NOTIFICATION, SyncMode.GROUP, committer);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Notification notification = new Notification("NOT" + i, "PAT1", "Message " + i, false);
+                futures.add(pool.submit(() -> {
+                    journal.appendPut(notification);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+            committer.close();
+        }
+        
+        assertEquals(200, committer.getRecordCount());
+        assertTrue(committer.getBatchCount() <= 200);
+        journal.close();
+        assertEquals(200, journal.replay(List.of()).size());
+    }
+
+    @Test
+    @DisplayName("Should round-trip entities through the binary store")
+    public void testBinaryStoreRoundTrip(@TempDir File dir) throws Exception {
+        File file = new File(dir, "bills.bin");
+        Bill paid = new Bill("BILL1", "PAT1", "TRE1", 150.25);
+        paid.setCreatedDate(LocalDateTime.of(2024, 3, 1, 9, 30, 15, 123_000_000));
+        paid.markPaid();
+        Bill unpaid = new Bill("BILL2", "PAT, \"Jr\" Ünïcode", "TRE2", 99.99);
+        BinaryStore.write(file, BinaryCodecs.BILL, List.of(paid, unpaid));
+        
+        List<Bill> loaded = BinaryStore.read(file, BinaryCodecs.BILL);
+        assertEquals(2, loaded.size());
+        assertEquals(paid.getCreatedDate(), loaded.get(0).getCreatedDate());
+        assertTrue(loaded.get(0).isPaid());
+        assertNotNull(loaded.get(0).getPaidDate());
+        assertEquals("PAT, \"Jr\" Ünïcode", loaded.get(1).getPatientId());
+        assertEquals(99.99, loaded.get(1).getTotalAmount());
+        assertFalse(loaded.get(1).isPaid());
+        assertNull(loaded.get(1).getPaidDate());
+
+        // A closed cursor has released its mapping and refuses to read on
+        BinaryStore.Cursor<Bill> cursor = BinaryStore.open(file, BinaryCodecs.BILL);
+        assertEquals("BILL1", cursor.next().getBillId());
+        cursor.close();
+        assertThrows(StorageException.class, cursor::next);
+
+        // The header tag stops a file from being read as another entity type
+        assertThrows(StorageException.class, () -> BinaryStore.read(file, BinaryCodecs.TREATMENT));
+    }
+
+    @Test
+    @DisplayName("Should parse quoted CSV fields and decode typed values")
+    public void testCsvParser() throws Exception {
+        String note = "Left knee, \"urgent\"\nfollow up";
+        String csv = "treatmentId,notes,price,paid,status,createdDate\r\n"
+                + "TRE1," + CsvParser.quote(note) + ",150.25,TRUE,TREATMENT_ASSESSED,2024-03-01 09:30:15\r\n"
+                + "\n"
+                + "TRE2,,-0.5,false,COMPLETED,";
+        try (CsvParser parser = new CsvParser(new StringReader(csv))) {
+            assertTrue(parser.next());
+            assertEquals("createdDate", parser.getString(5));
+            
+            assertTrue(parser.next());
+            assertEquals(6, parser.getFieldCount());
+            assertEquals(note, parser.getString(1));
+            assertEquals(150.25, parser.getDouble(2));
+            assertTrue(parser.getBoolean(3));
+            assertEquals(TreatmentStatus.TREATMENT_ASSESSED, parser.getEnum(4, TreatmentStatus.values()));
+            assertEquals(LocalDateTime.of(2024, 3, 1, 9, 30, 15), parser.getTimestamp(5));
+            
+            // The blank line is skipped and the last record needs no line break
+            assertTrue(parser.next());
+            assertTrue(parser.isEmpty(1));
+            assertEquals(-0.5, parser.getDouble(2));
+            assertFalse(parser.getBoolean(3));
+            assertNull(parser.getTimestamp(5));
+            assertFalse(parser.next());
+        }
+        assertEquals("plain", CsvParser.quote("plain"));
+        assertEquals("", CsvParser.quote(null));
+    }
+
+    @Test
+    @DisplayName("Should page through entity lists")
+    public void testPagination() throws Exception {
+        controller.registerPatient("Page One", "555-0301", "page.one@email.com", "pass");
+        controller.registerPatient("Page Two", "555-0302", "page.two@email.com", "pass");
+        List<Patient> all = controller.getAllPatients();
+        
+        List<Patient> firstPage = controller.getAllPatients(0, 2);
+        assertEquals(all.subList(0, 2), firstPage);
+        List<Patient> lastPage = controller.getAllPatients(all.size() - 1, 10);
+        assertEquals(1, lastPage.size());
+        assertTrue(controller.getAllPatients(all.size(), 10).isEmpty());
+        assertThrows(InvalidInputException.class, () -> controller.getAllPatients(-1, 10));
+    }
+
+    @Test
+    @DisplayName("Should stream persisted bills from storage")
+    public void testStreamBills() throws Exception {
+        Patient patient = controller.getAllPatients().get(0);
+        TreatmentType type = controller.getAllTreatmentTypes().get(0);
+        controller.bookTreatment(patient.getId(), type.getId());
+        List<Treatment> treatments = controller.getPatientTreatments(patient.getId());
+        Bill bill = controller.generateBill(treatments.get(treatments.size() - 1).getTreatmentId());
+        
+        try (Stream<Bill> bills = controller.streamBills()) {
+            Bill persisted = bills.filter(b -> b.getBillId().equals(bill.getBillId()))
+                                  .findFirst()
+                                  .orElseThrow();
+            assertEquals(bill.getTotalAmount(), persisted.getTotalAmount());
+            assertEquals(bill.getPatientId(), persisted.getPatientId());
+        }
+        // A stream is recorded once it is closed
+        OperationMetrics streamed = controller.getMetrics().operation("streamTreatments");
+        long calls = streamed.getCalls();
+        try (Stream<Treatment> stream = controller.streamTreatments()) {
+            assertEquals(controller.getPatientTreatments(patient.getId()).size(),
+                         stream.filter(t -> t.getPatientId().equals(patient.getId())).count());
+            assertEquals(calls, streamed.getCalls());
+        }
+        assertEquals(calls + 1, streamed.getCalls());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = StorageEngine.class, names = {"CSV", "BINARY"})
+    @DisplayName("Should persist entities through file storage repositories")
+    public void testFileRepository(StorageEngine engine, @TempDir File dir) throws Exception {
+        Repository<TreatmentType> types = new StorageManager(dir, engine).treatmentTypes();
+        List<TreatmentType> all = new ArrayList<>(List.of(new TreatmentType("TT1", "Checkup, basic", 50.0),
+                                                          new TreatmentType("TT2", "X-Ray", 120.5)));
+        types.saveAll(all);
+        TreatmentType added = new TreatmentType("TT3", "Surgery", 900.0);
+        all.add(added);
+        types.save(added, () -> all);
+        all.remove(0);
+        types.delete("TT1", () -> all);
+        
+        // A fresh manager sees only what reached the files
+        Repository<TreatmentType> reopened = new StorageManager(dir, engine).treatmentTypes();
+        List<TreatmentType> loaded = reopened.loadAll();
+        assertEquals(List.of("TT2", "TT3"), loaded.stream().map(TreatmentType::getId).toList());
+        assertEquals(120.5, loaded.get(0).getPrice());
+        try (Stream<TreatmentType> stream = reopened.stream()) {
+            assertEquals(2, stream.count());
+        }
+        assertThrows(StorageException.class, () -> new StorageManager(dir, StorageEngine.MEMORY));
+    }
+
+    @Test
+    @DisplayName("Should keep indexes consistent under concurrent sessions")
+    public void testConcurrentSessions() throws Exception {
+        int threads = 8;
+        int bookingsPerPatient = 25;
+        // Seed one patient per thread so ids are distinct regardless of the clock
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        List<Patient> seeded = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Patient patient = new Patient("PATS" + i, "Stress " + i, "555-1" + i, "stress" + i + "@email.com", "pass");
+            patient.upgrade();
+            seeded.add(patient);
+        }
+        backend.patients().saveAll(seeded);
+        backend.admins().saveAll(List.of(new Admin("ADMS", "Admin", "555-0000", "admin.s@mms.com", "pass", "Ops")));
+        backend.treatmentTypes().saveAll(List.of(new TreatmentType("TRTS", "Consultation", 100.0)));
+        MMSController shared = new MMSController(backend);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Patient patient : seeded) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < bookingsPerPatient; i++) {
+                        shared.bookTreatment(patient.getId(), "TRTS");
+                        List<Treatment> booked = shared.getPatientTreatments(patient.getId());
+                        shared.generateBill(booked.get(booked.size() - 1).getTreatmentId());
+                        shared.sendNotification(patient.getId(), "Reminder " + i, true);
+                        shared.login(patient.getEmail(), "pass");
+                        shared.getAllPatients(0, 5);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        
+        for (Patient patient : seeded) {
+            assertEquals(bookingsPerPatient, shared.getPatientTreatments(patient.getId()).size());
+            assertEquals(bookingsPerPatient, shared.getPatientBills(patient.getId()).size());
+            assertEquals(bookingsPerPatient, shared.getPatientNotifications(patient.getId()).size());
+        }
+        int total = threads * bookingsPerPatient;
+        assertEquals(total, shared.getAllBills().size());
+        assertEquals(total, shared.getAllNotifications().size());
+    }
+
+    @Test
+    @DisplayName("Should serve independent menu sessions over TCP")
+    public void testServerSessions() throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        try (MMSServer server = new MMSServer(shared, 0)) {
+            server.start();
+            List<Future<String>> sessions = new ArrayList<>();
+            ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+            for (int i = 0; i < 2; i++) {
+                String email = "server" + i + "@email.com";
+                sessions.add(clients.submit(() -> {
+                    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                        PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                        // Log in as the sample admin, register a patient, log out and exit
+                        out.print(String.join("\n", "1", "admin@mms.com", "admin123",
+                                              "1", "Server Patient", "555-0400", email, "pass", "13", "4", ""));
+                        out.flush();
+                        return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                    }
+                }));
+            }
+            for (int i = 0; i < sessions.size(); i++) {
+                String transcript = sessions.get(i).get();
+                assertTrue(transcript.contains("Login successful"));
+                assertTrue(transcript.contains("Email: server" + i + "@email.com"));
+                assertTrue(transcript.contains("Goodbye"));
+            }
+            clients.shutdown();
+        }
+        assertNotNull(shared.login("server0@email.com", "pass"));
+        assertNotNull(shared.login("server1@email.com", "pass"));
+    }
+
+    @Test
+    @DisplayName("Should serve controller operations over the HTTP JSON API")
+    public void testHttpApi() throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        try (HttpApiServer server = new HttpApiServer(shared, 0)) {
+            server.start();
+            String base = "http://localhost:" + server.getPort() + "/api/";
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            
+            HttpResponse<String> created = client.send(HttpRequest.newBuilder(URI.create(base + "patients"))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\":\"Api Patient\",\"phone\":\"555-0500\",\"email\":\"api@email.com\",\"password\":\"pass\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(201, created.statusCode());
+            String patientId = (String) ((Map<?, ?>) Json.parse(created.body())).get("id");
+            
+            String batch = "[{\"op\":\"upgrade\",\"patientId\":\"" + patientId + "\"},"
+                    + "{\"op\":\"book\",\"patientId\":\"" + patientId + "\",\"treatmentTypeId\":\"TRT001\"},"
+                    + "{\"op\":\"bill\",\"treatmentId\":\"missing\"},"
+                    + "{\"op\":\"unknown\"}]";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "batch"))
+                    .POST(HttpRequest.BodyPublishers.ofString(batch)).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+            List<?> results = (List<?>) Json.parse(response.body());
+            assertEquals(List.of(200L, 200L, 404L, 400L),
+                         results.stream().map(r -> ((Map<?, ?>) r).get("status")).toList());
+            assertEquals(1, shared.getPatientTreatments(patientId).size());
+            
+            HttpResponse<String> missing = client.send(HttpRequest.newBuilder(URI.create(base + "bills/none")).build(),
+                                                       HttpResponse.BodyHandlers.ofString());
+            assertEquals(404, missing.statusCode());
+            HttpResponse<String> malformed = client.send(HttpRequest.newBuilder(URI.create(base + "patients"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":")).build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, malformed.statusCode());
+
+            // Deep nesting is rejected as malformed rather than overflowing the stack
+            HttpResponse<String> nested = client.send(HttpRequest.newBuilder(URI.create(base + "batch"))
+                    .POST(HttpRequest.BodyPublishers.ofString("[".repeat(100_000))).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, nested.statusCode());
+            assertTrue(nested.body().contains("Nesting too deep"));
+            String deepest = "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH);
+            assertEquals(deepest, Json.write(Json.parse(deepest)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should bulk import patients and report rejected rows")
+    public void testImportPatients(@TempDir File dir) throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        File csv = new File(dir, "patients.csv");
+        Files.writeString(csv.toPath(), "name,email,phone,password,registered\n"
+                + "Ann Import,ann@email.com,555-0500,pass,true\n"
+                + "\"Doe, Jane\",jane.import@email.com,555-0501,pass,false\n"
+                + "Duplicate,JOHN@email.com,555-0502,pass,false\n"
+                + ",nameless@email.com,555-0503,pass,false\n"
+                + "Ann Again,ann@email.com,555-0504,pass,false\n"
+                + "Yes Man,yes@email.com,555-0505,pass,yes\n");
+        
+        ImportReport report = shared.importPatients(csv);
+        assertEquals(6, report.getRowsRead());
+        assertEquals(2, report.getImported());
+        assertEquals(List.of("Row 4: Email already registered: JOHN@email.com",
+                             "Row 5: Name and email cannot be empty",
+                             "Row 6: Email already registered: ann@email.com",
+                             "Row 7: registered must be true or false"), report.getErrors());
+        Patient ann = (Patient) shared.login("ann@email.com", "pass");
+        assertTrue(ann.isRegistered());
+        assertEquals("Doe, Jane", shared.login("jane.import@email.com", "pass").getName());
+        assertSame(ann, shared.getPatient(ann.getId()));
+        // Rejected rows use up no ids
+        String jane = shared.login("jane.import@email.com", "pass").getId();
+        Patient next = shared.registerPatientAndReturn("After Import", "555-0506", "after@email.com", "pass");
+        assertEquals(Long.parseLong(jane.substring(3)) + 1, Long.parseLong(next.getId().substring(3)));
+        
+        File jsonl = new File(dir, "patients.jsonl");
+        Files.writeString(jsonl.toPath(), "{\"name\":\"Bo Json\",\"email\":\"bo@email.com\",\"password\":\"pass\"}\n"
+                + "\n"
+                + "{\"name\":\"Broken\"\n"
+                + "{\"name\":\"Typed\",\"email\":\"typed@email.com\",\"registered\":\"yes\"}\n"
+                + "{\"name\":" + "[".repeat(100_000) + "\n");
+        report = shared.importPatients(jsonl);
+        assertEquals(4, report.getRowsRead());
+        assertEquals(1, report.getImported());
+        assertTrue(report.getErrors().get(0).startsWith("Row 3: Malformed JSON"));
+        assertEquals("Row 4: registered must be true or false", report.getErrors().get(1));
+        assertTrue(report.getErrors().get(2).startsWith("Row 5: Malformed JSON: Nesting too deep"));
+        assertEquals(5, shared.getAllPatients().size());
+        assertThrows(InvalidInputException.class, () -> shared.importPatients(new File(dir, "missing.csv")));
+    }
+
+    @Test
+    @DisplayName("Should leave no imported patients or emails behind when the batch save fails")
+    public void testImportPatientsSaveFailure(@TempDir File dir) throws Exception {
+        FailingStore backend = new FailingStore();
+        MMSController shared = new MMSController(backend);
+        int before = shared.getAllPatients().size();
+        File csv = new File(dir, "patients.csv");
+        Files.writeString(csv.toPath(), "name,email,password\n"
+                + "First Lost,first.lost@email.com,pass\n"
+                + "Second Lost,second.lost@email.com,pass\n");
+        
+        backend.failPatients = true;
+        assertThrows(StorageException.class, () -> shared.importPatients(csv));
+        assertEquals(before, shared.getAllPatients().size());
+        assertThrows(UserNotFoundException.class, () -> shared.login("first.lost@email.com", "pass"));
+        assertThrows(UserNotFoundException.class, () -> shared.login("second.lost@email.com", "pass"));
+        
+        // The emails are free again, so a retry imports both rows
+        backend.failPatients = false;
+        assertEquals(2, shared.importPatients(csv).getImported());
+        assertEquals(before + 2, backend.patients().loadAll().size());
+    }
+
+    @Test
+    @DisplayName("Should replay patients written as one journal batch")
+    public void testJournalPutAll(@TempDir File dir) throws Exception {
+        List<Patient> batch = List.of(new Patient("PAT1", "Ann", "555-0500", "ann@email.com", "pass"),
+                                      new Patient("PAT2", "Doe, Jane", "555-0501", "jane@email.com", "pass"));
+        batch.get(0).upgrade();
+        EntityJournal<Patient> journal = new EntityJournal<>(new File(dir, "patients.journal"), EntityCodecs.PATIENT);
+        assertTrue(journal.appendPutAll(batch) > 0);
+        journal.close();
+        
+        List<Patient> replayed = journal.replay(List.of());
+        assertEquals(List.of("PAT1", "PAT2"), replayed.stream().map(Patient::getId).toList());
+        assertTrue(replayed.get(0).isRegistered());
+        assertEquals("Doe, Jane", replayed.get(1).getName());
+        assertEquals(2, journal.getPendingRecords());
+    }
+
+    @Test
+    @DisplayName("Should bill every unbilled assessed or completed treatment once")
+    public void testBillingRun() throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        shared.addTreatmentType("Temporary", 75.0);
+        String temporaryType = shared.getAllTreatmentTypes().get(3).getId();
+        shared.upgradePatient("PAT001");
+        Treatment assessed = shared.bookTreatmentAndReturn("PAT001", "TRT001");
+        Treatment completed = shared.bookTreatmentAndReturn("PAT001", "TRT002");
+        Treatment fresh = shared.bookTreatmentAndReturn("PAT001", "TRT003");
+        Treatment alreadyBilled = shared.bookTreatmentAndReturn("PAT001", "TRT003");
+        Treatment unpriced = shared.bookTreatmentAndReturn("PAT001", temporaryType);
+        shared.updateTreatmentStatus(assessed.getTreatmentId(), TreatmentStatus.TREATMENT_ASSESSED);
+        shared.updateTreatmentStatus(completed.getTreatmentId(), TreatmentStatus.COMPLETED);
+        shared.updateTreatmentStatus(unpriced.getTreatmentId(), TreatmentStatus.TREATMENT_ASSESSED);
+        shared.generateBill(alreadyBilled.getTreatmentId());
+        shared.updateTreatmentStatus(alreadyBilled.getTreatmentId(), TreatmentStatus.COMPLETED);
+        shared.removeTreatmentType(temporaryType);
+        
+        BillingRunReport report = shared.runBilling();
+        assertEquals(5, report.getTreatmentsScanned());
+        assertEquals(2, report.getBillsCreated());
+        assertEquals(1, report.getUnpriced());
+        assertEquals(5100.0, report.getTotalAmount(), 0.001);
+        assertEquals(TreatmentStatus.BILL_GENERATED, assessed.getStatus());
+        assertEquals(TreatmentStatus.COMPLETED, completed.getStatus());
+        assertEquals(TreatmentStatus.NEW_TREATMENT, fresh.getStatus());
+        assertEquals(3, shared.getPatientBills("PAT001").size());
+        
+        assertEquals(0, shared.runBilling().getBillsCreated());
+        assertEquals(3, shared.getAllBills().size());
+    }
+
+    @Test
+    @DisplayName("Should leave no unsaved bills or statuses behind when a billing run's save fails")
+    public void testBillingRunSaveFailure() throws Exception {
+        FailingStore backend = new FailingStore();
+        MMSController shared = new MMSController(backend);
+        shared.upgradePatient("PAT001");
+        Treatment assessed = shared.bookTreatmentAndReturn("PAT001", "TRT001");
+        shared.updateTreatmentStatus(assessed.getTreatmentId(), TreatmentStatus.TREATMENT_ASSESSED);
+
+        backend.failBills = true;
+        assertThrows(StorageException.class, shared::runBilling);
+        assertTrue(shared.getAllBills().isEmpty());
+        assertTrue(shared.getPatientBills("PAT001").isEmpty());
+        assertEquals(TreatmentStatus.TREATMENT_ASSESSED, assessed.getStatus());
+
+        // The bills are stored but the statuses are not, so they are put back
+        backend.failBills = false;
+        backend.failTreatments = true;
+        assertThrows(StorageException.class, shared::runBilling);
+        assertEquals(1, shared.getAllBills().size());
+        assertEquals(1, backend.bills().loadAll().size());
+        assertEquals(TreatmentStatus.TREATMENT_ASSESSED, assessed.getStatus());
+
+        // The next run bills nothing twice and finishes the status change
+        backend.failTreatments = false;
+        assertEquals(0, shared.runBilling().getBillsCreated());
+        assertEquals(TreatmentStatus.BILL_GENERATED, assessed.getStatus());
+        assertEquals(1, backend.bills().loadAll().size());
+    }
+
+    @Test
+    @DisplayName("Should replay a journal batch completely or not at all")
+    public void testJournalBatch(@TempDir File dir) throws Exception {
+        EntityJournal<Bill> journal = new EntityJournal<>(new File(dir, "bills.journal"), EntityCodecs.BILL);
+        journal.appendPut(new Bill("BILL0", "PAT1", "TRE0", 10.0));
+        journal.appendPutAll(List.of(new Bill("BILL1", "PAT1", "TRE1", 20.0),
+                                     new Bill("BILL2", "PAT1", "TRE2", 30.0)));
+        journal.close();
+        assertEquals(3, journal.replay(List.of()).size());
+        
+        journal.appendPutAll(List.of(new Bill("BILL3", "PAT1", "TRE3", 40.0),
+                                     new Bill("BILL4", "PAT1", "TRE4", 50.0)));
+        journal.close();
+        // Cut the second record of the batch short, as a crash mid-write would
+        File segment = journal.getFile();
+        long length = segment.length();
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.setLength(length - 5);
+        }
+        List<Bill> replayed = journal.replay(List.of());
+        assertEquals(List.of("BILL0", "BILL1", "BILL2"), replayed.stream().map(Bill::getBillId).toList());
+        assertEquals(3, journal.getPendingRecords());
+    }
+
+    @Test
+    @DisplayName("Should broadcast to the selected audience in the background")
+    public void testBroadcastNotifications() throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        Patient registered = shared.registerPatientAndReturn("Reg", "555-0601", "reg@email.com", "pass");
+        Patient flagged = shared.registerPatientAndReturn("Flag", "555-0602", "flag@email.com", "pass");
+        Patient optedOut = shared.registerPatientAndReturn("Quiet", "555-0603", "quiet@email.com", "pass");
+        shared.upgradePatient(registered.getId());
+        shared.upgradePatient(flagged.getId());
+        shared.flagPatient(flagged.getId());
+        optedOut.togglePromotions();
+        Treatment treatment = shared.bookTreatmentAndReturn(registered.getId(), "TRT001");
+        shared.generateBill(treatment.getTreatmentId());
+        
+        Broadcast everyone = shared.broadcastNotification("Clinic closed Monday", false, Set.of());
+        assertTrue(everyone.await(10, TimeUnit.SECONDS));
+        assertEquals(4, everyone.getStored());
+        assertEquals(4, shared.getAllNotifications().size());
+        
+        Broadcast promotion = shared.broadcastNotification("Spring offer", true, Set.of());
+        Broadcast overdue = shared.broadcastNotification("Please pay", false,
+                                                         Set.of(BroadcastAudience.REGISTERED, BroadcastAudience.OUTSTANDING_BILL));
+        Broadcast nobody = shared.broadcastNotification("Nobody", false,
+                                                        Set.of(BroadcastAudience.FLAGGED, BroadcastAudience.OUTSTANDING_BILL));
+        assertTrue(promotion.await(10, TimeUnit.SECONDS));
+        assertTrue(overdue.await(10, TimeUnit.SECONDS));
+        assertTrue(nobody.await(10, TimeUnit.SECONDS));
+        assertEquals(3, promotion.getStored());
+        assertTrue(promotion.getAudience().contains(BroadcastAudience.OPTED_IN));
+        assertEquals(1, overdue.getStored());
+        assertEquals(0, nobody.getQueued());
+        assertEquals(0, promotion.getFailed());
+        
+        assertEquals(3, shared.getPatientNotifications(registered.getId()).size());
+        assertEquals(1, shared.getPatientNotifications(optedOut.getId()).size());
+        assertEquals(4, shared.getBroadcasts().size());
+        assertThrows(InvalidInputException.class, () -> shared.broadcastNotification(" ", false, Set.of()));
+
+        // Only the latest finished broadcasts are kept
+        String first = everyone.getId();
+        for (int i = 0; i < MMSController.MAX_FINISHED_BROADCASTS; i++) {
+            assertTrue(shared.broadcastNotification("Batch " + i, false, Set.of(BroadcastAudience.FLAGGED))
+                    .await(10, TimeUnit.SECONDS));
+        }
+        List<Broadcast> kept = shared.getBroadcasts();
+        assertTrue(kept.size() <= MMSController.MAX_FINISHED_BROADCASTS + 1);
+        assertTrue(kept.stream().noneMatch(b -> b.getId().equals(first)));
+
+        // After close the workers are gone and new deliveries fail instead of queueing
+        shared.close();
+        Broadcast late = shared.broadcastNotification("Too late", false, Set.of());
+        assertTrue(late.await(10, TimeUnit.SECONDS));
+        assertEquals(late.getQueued(), late.getFailed());
+        assertEquals(0, late.getStored());
+    }
+
+    @Test
+    @DisplayName("Should keep no broadcast notifications whose batch save fails")
+    public void testBroadcastSaveFailure() throws Exception {
+        FailingStore backend = new FailingStore();
+        MMSController shared = new MMSController(backend);
+        int before = shared.getAllNotifications().size();
+        backend.failNotifications = true;
+        Broadcast lost = shared.broadcastNotification("Lost", false, Set.of());
+        assertTrue(lost.await(10, TimeUnit.SECONDS));
+        assertEquals(0, lost.getStored());
+        assertEquals(lost.getQueued(), lost.getFailed());
+        assertEquals(before, shared.getAllNotifications().size());
+        assertTrue(shared.getPatientNotifications("PAT001").isEmpty());
+
+        backend.failNotifications = false;
+        Broadcast stored = shared.broadcastNotification("Stored", false, Set.of());
+        assertTrue(stored.await(10, TimeUnit.SECONDS));
+        assertEquals(stored.getQueued(), stored.getStored());
+        assertEquals(before + stored.getStored(), shared.getAllNotifications().size());
+        assertEquals(1, shared.getPatientNotifications("PAT001").size());
+        shared.close();
+    }
+
+    @Test
+    @DisplayName("Should show a sent notification on the sending session only")
+    public void testNotificationOutput() throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        Admin admin = (Admin) shared.login("admin@mms.com", "admin123");
+        PrintStream console = System.out;
+        ByteArrayOutputStream server = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(server, true, StandardCharsets.UTF_8));
+        String session;
+        try {
+            session = runAdmin(shared, admin, "9\n1\nPAT001\nLab results ready\nn\n13\n");
+        } finally {
+            System.setOut(console);
+        }
+        assertTrue(session.contains("] Lab results ready"));
+        assertEquals("", server.toString(StandardCharsets.UTF_8));
+        assertEquals(1, shared.getPatientNotifications("PAT001").size());
+    }
+
+    @Test
+    @DisplayName("Should issue unique ids across threads and resume past stored ids")
+    public void testIdAllocator() throws Exception {
+        IdAllocator allocator = new IdAllocator();
+        Set<String> issued = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        issued.add(allocator.next("TRE"));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(160_000, issued.size());
+        
+        long ahead = System.currentTimeMillis() + 1_000_000_000L;
+        allocator.recover("BILL", List.of("BILL" + ahead, "BILLX9" + ahead, "BILL001"));
+        assertEquals("BILL" + (ahead + 1), allocator.next("BILL"));
+        
+        InMemoryStorageBackend backend = new InMemoryStorageBackend();
+        backend.patients().saveAll(List.of(new Patient("PAT" + ahead, "Stored", "555-0700", "stored@email.com", "pass")));
+        backend.admins().saveAll(List.of(new Admin("ADMS", "Admin", "555-0000", "admin.s@mms.com", "pass", "Ops")));
+        backend.bills().saveAll(List.of(new Bill("BILL" + (ahead + 5), "PAT" + ahead, "TRE1", 10.0)));
+        MMSController restarted = new MMSController(backend);
+        assertEquals("PAT" + (ahead + 1),
+                     restarted.registerPatientAndReturn("New", "555-0701", "new@email.com", "pass").getId());
+        restarted.upgradePatient("PAT" + ahead);
+        restarted.addTreatmentType("Checkup", 50.0);
+        String typeId = restarted.getAllTreatmentTypes().get(0).getId();
+        Treatment treatment = restarted.bookTreatmentAndReturn("PAT" + ahead, typeId);
+        assertEquals("BILL" + (ahead + 6), restarted.generateBill(treatment.getTreatmentId()).getBillId());
+    }
+
+    @Test
+    @DisplayName("Should generate the same loadable dataset for the same seed")
+    public void testDatasetGenerator(@TempDir File dir) throws Exception {
+        File first = new File(dir, "first");
+        File second = new File(dir, "second");
+        DatasetGenerator generator = new DatasetGenerator(7, 500);
+        long records = generator.generate(new StorageManager(first, StorageEngine.CSV));
+        assertEquals(records, new DatasetGenerator(7, 500).generate(new StorageManager(second, StorageEngine.CSV)));
+        for (File file : first.listFiles()) {
+            assertArrayEquals(Files.readAllBytes(file.toPath()),
+                              Files.readAllBytes(new File(second, file.getName()).toPath()), file.getName());
+        }
+        new DatasetGenerator(8, 500).generate(new StorageManager(second, StorageEngine.CSV));
+        assertFalse(Arrays.equals(Files.readAllBytes(new File(first, "patients.csv").toPath()),
+                                  Files.readAllBytes(new File(second, "patients.csv").toPath())));
+
+        StorageManager storage = new StorageManager(first, StorageEngine.CSV);
+        List<Treatment> treatments = storage.treatments().loadAll();
+        List<Bill> bills = storage.bills().loadAll();
+        assertEquals(500, storage.patients().loadAll().size());
+        assertEquals(generator.getClinicianCount(), storage.clinicians().loadAll().size());
+        assertEquals(EnumSet.allOf(TreatmentStatus.class),
+                     treatments.stream().map(Treatment::getStatus).collect(Collectors.toSet()));
+        assertEquals(Set.of(true, false), bills.stream().map(Bill::isPaid).collect(Collectors.toSet()));
+        assertTrue(storage.notifications().loadAll().size() > 0);
+        Map<String, Treatment> byId = treatments.stream()
+                .collect(Collectors.toMap(Treatment::getTreatmentId, t -> t));
+        assertTrue(bills.stream().allMatch(bill -> byId.get(bill.getTreatmentId()).getPatientId()
+                                                       .equals(bill.getPatientId())));
+        Map<String, Long> patientsPerClinician = treatments.stream()
+                .filter(t -> t.getClinicianId() != null)
+                .collect(Collectors.groupingBy(Treatment::getClinicianId,
+                         Collectors.mapping(Treatment::getPatientId, Collectors.toSet())))
+                .entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> (long) e.getValue().size()));
+        for (Clinician clinician : storage.clinicians().loadAll()) {
+            assertTrue(patientsPerClinician.getOrDefault(clinician.getId(), 0L) <= clinician.getMaxPatients());
+        }
+
+        // The binary engine receives the same records
+        File binary = new File(dir, "binary");
+        generator.generate(new StorageManager(binary, StorageEngine.BINARY));
+        assertEquals(treatments.size(), new StorageManager(binary, StorageEngine.BINARY).treatments().loadAll().size());
+
+        // The controller loads it, and a billing run picks up the unbilled treatments
+        MMSController loaded = new MMSController(storage);
+        assertEquals(500, loaded.getAllPatients().size());
+        BillingRunReport report = loaded.runBilling();
+        assertTrue(report.getBillsCreated() > 0);
+        assertEquals(bills.size() + report.getBillsCreated(), storage.bills().loadAll().size());
+    }
+
+    @Test
+    @DisplayName("Should record latency percentiles, calls and errors per operation")
+    public void testOperationMetrics(@TempDir File dir) throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.getPercentile(50), 500_000 * 0.07);
+        assertEquals(990_000, histogram.getPercentile(99), 990_000 * 0.07);
+        assertEquals(500_500, histogram.getMean(), 1e-6);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        histogram.record(i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(41_000, histogram.getCount());
+
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        shared.login("john@email.com", "john123");
+        assertThrows(UserNotFoundException.class, () -> shared.login("john@email.com", "wrong"));
+        shared.registerPatient("Metric Patient", "555-0800", "metric@email.com", "pass");
+        shared.upgradePatient("PAT001");
+        shared.bookTreatment("PAT001", "TRT001");
+
+        MetricsRegistry metrics = shared.getMetrics();
+        assertEquals(2, metrics.operation("login").getCalls());
+        assertEquals(1, metrics.operation("login").getErrors());
+        assertEquals(1, metrics.operation("registerPatient").getCalls());
+        assertEquals(1, metrics.operation("bookTreatment").getCalls());
+        // Lookups made inside other operations are not counted as calls
+        assertEquals(0, metrics.operation("getPatient").getCalls());
+        assertTrue(metrics.report().contains("bookTreatment"));
+        assertFalse(metrics.report().contains("getPatient "));
+
+        File dump = new File(dir, "metrics.log");
+        metrics.dump(dump);
+        assertTrue(Files.readString(dump.toPath()).contains("login"));
+
+        // Closing the controller stops a running dump after one last report
+        File periodic = new File(dir, "periodic.log");
+        metrics.startDump(periodic, 3600);
+        shared.close();
+        assertTrue(Files.readString(periodic.toPath()).contains("bookTreatment"));
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(t -> t.getName().equals("mms-metrics-dump") && t.isAlive()));
+    }
+
+    @Test
+    @DisplayName("Should count rows, bytes and rewrites per storage file")
+    public void testStorageMetrics(@TempDir File dir) throws Exception {
+        StorageManager storage = new StorageManager(new File(dir, "snapshot"), StorageEngine.CSV);
+        MMSController shared = new MMSController(storage);
+        shared.upgradePatient("PAT001");
+        Treatment treatment = shared.bookTreatmentAndReturn("PAT001", "TRT001");
+        Bill bill = shared.generateBill(treatment.getTreatmentId());
+
+        FileIoMetrics bills = storage.getMetrics().file("bills");
+        FileIoMetrics treatments = storage.getMetrics().file("treatments");
+        long billRewrites = bills.getRewrites();
+        long treatmentRewrites = treatments.getRewrites();
+        shared.recordPayment(bill.getBillId());
+        // One payment rewrites both files in snapshot mode
+        assertEquals(billRewrites + 1, bills.getRewrites());
+        assertEquals(treatmentRewrites + 1, treatments.getRewrites());
+        assertEquals(0, bills.getAppends());
+        assertTrue(bills.getBytesWritten() > 0);
+        assertEquals(1, bills.getLoads());
+        assertTrue(treatments.getWriteAmplification() >= 1);
+        assertSame(storage.getMetrics(), shared.getStorageMetrics());
+        assertTrue(shared.getStorageMetrics().report().contains("treatments"));
+
+        try (Stream<Bill> stream = storage.bills().stream()) {
+            assertEquals(1, stream.count());
+        }
+        assertEquals(2, bills.getLoads());
+        assertEquals(1, bills.getRowsRead());
+
+        System.setProperty(StorageConfig.JOURNAL_ENABLED, "true");
+        try {
+            StorageManager journaled = new StorageManager(new File(dir, "journal"), StorageEngine.CSV);
+            Patient patient = new Patient("PAT900", "Journaled", "555-0900", "journaled@email.com", "pass");
+            journaled.patients().save(patient, () -> List.of(patient));
+            FileIoMetrics patients = journaled.getMetrics().file("patients");
+            assertEquals(1, patients.getAppends());
+            assertEquals(0, patients.getRewrites());
+            assertTrue(patients.getBytesWritten() > 0);
+            assertEquals(1.0, patients.getWriteAmplification());
+        } finally {
+            System.clearProperty(StorageConfig.JOURNAL_ENABLED);
+        }
+
+        StorageMetrics budgeted = new StorageMetrics(1);
+        budgeted.recordSave(budgeted.file("bills"), "save", 1, 500_000);
+        budgeted.recordSave(budgeted.file("bills"), "save", 1, 5_000_000);
+        assertEquals(1, budgeted.getSlowSaves());
+        assertEquals(5_000_000, budgeted.file("bills").getSaveLatency().getMax());
+    }
+
+    @Test
+    @DisplayName("Should emit JFR events for operations and storage I/O when enabled")
+    public void testFlightRecorderEvents(@TempDir File dir) throws Exception {
+        MMSController shared = new MMSController(new StorageManager(dir, StorageEngine.CSV));
+        shared.upgradePatient("PAT001");
+        Treatment untraced = shared.bookTreatmentAndReturn("PAT001", "TRT001");
+        File dump = new File(dir, "mms.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.mms.Operation").withoutThreshold();
+            recording.enable("com.mms.Storage").withoutThreshold();
+            recording.start();
+            shared.flagPatient("PAT001");
+            Treatment treatment = shared.bookTreatmentAndReturn("PAT001", "TRT001");
+            assertThrows(UserNotFoundException.class, () -> shared.getPatient("PAT404"));
+            shared.getAllTreatmentTypes();
+            recording.stop();
+            recording.dump(dump.toPath());
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+            List<RecordedEvent> operations = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("com.mms.Operation")).toList();
+            List<RecordedEvent> writes = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("com.mms.Storage")).toList();
+            assertEquals(4, operations.size());
+
+            RecordedEvent booking = operations.get(1);
+            assertEquals("bookTreatment", booking.getString("operation"));
+            assertEquals("Treatment", booking.getString("entityType"));
+            assertEquals(treatment.getTreatmentId(), booking.getString("entityId"));
+            assertFalse(booking.getBoolean("failed"));
+            RecordedEvent missing = operations.get(2);
+            assertEquals("PAT404", missing.getString("entityId"));
+            assertTrue(missing.getBoolean("failed"));
+            assertEquals(shared.getAllTreatmentTypes().size(), operations.get(3).getLong("rows"));
+
+            RecordedEvent save = writes.stream()
+                    .filter(e -> "treatments".equals(e.getString("file"))).findFirst().orElseThrow();
+            assertEquals("save", save.getString("operation"));
+            assertEquals(treatment.getTreatmentId(), save.getString("entityId"));
+            assertEquals(1, save.getLong("rowsChanged"));
+            assertEquals(2, save.getLong("rows"));
+            assertTrue(save.getBoolean("rewrite"));
+            assertEquals(new File(dir, "treatments.csv").length(), save.getLong("bytes"));
+            assertTrue(save.getDuration().toNanos() > 0);
+            assertTrue(events.stream().noneMatch(e -> untraced.getTreatmentId().equals(
+                    e.hasField("entityId") ? e.getString("entityId") : null)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should page admin reports with offset and limit options")
+    public void testReportPaging() throws Exception {
+        MMSController shared = new MMSController(new InMemoryStorageBackend());
+        for (int i = 0; i < 60; i++) {
+            shared.registerPatient("Paged Patient " + i, "555-" + i, "paged" + i + "@email.com", "pass");
+        }
+        int total = shared.getAllPatients().size();
+        Admin admin = (Admin) shared.login("admin@mms.com", "admin123");
+
+        String paged = runAdmin(shared, admin, "10\n1\n\n\n13\n");
+        assertTrue(paged.contains("ALL PATIENTS"));
+        assertTrue(paged.contains("Rows 1-50 of " + total));
+        assertTrue(paged.contains("Rows 51-" + total + " of " + total));
+        assertTrue(paged.contains("paged59@email.com"));
+
+        String sliced = runAdmin(shared, admin, "10\n1\n--offset 10 --limit 5\nq\n13\n");
+        assertTrue(sliced.contains("Rows 11-15 of " + total));
+        assertFalse(sliced.contains("Rows 16-"));
+
+        String all = runAdmin(shared, admin, "10\n1\n--limit 0\n13\n");
+        assertTrue(all.contains(total + " rows\n"));
+        assertFalse(all.contains("Enter for the next page"));
+
+        String invalid = runAdmin(shared, admin, "10\n1\n--limit many\n13\n");
+        assertTrue(invalid.contains("Error: Invalid value for --limit: many"));
+
+        String past = runAdmin(shared, admin, "10\n1\n--offset " + total + "\n13\n");
+        assertTrue(past.contains("Error: Offset " + total + " is past the last row (" + total + " rows)"));
+        assertFalse(past.contains("Rows "));
+
+        // Short lists are printed at once, without asking for options
+        String types = runAdmin(shared, admin, "10\n2\n13\n");
+        assertFalse(types.contains("--offset"));
+        assertTrue(types.contains("TRT001"));
+
+        // Booking lists every treatment type before asking for one, however many there are
+        for (int i = 0; i < 60; i++) {
+            shared.addTreatmentType("Paged Type " + i, 10 + i);
+        }
+        Patient booker = shared.getAllPatients().get(0);
+        shared.upgradePatient(booker.getId());
+        int booked = shared.getPatientTreatments(booker.getId()).size();
+        ByteArrayOutputStream session = new ByteArrayOutputStream();
+        new PatientCLI(booker, shared, new Scanner("1\nTRT001\n5\n"),
+                       new PrintStream(session, true, StandardCharsets.UTF_8)).start();
+        String booking = session.toString(StandardCharsets.UTF_8);
+        assertFalse(booking.contains("--offset"));
+        assertTrue(booking.contains("Paged Type 59"));
+        assertTrue(booking.contains("Treatment booked successfully"));
+        assertEquals(booked + 1, shared.getPatientTreatments(booker.getId()).size());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new ReportTable<TreatmentType>("PRICES")
+                .text("Name", 5, TreatmentType::getName)
+                .amount("Price", TreatmentType::getPrice)
+                .print(out, List.of(new TreatmentType("TRT9", "Physiotherapy", 1234.5),
+                                    new TreatmentType("TRT10", "X-ray", 0.125)), 0, 2);
+        String table = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(table.contains("║ Phys…  $1234.50 ║"));
+        assertTrue(table.contains("║ X-ray     $0.13 ║"));
+        assertTrue(table.contains("2 rows"));
+    }
+
+    private static String runAdmin(MMSController controller, Admin admin, String input) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        new AdminCLI(admin, controller, new Scanner(input), out).start();
+        return bytes.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+    }
 }